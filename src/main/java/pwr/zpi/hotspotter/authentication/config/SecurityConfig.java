@@ -40,11 +40,13 @@ public class SecurityConfig {
             "/swagger-ui/**",
             "/swagger-ui.html",
             "/test/**",
-            "/analysis/**"
+            "/analysis/**",
+            "/webhooks/**"
     );
 
     private final static List<String> ADMIN_ENDPOINTS = List.of(
-            "/admin/**"
+            "/admin/**",
+            "/actuator/**"
     );
 
     @Bean
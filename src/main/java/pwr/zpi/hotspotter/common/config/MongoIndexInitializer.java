@@ -0,0 +1,122 @@
+package pwr.zpi.hotspotter.common.config;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryDirectory;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.model.PackedFileResultsBlock;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryLease;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryPin;
+import pwr.zpi.hotspotter.sonar.model.analysisstatus.SonarAnalysisStatus;
+import pwr.zpi.hotspotter.sonar.model.repoanalysis.SonarRepoAnalysisResult;
+import pwr.zpi.hotspotter.watchedrepository.model.WatchedRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates the indexes declared on the listed entities once the application is ready, instead of enabling
+ * {@code spring.data.mongodb.auto-index-creation} for every entity during startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(
+            FileInfo.class,
+            FileKnowledge.class,
+            AuthorStatistics.class,
+            AnalysisInfo.class,
+            RepositoryDirectory.class,
+            PackedFileResultsBlock.class,
+            RepositoryLease.class,
+            RepositoryPin.class,
+            WatchedRepository.class,
+            SonarRepoAnalysisResult.class,
+            SonarAnalysisStatus.class
+    );
+
+    /**
+     * Unique indexes declared long before they were first built. Existing databases may hold duplicated analysis
+     * results violating them, so all but the oldest of each duplicate are removed before the index is built.
+     */
+    private static final Set<String> DEDUPLICATED_INDEXES = Set.of("analysis_file_idx", "analysis_author_idx");
+
+    private static final String INDEX_NAME_OPTION = "name";
+    private static final String ID_FIELD = "_id";
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        IndexResolver indexResolver = IndexResolver.create(
+                (MongoMappingContext) mongoTemplate.getConverter().getMappingContext());
+
+        for (Class<?> entityClass : INDEXED_ENTITIES) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(entityClass);
+            for (IndexDefinition index : indexResolver.resolveIndexFor(entityClass)) {
+                Object indexName = index.getIndexOptions().get(INDEX_NAME_OPTION);
+
+                try {
+                    if (DEDUPLICATED_INDEXES.contains(indexName) && !indexExists(indexOperations, indexName)) {
+                        removeDuplicates(entityClass, index);
+                    }
+                    indexOperations.ensureIndex(index);
+                } catch (DataAccessException | MongoException e) {
+                    log.warn("Failed to create index {} on {}: {}", indexName,
+                            mongoTemplate.getCollectionName(entityClass), e.getMessage());
+                }
+            }
+        }
+        log.debug("Ensured indexes of {} collections", INDEXED_ENTITIES.size());
+    }
+
+    private boolean indexExists(IndexOperations indexOperations, Object indexName) {
+        return indexOperations.getIndexInfo().stream().anyMatch(info -> info.getName().equals(indexName));
+    }
+
+    private void removeDuplicates(Class<?> entityClass, IndexDefinition index) {
+        Document key = new Document();
+        index.getIndexKeys().keySet().forEach(field -> key.append(field, "$" + field));
+        List<Document> pipeline = List.of(
+                new Document("$group", new Document(ID_FIELD, key)
+                        .append("ids", new Document("$push", "$" + ID_FIELD))
+                        .append("count", new Document("$sum", 1))),
+                new Document("$match", new Document("count", new Document("$gt", 1)))
+        );
+
+        MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass));
+        long removed = 0L;
+        for (Document duplicate : collection.aggregate(pipeline).allowDiskUse(true)) {
+            List<ObjectId> ids = new ArrayList<>(duplicate.getList("ids", ObjectId.class));
+            ids.sort(Comparator.naturalOrder());
+            removed += collection.deleteMany(Filters.in(ID_FIELD, ids.subList(1, ids.size()))).getDeletedCount();
+        }
+
+        if (removed > 0) {
+            log.info("Removed {} duplicated documents from {} before building index {}", removed,
+                    collection.getNamespace().getCollectionName(), index.getIndexOptions().get(INDEX_NAME_OPTION));
+        }
+    }
+
+}
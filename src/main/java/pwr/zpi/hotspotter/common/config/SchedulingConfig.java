@@ -0,0 +1,40 @@
+package pwr.zpi.hotspotter.common.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Long-running jobs get their own scheduler, so they do not hold up the shared {@code taskScheduler}
+ * used by {@code @Scheduled} methods without an explicit scheduler.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    private static final int SHARED_POOL_SIZE = 2;
+
+    @Bean(name = "taskScheduler")
+    public TaskScheduler taskScheduler() {
+        return createScheduler("Scheduling-", SHARED_POOL_SIZE);
+    }
+
+    @Bean(name = "analysisRetentionScheduler")
+    public TaskScheduler analysisRetentionScheduler() {
+        return createScheduler("AnalysisRetention-", 1);
+    }
+
+    @Bean(name = "repositoryEvictionScheduler")
+    public TaskScheduler repositoryEvictionScheduler() {
+        return createScheduler("RepositoryEviction-", 1);
+    }
+
+    private TaskScheduler createScheduler(String threadNamePrefix, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+}
@@ -25,6 +25,21 @@ public class SharedAsyncConfiguration {
         return createExecutor("SonarAnalysis-");
     }
 
+    @Bean(name = "mongoWriteExecutor")
+    public Executor mongoWriteExecutor() {
+        return createExecutor("MongoWrite-");
+    }
+
+    @Bean(name = "analysisWriteBehindExecutor")
+    public Executor analysisWriteBehindExecutor() {
+        return createExecutor("AnalysisWriteBehind-");
+    }
+
+    @Bean(name = "repositoryMaintenanceExecutor")
+    public Executor repositoryMaintenanceExecutor() {
+        return createExecutor("RepoMaintenance-");
+    }
+
     private Executor createExecutor(String threadNamePrefix) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(CORE_POOL_SIZE);
@@ -1,24 +1,21 @@
 package pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.model.ActivityTrends;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.model.ActivityTrendsDailyStats;
-import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.repository.ActivityTrendsRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.Commit;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.FileChange;
+import pwr.zpi.hotspotter.repositoryanalysis.model.DateHistogram;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ActivityTrendsAnalyzer {
 
-    private final ActivityTrendsRepository activityTrendsRepository;
-
     public ActivityTrendsContext startAnalysis(String analysisId, LocalDate referenceDate, int authorInactivityThresholdMonths) {
         log.debug("Starting activity trends analysis for ID {}", analysisId);
         return new ActivityTrendsContext(analysisId, referenceDate, authorInactivityThresholdMonths);
@@ -40,22 +37,57 @@ public class ActivityTrendsAnalyzer {
         context.recordContribution(date, author, linesAdded, linesDeleted);
     }
 
-    public void finishAnalysis(ActivityTrendsContext context) {
-        if (context == null) return;
+    public ActivityTrends finishAnalysis(ActivityTrendsContext context) {
+        if (context == null) return null;
 
         context.finishAnalysis();
 
         List<ActivityTrendsDailyStats> dailyStats = context.getActivityTrendsDailyStats().values().stream().toList();
-        ActivityTrends activityTrends = ActivityTrends.builder()
+        return ActivityTrends.builder()
                 .analysisId(context.getAnalysisId())
                 .dailyStats(dailyStats)
                 .build();
+    }
+
+    public List<ActivityTrendsDailyStats> recalculateActiveAuthors(List<ActivityTrendsDailyStats> dailyStats,
+                                                                   Collection<AuthorStatistics> authorStatistics,
+                                                                   int authorInactivityThresholdMonths) {
+        List<AuthorActivity> activities = new ArrayList<>();
+        for (AuthorStatistics stats : authorStatistics) {
+            DateHistogram histogram = stats.getCommitHistogram();
+            if (histogram == null) continue;
 
-        try {
-            activityTrendsRepository.save(activityTrends);
-        } catch (Exception e) {
-            log.error("Error saving activity trends data for ID {}: {}", context.getAnalysisId(), e.getMessage(), e);
+            for (int i = 0; i < histogram.size(); i++) {
+                activities.add(new AuthorActivity(stats.getName(), histogram.dateAt(i)));
+            }
         }
+        activities.sort(Comparator.comparing(AuthorActivity::date));
+
+        List<ActivityTrendsDailyStats> recalculatedStats = dailyStats.stream()
+                .map(stats -> stats.toBuilder().build())
+                .sorted(Comparator.comparing(ActivityTrendsDailyStats::getDate))
+                .toList();
+
+        Map<String, LocalDate> authorLastActivity = new HashMap<>();
+        int nextActivity = 0;
+
+        for (ActivityTrendsDailyStats stats : recalculatedStats) {
+            LocalDate date = stats.getDate();
+            while (nextActivity < activities.size() && !activities.get(nextActivity).date().isAfter(date)) {
+                AuthorActivity activity = activities.get(nextActivity++);
+                authorLastActivity.put(activity.author(), activity.date());
+            }
+
+            if (stats.getActiveAuthors() == null) continue;
+
+            LocalDate inactivityThreshold = date.minusMonths(authorInactivityThresholdMonths);
+            authorLastActivity.values().removeIf(lastActivity -> lastActivity.isBefore(inactivityThreshold));
+            stats.setActiveAuthors(authorLastActivity.size());
+        }
+
+        return recalculatedStats;
     }
 
+    private record AuthorActivity(String author, LocalDate date) { }
+
 }
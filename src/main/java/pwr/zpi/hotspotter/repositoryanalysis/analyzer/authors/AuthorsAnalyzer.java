@@ -1,16 +1,12 @@
 package pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.AuthorContribution;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
-import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.repository.FileKnowledgeRepository;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
-import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.repository.AuthorStatisticsRepository;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.Commit;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.FileChange;
-import pwr.zpi.hotspotter.repositoryanalysis.util.AnalysisUtils;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
@@ -19,17 +15,11 @@ import java.util.List;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class AuthorsAnalyzer {
 
-    private static final int AUTHOR_INACTIVITY_THRESHOLD_MONTHS = 6;
-
-    private final AuthorStatisticsRepository authorStatisticsRepository;
-    private final FileKnowledgeRepository fileKnowledgeRepository;
-
-    public AuthorsAnalyzerContext startAnalysis(String analysisId, LocalDate referenceDate) {
+    public AuthorsAnalyzerContext startAnalysis(String analysisId, LocalDate referenceDate, int authorInactivityThresholdMonths) {
         log.debug("Starting authors analysis for ID {}", analysisId);
-        return new AuthorsAnalyzerContext(analysisId, referenceDate);
+        return new AuthorsAnalyzerContext(analysisId, referenceDate, authorInactivityThresholdMonths);
     }
 
     public void processCommit(Commit commit, AuthorsAnalyzerContext context) {
@@ -49,27 +39,21 @@ public class AuthorsAnalyzer {
         context.recordContribution(author, email, date, linesAdded, linesDeleted);
     }
 
-    public void finishAnalysis(AuthorsAnalyzerContext context) {
-        if (context == null) return;
+    public Collection<AuthorStatistics> finishAnalysis(AuthorsAnalyzerContext context) {
+        if (context == null) return List.of();
 
         Collection<AuthorStatistics> authorStatistics = context.getAuthorStatistics().values();
         authorStatistics.forEach(stats -> {
             calculateInactivityTime(stats, context.getReferenceDate());
-            checkIfInactive(stats);
+            checkIfInactive(stats, context.getAuthorInactivityThresholdMonths());
+            stats.getCommitHistogram().trim();
         });
 
-        try {
-            AnalysisUtils.saveDataInBatches(authorStatisticsRepository, authorStatistics);
-        } catch (Exception e) {
-            log.error("Error saving authors analysis data for ID {}: {}", context.getAnalysisId(), e.getMessage(), e);
-        }
+        return authorStatistics;
     }
 
-    public void enrichAnalysisData(AuthorsAnalyzerContext context) {
-        if (context == null) return;
-
-        Collection<AuthorStatistics> authorStatistics = context.getAuthorStatistics().values();
-        List<FileKnowledge> fileKnowledgeData = fileKnowledgeRepository.findAllByAnalysisId(context.getAnalysisId());
+    public void enrichAnalysisData(AuthorsAnalyzerContext context, Collection<FileKnowledge> fileKnowledgeData) {
+        if (context == null || fileKnowledgeData == null) return;
 
         for (FileKnowledge fileKnowledge : fileKnowledgeData) {
             String leadAuthor = fileKnowledge.getLeadAuthor();
@@ -88,12 +72,6 @@ public class AuthorsAnalyzer {
                 }
             }
         }
-
-        try {
-            AnalysisUtils.saveDataInBatches(authorStatisticsRepository, authorStatistics);
-        } catch (Exception e) {
-            log.error("Error saving enriched authors analysis data for ID {}: {}", context.getAnalysisId(), e.getMessage(), e);
-        }
     }
 
     private void calculateInactivityTime(AuthorStatistics authorStatistics, LocalDate referenceDate) {
@@ -106,9 +84,9 @@ public class AuthorsAnalyzer {
         authorStatistics.setMonthsSinceLastCommit(monthsSinceLastCommit);
     }
 
-    private void checkIfInactive(AuthorStatistics stats) {
+    public void checkIfInactive(AuthorStatistics stats, int authorInactivityThresholdMonths) {
         boolean isActive = stats.getMonthsSinceLastCommit() != null
-                && stats.getMonthsSinceLastCommit() < AUTHOR_INACTIVITY_THRESHOLD_MONTHS;
+                && stats.getMonthsSinceLastCommit() < authorInactivityThresholdMonths;
         stats.setIsActive(isActive);
     }
 
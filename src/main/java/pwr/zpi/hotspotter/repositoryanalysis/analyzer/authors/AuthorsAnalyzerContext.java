@@ -13,11 +13,13 @@ public class AuthorsAnalyzerContext {
 
     private final String analysisId;
     private final LocalDate referenceDate;
+    private final int authorInactivityThresholdMonths;
     private final Map<String, AuthorStatistics> authorStatistics;
 
-    public AuthorsAnalyzerContext(String analysisId, LocalDate referenceDate) {
+    public AuthorsAnalyzerContext(String analysisId, LocalDate referenceDate, int authorInactivityThresholdMonths) {
         this.analysisId = analysisId;
         this.referenceDate = referenceDate != null ? referenceDate : LocalDate.now();
+        this.authorInactivityThresholdMonths = authorInactivityThresholdMonths;
         this.authorStatistics = new HashMap<>();
     }
 
@@ -39,6 +41,7 @@ public class AuthorsAnalyzerContext {
 
                     stats.addEmail(email);
                     stats.setLastCommitDate(date);
+                    stats.recordCommitDate(date);
                     stats.increaseLinesAdded(linesAdded);
                     stats.increaseLinesDeleted(linesDeleted);
                     stats.incrementCommits();
@@ -1,5 +1,6 @@
 package pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -8,7 +9,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import pwr.zpi.hotspotter.repositoryanalysis.model.DateHistogram;
 
 import java.time.LocalDate;
 import java.util.HashSet;
@@ -19,7 +22,11 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "author_statistics")
-@CompoundIndex(name = "analysis_author_idx", def = "{'analysisId': 1, 'name': 1}", unique = true)
+@CompoundIndexes({
+        @CompoundIndex(name = "analysis_author_idx", def = "{'analysisId': 1, 'name': 1}", unique = true),
+        @CompoundIndex(name = "analysis_lead_files_idx", def = "{'analysisId': 1, 'filesAsLeadAuthor': -1, 'name': 1}"),
+        @CompoundIndex(name = "analysis_author_commits_idx", def = "{'analysisId': 1, 'commits': -1, 'name': 1}")
+})
 public class AuthorStatistics {
 
     @Id
@@ -66,6 +73,10 @@ public class AuthorStatistics {
     @Builder.Default
     private Integer filesAsLeadAuthor = 0;
 
+    @JsonIgnore
+    @Builder.Default
+    private DateHistogram commitHistogram = new DateHistogram();
+
     public void addEmail(String email) {
         this.emails.add(email);
     }
@@ -74,6 +85,10 @@ public class AuthorStatistics {
         this.commits++;
     }
 
+    public void recordCommitDate(LocalDate date) {
+        this.commitHistogram.record(date);
+    }
+
     public void increaseLinesAdded(int lines) {
         this.totalLinesAdded += lines;
     }
@@ -1,11 +1,9 @@
 package pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.springframework.stereotype.Component;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
-import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.repository.FileInfoRepository;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.Commit;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.FileChange;
 import pwr.zpi.hotspotter.repositoryanalysis.util.AnalysisUtils;
@@ -21,14 +19,12 @@ import java.util.*;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class FileInfoAnalyzer {
 
-    private final FileInfoRepository fileInfoRepository;
-
-    public FileInfoAnalyzerContext startAnalysis(String analysisId, Path repositoryPath, LocalDate referenceDate) {
+    public FileInfoAnalyzerContext startAnalysis(String analysisId, Path repositoryPath, LocalDate referenceDate,
+                                                 int hotSpotAnalysisPeriodMonths) {
         log.debug("Starting file info analysis for ID: {}", analysisId);
-        return new FileInfoAnalyzerContext(analysisId, repositoryPath, referenceDate);
+        return new FileInfoAnalyzerContext(analysisId, repositoryPath, referenceDate, hotSpotAnalysisPeriodMonths);
 
     }
 
@@ -49,8 +45,8 @@ public class FileInfoAnalyzer {
         }
     }
 
-    public void finishAnalysis(FileInfoAnalyzerContext context) {
-        if (context == null) return;
+    public List<FileInfo> finishAnalysis(FileInfoAnalyzerContext context) {
+        if (context == null) return List.of();
 
         Set<String> existingFiles = AnalysisUtils.getExistingFileNames(context.getRepositoryPath());
         Map<String, FileLinesData> fileLinesData = getFileLinesData(context.getRepositoryPath());
@@ -64,13 +60,17 @@ public class FileInfoAnalyzer {
             calculateFileSize(fileInfo, context.getRepositoryPath());
             calculateCodeAge(fileInfo, context.getReferenceDate());
             addLinesData(fileInfo, fileLinesData);
+            fileInfo.getCommitHistogram().trim();
         });
 
-        try {
-            AnalysisUtils.saveDataInBatches(fileInfoRepository, fileInfosFiltered);
-        } catch (Exception e) {
-            log.error("Error saving file info data for analysis ID {}: {}", context.getAnalysisId(), e.getMessage(), e);
+        return fileInfosFiltered;
+    }
+
+    public int countCommitsInHotSpotAnalysisPeriod(FileInfo fileInfo, LocalDate referenceDate, int hotSpotAnalysisPeriodMonths) {
+        if (fileInfo.getCommitHistogram() == null) {
+            return Objects.requireNonNullElse(fileInfo.getCommitsInHotSpotAnalysisPeriod(), 0);
         }
+        return fileInfo.getCommitHistogram().countSince(referenceDate.minusMonths(hotSpotAnalysisPeriodMonths));
     }
 
     private Map<String, FileLinesData> getFileLinesData(Path repositoryPath) {
@@ -11,18 +11,17 @@ import java.util.Map;
 @Getter
 public class FileInfoAnalyzerContext {
 
-    // TODO: Get from user settings
-    private static final int HOT_SPOT_ANALYSIS_PERIOD_MONTHS = 6;
-
     private final String analysisId;
     private final Path repositoryPath;
     private final LocalDate referenceDate;
+    private final int hotSpotAnalysisPeriodMonths;
     private final Map<String, FileInfo> fileInfos;
 
-    public FileInfoAnalyzerContext(String analysisId, Path repositoryPath, LocalDate referenceDate) {
+    public FileInfoAnalyzerContext(String analysisId, Path repositoryPath, LocalDate referenceDate, int hotSpotAnalysisPeriodMonths) {
         this.analysisId = analysisId;
         this.repositoryPath = repositoryPath;
         this.referenceDate = referenceDate != null ? referenceDate : LocalDate.now();
+        this.hotSpotAnalysisPeriodMonths = hotSpotAnalysisPeriodMonths;
         this.fileInfos = new HashMap<>();
     }
 
@@ -47,6 +46,7 @@ public class FileInfoAnalyzerContext {
                 fileInfo.incrementCommitsLastYear();
             }
             fileInfo.incrementTotalCommits();
+            fileInfo.recordCommitDate(date);
             fileInfo.setLastCommitDate(date);
             return fileInfo;
         });
@@ -72,7 +72,7 @@ public class FileInfoAnalyzerContext {
     }
 
     private boolean isWithinHotSpotAnalysisPeriod(LocalDate date) {
-        return !date.isBefore(referenceDate.minusMonths(HOT_SPOT_ANALYSIS_PERIOD_MONTHS));
+        return !date.isBefore(referenceDate.minusMonths(hotSpotAnalysisPeriodMonths));
     }
 
     private boolean isWithinLastMonth(LocalDate date) {
@@ -1,5 +1,6 @@
 package pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -8,7 +9,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import pwr.zpi.hotspotter.repositoryanalysis.model.DateHistogram;
 
 import java.time.LocalDate;
 
@@ -17,7 +20,12 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "file_info")
-@CompoundIndex(name = "analysis_file_idx", def = "{'analysisId': 1, 'filePath': 1}", unique = true)
+@CompoundIndexes({
+        @CompoundIndex(name = "analysis_file_idx", def = "{'analysisId': 1, 'filePath': 1}", unique = true),
+        @CompoundIndex(name = "analysis_total_commits_idx", def = "{'analysisId': 1, 'totalCommits': -1, 'filePath': 1}"),
+        @CompoundIndex(name = "analysis_code_lines_idx", def = "{'analysisId': 1, 'codeLines': -1, 'filePath': 1}"),
+        @CompoundIndex(name = "analysis_code_age_idx", def = "{'analysisId': 1, 'codeAgeDays': 1}")
+})
 public class FileInfo {
 
     @Id
@@ -64,6 +72,10 @@ public class FileInfo {
 
     private Integer codeAgeMonths;
 
+    @JsonIgnore
+    @Builder.Default
+    private DateHistogram commitHistogram = new DateHistogram();
+
     public void incrementCommitsInHotSpotAnalysisPeriod() {
         commitsInHotSpotAnalysisPeriod++;
     }
@@ -80,4 +92,8 @@ public class FileInfo {
         totalCommits++;
     }
 
+    public void recordCommitDate(LocalDate date) {
+        commitHistogram.record(date);
+    }
+
 }
@@ -6,12 +6,18 @@ import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface FileInfoRepository extends MongoRepository<FileInfo, String> {
 
     List<FileInfo> findAllByAnalysisId(String analysisId);
 
+    /**
+     * Served by the {@code analysis_file_idx} index, so the results are not sorted in memory.
+     */
+    Stream<FileInfo> streamAllByAnalysisIdOrderByFilePathAsc(String analysisId);
+
     Optional<FileInfo> findByAnalysisIdAndFilePath(String analysisId, String filePath);
 
     long countAllByAnalysisId(String analysisId);
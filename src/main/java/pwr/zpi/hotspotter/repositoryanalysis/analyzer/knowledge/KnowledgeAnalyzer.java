@@ -1,13 +1,10 @@
 package pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.AuthorContribution;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
-import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.repository.FileKnowledgeRepository;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
-import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.repository.AuthorStatisticsRepository;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.Commit;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.FileChange;
 import pwr.zpi.hotspotter.repositoryanalysis.util.AnalysisUtils;
@@ -18,12 +15,8 @@ import java.util.stream.Collectors;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class KnowledgeAnalyzer {
 
-    private final FileKnowledgeRepository fileKnowledgeRepository;
-    private final AuthorStatisticsRepository authorStatisticsRepository;
-
     public KnowledgeAnalyzerContext startAnalysis(String analysisId, Path repositoryPath) {
         log.debug("Starting knowledge analysis for ID {}", analysisId);
         return new KnowledgeAnalyzerContext(analysisId, repositoryPath);
@@ -47,12 +40,12 @@ public class KnowledgeAnalyzer {
         }
     }
 
-    public void finishAnalysis(KnowledgeAnalyzerContext context) {
-        if (context == null) return;
+    public List<FileKnowledge> finishAnalysis(KnowledgeAnalyzerContext context) {
+        if (context == null) return List.of();
 
         Set<String> existingFiles = AnalysisUtils.getExistingFileNames(context.getRepositoryPath());
 
-        List<FileKnowledge> knowledgeData = context.getFileContributions().entrySet().stream()
+        return context.getFileContributions().entrySet().stream()
                 .filter(entry -> existingFiles.contains(entry.getKey()))
                 .map(entry -> calculateFileKnowledge(
                         context.getAnalysisId(),
@@ -60,19 +53,10 @@ public class KnowledgeAnalyzer {
                         entry.getValue()
                 ))
                 .toList();
-
-        try {
-            AnalysisUtils.saveDataInBatches(fileKnowledgeRepository, knowledgeData);
-        } catch (Exception e) {
-            log.error("Error saving knowledge analysis data for ID: {}: {}", context.getAnalysisId(), e.getMessage(), e);
-        }
     }
 
-    public void enrichAnalysisData(KnowledgeAnalyzerContext context) {
-        if (context == null) return;
-
-        List<FileKnowledge> fileKnowledgeData = fileKnowledgeRepository.findAllByAnalysisId(context.getAnalysisId());
-        List<AuthorStatistics> authorStatistics = authorStatisticsRepository.findAllByAnalysisId(context.getAnalysisId());
+    public void enrichAnalysisData(Collection<FileKnowledge> fileKnowledgeData, Collection<AuthorStatistics> authorStatistics) {
+        if (fileKnowledgeData == null || authorStatistics == null) return;
 
         Map<String, Boolean> authorActivityMap = authorStatistics.stream()
                 .collect(Collectors.toMap(
@@ -80,39 +64,35 @@ public class KnowledgeAnalyzer {
                         AuthorStatistics::getIsActive
                 ));
 
-        for (FileKnowledge fileKnowledge : fileKnowledgeData) {
-            int totalLinesAdded = fileKnowledge.getLinesAdded();
+        fileKnowledgeData.forEach(fileKnowledge -> applyAuthorActivity(fileKnowledge, authorActivityMap));
+    }
 
-            if (totalLinesAdded == 0) {
-                fileKnowledge.setKnowledgeLoss(0.0);
-                continue;
-            }
+    public void applyAuthorActivity(FileKnowledge fileKnowledge, Map<String, Boolean> authorActivityMap) {
+        int totalLinesAdded = fileKnowledge.getLinesAdded();
 
-            List<AuthorContribution> contributions = fileKnowledge.getAuthorContributions();
-            if (contributions == null || contributions.isEmpty()) {
-                fileKnowledge.setKnowledgeLoss(0.0);
-                continue;
-            }
+        if (totalLinesAdded == 0) {
+            fileKnowledge.setKnowledgeLoss(0.0);
+            return;
+        }
 
-            int activeContributors = (int) contributions.stream()
-                    .filter(contribution -> authorActivityMap.getOrDefault(contribution.getName(), false))
-                    .count();
-            fileKnowledge.setActiveContributors(activeContributors);
+        List<AuthorContribution> contributions = fileKnowledge.getAuthorContributions();
+        if (contributions == null || contributions.isEmpty()) {
+            fileKnowledge.setKnowledgeLoss(0.0);
+            return;
+        }
 
-            int linesAddedByInactiveAuthors = contributions.stream()
-                    .filter(contribution -> !authorActivityMap.get(contribution.getName()))
-                    .mapToInt(AuthorContribution::getLinesAdded)
-                    .sum();
+        int activeContributors = (int) contributions.stream()
+                .filter(contribution -> authorActivityMap.getOrDefault(contribution.getName(), false))
+                .count();
+        fileKnowledge.setActiveContributors(activeContributors);
 
-            double knowledgeLoss = linesAddedByInactiveAuthors * 100.0 / totalLinesAdded;
-            fileKnowledge.setKnowledgeLoss(knowledgeLoss);
-        }
+        int linesAddedByInactiveAuthors = contributions.stream()
+                .filter(contribution -> !authorActivityMap.getOrDefault(contribution.getName(), false))
+                .mapToInt(AuthorContribution::getLinesAdded)
+                .sum();
 
-        try {
-            AnalysisUtils.saveDataInBatches(fileKnowledgeRepository, fileKnowledgeData);
-        } catch (Exception e) {
-            log.error("Error saving enriched knowledge analysis data for ID {}: {}", context.getAnalysisId(), e.getMessage(), e);
-        }
+        double knowledgeLoss = linesAddedByInactiveAuthors * 100.0 / totalLinesAdded;
+        fileKnowledge.setKnowledgeLoss(knowledgeLoss);
     }
 
     private FileKnowledge calculateFileKnowledge(String analysisId, String filePath,
@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -17,7 +18,11 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "file_knowledge")
-@CompoundIndex(name = "analysis_file_idx", def = "{'analysisId': 1, 'filePath': 1}", unique = true)
+@CompoundIndexes({
+        @CompoundIndex(name = "analysis_file_idx", def = "{'analysisId': 1, 'filePath': 1}", unique = true),
+        @CompoundIndex(name = "analysis_knowledge_loss_idx", def = "{'analysisId': 1, 'knowledgeLoss': -1, 'filePath': 1}"),
+        @CompoundIndex(name = "analysis_lead_author_idx", def = "{'analysisId': 1, 'leadAuthor': 1}")
+})
 public class FileKnowledge {
 
     @Id
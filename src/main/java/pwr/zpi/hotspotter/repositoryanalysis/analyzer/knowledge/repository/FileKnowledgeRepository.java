@@ -6,12 +6,18 @@ import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowle
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface FileKnowledgeRepository extends MongoRepository<FileKnowledge, String> {
 
     List<FileKnowledge> findAllByAnalysisId(String analysisId);
 
+    /**
+     * Served by the {@code analysis_file_idx} index, so the results are not sorted in memory.
+     */
+    Stream<FileKnowledge> streamAllByAnalysisIdOrderByFilePathAsc(String analysisId);
+
     Optional<FileKnowledge> findByAnalysisIdAndFilePath(String analysisId, String filePath);
 
     long countAllByAnalysisId(String analysisId);
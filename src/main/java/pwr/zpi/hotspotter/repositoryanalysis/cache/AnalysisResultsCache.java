@@ -0,0 +1,111 @@
+package pwr.zpi.hotspotter.repositoryanalysis.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.config.AnalysisResultsCacheConfig;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through LRU cache of encoded result views of completed analyses, bounded by the total size of cached bytes.
+ * Only results of completed (immutable) analyses may be cached, entries never need invalidation except
+ * when an analysis is removed.
+ */
+@Slf4j
+@Component
+public class AnalysisResultsCache {
+
+    private static final String METRIC_PREFIX = "analysis.results.cache";
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final long maxSizeBytes;
+    private final LinkedHashMap<String, CachedResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public AnalysisResultsCache(AnalysisResultsCacheConfig analysisResultsCacheConfig, MeterRegistry meterRegistry) {
+        this.maxSizeBytes = analysisResultsCacheConfig.getMaxSizeInBytes();
+
+        FunctionCounter.builder(METRIC_PREFIX + ".requests", hits, AtomicLong::get).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".requests", misses, AtomicLong::get).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".evictions", evictions, AtomicLong::get).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".size", this, AnalysisResultsCache::sizeBytes).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".entries", this, AnalysisResultsCache::entryCount).register(meterRegistry);
+    }
+
+    public CachedResult get(String analysisId, String view, Supplier<CachedResult> loader) {
+        String key = key(analysisId, view);
+
+        synchronized (this) {
+            CachedResult cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        misses.incrementAndGet();
+        CachedResult loaded = loader.get();
+        put(key, loaded);
+        return loaded;
+    }
+
+    public synchronized void invalidate(String analysisId) {
+        String prefix = analysisId + ":";
+        Iterator<Map.Entry<String, CachedResult>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, CachedResult> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                sizeBytes -= weight(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    private synchronized void put(String key, CachedResult result) {
+        long weight = weight(key, result);
+        if (weight > maxSizeBytes) return;
+
+        CachedResult previous = entries.put(key, result);
+        if (previous != null) {
+            sizeBytes -= weight(key, previous);
+        }
+        sizeBytes += weight;
+
+        Iterator<Map.Entry<String, CachedResult>> iterator = entries.entrySet().iterator();
+        while (sizeBytes > maxSizeBytes && iterator.hasNext()) {
+            Map.Entry<String, CachedResult> eldest = iterator.next();
+            sizeBytes -= weight(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+            evictions.incrementAndGet();
+            log.debug("Evicted cached analysis result {}", eldest.getKey());
+        }
+    }
+
+    private synchronized long sizeBytes() {
+        return sizeBytes;
+    }
+
+    private synchronized int entryCount() {
+        return entries.size();
+    }
+
+    private static long weight(String key, CachedResult result) {
+        return (long) result.size() + key.length() * 2L + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private static String key(String analysisId, String view) {
+        return analysisId + ":" + view;
+    }
+
+}
@@ -0,0 +1,62 @@
+package pwr.zpi.hotspotter.repositoryanalysis.cache;
+
+import org.springframework.http.MediaType;
+import pwr.zpi.hotspotter.repositoryanalysis.util.ContentEncodingUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Encoded result view of a completed analysis. {@code contentEncoding} is the encoding the bytes are stored in
+ * ({@code null} for identity), the ETag is a digest of the stored bytes.
+ */
+public record CachedResult(byte[] data, MediaType contentType, String contentEncoding, String eTag) {
+
+    private static final int ETAG_DIGEST_BYTES = 16;
+
+    public static CachedResult of(byte[] data, MediaType contentType, String contentEncoding) {
+        return new CachedResult(data, contentType, contentEncoding, "\"" + digest(data) + "\"");
+    }
+
+    public int size() {
+        return data.length;
+    }
+
+    /**
+     * ETag of the representation sent to the client, differs from the stored one when the bytes are decoded before sending.
+     */
+    public String eTag(String responseEncoding) {
+        if (contentEncoding == null || contentEncoding.equals(responseEncoding)) return eTag;
+        return eTag.substring(0, eTag.length() - 1) + "-identity\"";
+    }
+
+    public void writeDecoded(OutputStream outputStream) throws IOException {
+        if (contentEncoding == null) {
+            outputStream.write(data);
+            return;
+        }
+        if (!contentEncoding.equals(ContentEncodingUtils.GZIP)) {
+            throw new IllegalStateException("Unsupported content encoding: " + contentEncoding);
+        }
+
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            inputStream.transferTo(outputStream);
+        }
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(hash, 0, ETAG_DIGEST_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+}
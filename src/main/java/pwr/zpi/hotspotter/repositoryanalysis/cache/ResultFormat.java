@@ -0,0 +1,78 @@
+package pwr.zpi.hotspotter.repositoryanalysis.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Representation formats of analysis result views. The binary formats back-reference repeated keys and
+ * string values ({@code name}, {@code type}, path segments) instead of repeating them.
+ */
+public enum ResultFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    SMILE(new MediaType("application", "x-jackson-smile")),
+    CBOR(MediaType.APPLICATION_CBOR);
+
+    private final MediaType mediaType;
+
+    ResultFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Creates a mapper for this format with the configuration of the given JSON mapper.
+     */
+    public ObjectMapper createMapper(ObjectMapper jsonMapper) {
+        return switch (this) {
+            case JSON -> jsonMapper;
+            case SMILE -> jsonMapper.copyWith(SmileFactory.builder()
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                    .build());
+            case CBOR -> jsonMapper.copyWith(CBORFactory.builder()
+                    .enable(CBORGenerator.Feature.STRINGREF)
+                    .build());
+        };
+    }
+
+    /**
+     * Picks the format with the highest quality value in the {@code Accept} header, JSON when nothing
+     * more specific is requested.
+     */
+    public static ResultFormat fromAcceptHeader(String accept) {
+        if (accept == null || accept.isBlank()) return JSON;
+
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException _) {
+            return JSON;
+        }
+
+        ResultFormat best = JSON;
+        double bestQuality = 0.0;
+        for (MediaType requested : mediaTypes) {
+            if (requested.isWildcardType()) continue;
+
+            for (ResultFormat format : values()) {
+                if (requested.includes(format.mediaType) && requested.getQualityValue() > bestQuality) {
+                    best = format;
+                    bestQuality = requested.getQualityValue();
+                }
+            }
+        }
+        return best;
+    }
+
+}
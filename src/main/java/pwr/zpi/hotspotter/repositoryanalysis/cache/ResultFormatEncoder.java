@@ -0,0 +1,80 @@
+package pwr.zpi.hotspotter.repositoryanalysis.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositoryanalysis.util.ContentEncodingUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes result views into cacheable representations. JSON is stored gzip-compressed, the binary formats
+ * are already compact and are stored as-is.
+ */
+@Component
+public class ResultFormatEncoder {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<ResultFormat, ObjectMapper> mappers = new EnumMap<>(ResultFormat.class);
+
+    public ResultFormatEncoder(ObjectMapper objectMapper) {
+        for (ResultFormat format : ResultFormat.values()) {
+            mappers.put(format, format.createMapper(objectMapper));
+        }
+    }
+
+    public CachedResult encode(Object value, ResultFormat format) {
+        return write(format, generator -> generator.writeObject(value));
+    }
+
+    /**
+     * Encodes a document produced incrementally by {@code writer}, JSON output is compressed as it is written.
+     */
+    public CachedResult write(ResultFormat format, ResultWriter writer) {
+        boolean compressed = format == ResultFormat.JSON;
+        ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE);
+
+        try (OutputStream target = compressed ? new GZIPOutputStream(output, BUFFER_SIZE) : output;
+             JsonGenerator generator = mappers.get(format).createGenerator(target)) {
+            writer.write(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize " + format + " payload", e);
+        }
+        return CachedResult.of(output.toByteArray(), format.getMediaType(), compressed ? ContentEncodingUtils.GZIP : null);
+    }
+
+    /**
+     * Converts a gzip-compressed JSON document into the given format token by token, without binding it to objects.
+     */
+    public CachedResult transcodeGzipJson(byte[] gzipJson, ResultFormat format) {
+        if (format == ResultFormat.JSON) {
+            return CachedResult.of(gzipJson, format.getMediaType(), ContentEncodingUtils.GZIP);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE);
+        try (JsonParser parser = mappers.get(ResultFormat.JSON).createParser(new GZIPInputStream(new ByteArrayInputStream(gzipJson)));
+             JsonGenerator generator = mappers.get(format).createGenerator(output)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to transcode JSON payload to " + format, e);
+        }
+        return CachedResult.of(output.toByteArray(), format.getMediaType(), null);
+    }
+
+    @FunctionalInterface
+    public interface ResultWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+}
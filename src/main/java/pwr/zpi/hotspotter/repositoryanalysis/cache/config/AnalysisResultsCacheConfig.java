@@ -0,0 +1,24 @@
+package pwr.zpi.hotspotter.repositoryanalysis.cache.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "analysis-results-cache")
+public class AnalysisResultsCacheConfig {
+
+    @NotNull
+    @Min(value = 0, message = "Cache size cannot be negative")
+    private Long maxSizeMb = 256L;
+
+    public long getMaxSizeInBytes() {
+        return maxSizeMb * 1024L * 1024L;
+    }
+
+}
@@ -0,0 +1,27 @@
+package pwr.zpi.hotspotter.repositoryanalysis.cache.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.ResultFormat;
+
+/**
+ * Binary message converters sharing the application mapper configuration, so paginated result endpoints
+ * negotiate Smile and CBOR through the {@code Accept} header as well.
+ */
+@Configuration
+public class ResultFormatConfig {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(ResultFormat.SMILE.createMapper(objectMapper));
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(ResultFormat.CBOR.createMapper(objectMapper));
+    }
+
+}
@@ -0,0 +1,160 @@
+package pwr.zpi.hotspotter.repositoryanalysis.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultFilter;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultHistogram;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultPage;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultQuery;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultResource;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultValueCount;
+import pwr.zpi.hotspotter.repositoryanalysis.service.AnalysisResultsAggregationService;
+import pwr.zpi.hotspotter.repositoryanalysis.service.AnalysisResultsQueryService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/analysis")
+public class AnalysisResultsQueryController {
+
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_TOP_SIZE = 50;
+
+    private final AnalysisResultsQueryService analysisResultsQueryService;
+    private final AnalysisResultsAggregationService analysisResultsAggregationService;
+
+    @GetMapping("/{analysisId}/{resource:files|knowledge|authors}")
+    public ResponseEntity<ResultPage> getResults(
+            @PathVariable String analysisId,
+            @PathVariable String resource,
+            @Valid @ModelAttribute ResultQueryRequest request) {
+
+        ResultPage response = analysisResultsQueryService.findPage(toQuery(analysisId, resource, request));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{analysisId}/{resource:files|knowledge|authors}/export")
+    public ResponseEntity<StreamingResponseBody> exportResults(
+            @PathVariable String analysisId,
+            @PathVariable String resource,
+            @Valid @ModelAttribute ResultQueryRequest request) {
+
+        StreamingResponseBody body = analysisResultsQueryService.export(toQuery(analysisId, resource, request));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+                .body(body);
+    }
+
+    @GetMapping("/{analysisId}/{resource:files|knowledge|authors}/top")
+    public ResponseEntity<List<Map<String, Object>>> getTopResults(
+            @PathVariable String analysisId,
+            @PathVariable String resource,
+            @Valid @ModelAttribute TopResultsRequest request) {
+
+        List<Map<String, Object>> response = analysisResultsAggregationService.findTop(
+                analysisId,
+                toResource(resource),
+                request.field(),
+                "asc".equalsIgnoreCase(request.direction()),
+                Objects.requireNonNullElse(request.limit(), DEFAULT_TOP_SIZE),
+                request.fields()
+        );
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{analysisId}/{resource:files|knowledge|authors}/histogram")
+    public ResponseEntity<ResultHistogram> getHistogram(
+            @PathVariable String analysisId,
+            @PathVariable String resource,
+            @Valid @ModelAttribute HistogramRequest request) {
+
+        ResultHistogram response = analysisResultsAggregationService.findHistogram(
+                analysisId, toResource(resource), request.field(), request.boundaries(), request.buckets());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{analysisId}/{resource:files|knowledge|authors}/counts")
+    public ResponseEntity<List<ResultValueCount>> getValueCounts(
+            @PathVariable String analysisId,
+            @PathVariable String resource,
+            @Valid @ModelAttribute ValueCountsRequest request) {
+
+        List<ResultValueCount> response = analysisResultsAggregationService.findValueCounts(
+                analysisId, toResource(resource), request.field(), Objects.requireNonNullElse(request.limit(), DEFAULT_TOP_SIZE));
+        return ResponseEntity.ok(response);
+    }
+
+    private ResultResource toResource(String resource) {
+        return ResultResource.valueOf(resource.toUpperCase());
+    }
+
+    private ResultQuery toQuery(String analysisId, String resource, ResultQueryRequest request) {
+        List<ResultFilter> filters = Objects.requireNonNullElse(request.filter(), List.<String>of()).stream()
+                .map(ResultFilter::parse)
+                .toList();
+
+        return new ResultQuery(
+                analysisId,
+                toResource(resource),
+                request.sort(),
+                !"desc".equalsIgnoreCase(request.direction()),
+                filters,
+                Objects.requireNonNullElse(request.fields(), List.of()),
+                request.cursor(),
+                Objects.requireNonNullElse(request.limit(), DEFAULT_PAGE_SIZE)
+        );
+    }
+
+    public record ResultQueryRequest(
+            String sort,
+            @Pattern(regexp = "(?i)asc|desc", message = "Direction must be asc or desc")
+            String direction,
+            List<String> filter,
+            List<String> fields,
+            String cursor,
+            @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 1000, message = "Limit must be at most 1000")
+            Integer limit
+    ) { }
+
+    public record TopResultsRequest(
+            @NotBlank(message = "Field is required")
+            String field,
+            @Pattern(regexp = "(?i)asc|desc", message = "Direction must be asc or desc")
+            String direction,
+            @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 1000, message = "Limit must be at most 1000")
+            Integer limit,
+            List<String> fields
+    ) { }
+
+    public record HistogramRequest(
+            @NotBlank(message = "Field is required")
+            String field,
+            List<Double> boundaries,
+            @Min(value = 1, message = "Number of buckets must be at least 1")
+            @Max(value = 100, message = "Number of buckets must be at most 100")
+            Integer buckets
+    ) { }
+
+    public record ValueCountsRequest(
+            @NotBlank(message = "Field is required")
+            String field,
+            @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 1000, message = "Limit must be at most 1000")
+            Integer limit
+    ) { }
+
+}
@@ -5,12 +5,16 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import pwr.zpi.hotspotter.repositoryanalysis.service.RepositoryAnalysisOrchestrationService;
+import pwr.zpi.hotspotter.user.model.analysispreferences.UserAnalysisPreferences;
+import pwr.zpi.hotspotter.user.service.UserService;
 
 import java.time.LocalDate;
 
@@ -21,12 +25,18 @@ import java.time.LocalDate;
 public class RepositoryAnalysisController {
 
     private final RepositoryAnalysisOrchestrationService repositoryAnalysisOrchestrationService;
+    private final UserService userService;
 
     @GetMapping
-    public SseEmitter analyzeRepository(@Valid @ModelAttribute AnalysisRequest request) {
+    public SseEmitter analyzeRepository(@Valid @ModelAttribute AnalysisRequest request,
+                                        @AuthenticationPrincipal UserDetails userDetails) {
         SseEmitter emitter = new SseEmitter(0L);
+        UserAnalysisPreferences preferences = userDetails != null
+                ? userService.getAnalysisPreferences(userDetails.getUsername())
+                : new UserAnalysisPreferences();
+
         repositoryAnalysisOrchestrationService.startAsyncAnalysis(
-                request.repositoryUrl(), request.startDate(), request.endDate(), emitter);
+                request.repositoryUrl(), request.startDate(), request.endDate(), preferences, emitter);
 
         return emitter;
     }
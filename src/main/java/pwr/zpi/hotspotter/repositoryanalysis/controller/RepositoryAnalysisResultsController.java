@@ -1,10 +1,24 @@
 package pwr.zpi.hotspotter.repositoryanalysis.controller;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureNode;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.CachedResult;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.ResultFormat;
+import pwr.zpi.hotspotter.repositoryanalysis.service.AnalysisComparisonService;
 import pwr.zpi.hotspotter.repositoryanalysis.service.RepositoryAnalysisResultsService;
+import pwr.zpi.hotspotter.repositoryanalysis.util.ContentEncodingUtils;
+
+import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequiredArgsConstructor
@@ -12,11 +26,104 @@ import pwr.zpi.hotspotter.repositoryanalysis.service.RepositoryAnalysisResultsSe
 public class RepositoryAnalysisResultsController {
 
     private final RepositoryAnalysisResultsService repositoryAnalysisResultsService;
+    private final AnalysisComparisonService analysisComparisonService;
 
     @GetMapping("/{analysisId}/structure")
-    public ResponseEntity<RepositoryStructureNode> getRepositoryStructure(@PathVariable String analysisId) {
-        RepositoryStructureNode response = repositoryAnalysisResultsService.getRepositoryStructure(analysisId);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<StreamingResponseBody> getRepositoryStructure(
+            @PathVariable String analysisId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+
+        CachedResult result = repositoryAnalysisResultsService.getRepositoryStructure(analysisId, ResultFormat.fromAcceptHeader(accept));
+        return toResponse(result, acceptEncoding, webRequest);
+    }
+
+    @GetMapping("/{analysisId}/structure/subtree")
+    public ResponseEntity<StreamingResponseBody> getRepositorySubtree(
+            @PathVariable String analysisId,
+            @Valid @ModelAttribute SubtreeRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+
+        CachedResult result = repositoryAnalysisResultsService.getRepositorySubtree(
+                analysisId, Objects.requireNonNullElse(request.path(), ""), Objects.requireNonNullElse(request.depth(), 1),
+                ResultFormat.fromAcceptHeader(accept));
+        return toResponse(result, acceptEncoding, webRequest);
     }
 
+    @GetMapping("/{analysisId}/recompute")
+    public ResponseEntity<StreamingResponseBody> recomputeAnalysisResults(
+            @PathVariable String analysisId,
+            @Valid @ModelAttribute RecomputeRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+
+        CachedResult result = repositoryAnalysisResultsService.getRecomputedResults(
+                analysisId, request.hotSpotAnalysisPeriodMonths(), request.authorInactivityThresholdMonths(),
+                ResultFormat.fromAcceptHeader(accept));
+        return toResponse(result, acceptEncoding, webRequest);
+    }
+
+    @GetMapping("/{analysisId}/diff/{targetAnalysisId}")
+    public ResponseEntity<StreamingResponseBody> compareAnalyses(
+            @PathVariable String analysisId,
+            @PathVariable String targetAnalysisId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+
+        CachedResult result = analysisComparisonService.compare(analysisId, targetAnalysisId, ResultFormat.fromAcceptHeader(accept));
+        return toResponse(result, acceptEncoding, webRequest);
+    }
+
+    private ResponseEntity<StreamingResponseBody> toResponse(CachedResult result, String acceptEncoding, WebRequest webRequest) {
+        List<String> supportedEncodings = result.contentEncoding() != null
+                ? List.of(result.contentEncoding(), ContentEncodingUtils.IDENTITY)
+                : List.of(ContentEncodingUtils.IDENTITY);
+
+        String responseEncoding = ContentEncodingUtils.negotiate(acceptEncoding, supportedEncodings);
+        if (responseEncoding == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+
+        boolean sendStored = result.contentEncoding() == null || result.contentEncoding().equals(responseEncoding);
+        String eTag = result.eTag(sendStored ? result.contentEncoding() : null);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(result.contentType())
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+
+        if (!sendStored) {
+            return response.body(result::writeDecoded);
+        }
+        if (result.contentEncoding() != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, result.contentEncoding());
+        }
+        return response
+                .contentLength(result.size())
+                .body(outputStream -> outputStream.write(result.data()));
+    }
+
+    public record SubtreeRequest(
+            String path,
+            @Min(value = 1, message = "Depth must be at least 1")
+            @Max(value = 10, message = "Depth must be at most 10")
+            Integer depth
+    ) { }
+
+    public record RecomputeRequest(
+            @Min(value = 1, message = "Hot spot analysis period must be at least 1 month")
+            Integer hotSpotAnalysisPeriodMonths,
+            @Min(value = 1, message = "Author inactivity threshold must be at least 1 month")
+            Integer authorInactivityThresholdMonths
+    ) { }
+
 }
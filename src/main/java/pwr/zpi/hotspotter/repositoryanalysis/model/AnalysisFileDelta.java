@@ -0,0 +1,27 @@
+package pwr.zpi.hotspotter.repositoryanalysis.model;
+
+public record AnalysisFileDelta(
+        String filePath,
+        Status status,
+        Integer commitsBefore,
+        Integer commitsAfter,
+        int commitsDelta,
+        Integer codeLinesBefore,
+        Integer codeLinesAfter,
+        int codeLinesDelta,
+        Double knowledgeLossBefore,
+        Double knowledgeLossAfter,
+        double knowledgeLossDelta,
+        String leadAuthorBefore,
+        String leadAuthorAfter,
+        boolean leadAuthorChanged
+) {
+
+    public enum Status {
+        ADDED,
+        REMOVED,
+        MODIFIED,
+        UNCHANGED
+    }
+
+}
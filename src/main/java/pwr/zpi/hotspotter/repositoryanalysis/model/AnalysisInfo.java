@@ -7,6 +7,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -17,6 +19,11 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "analyses")
+@CompoundIndexes({
+        @CompoundIndex(name = "analysis_key_idx", def = "{'analysisKey': 1, 'status': 1}"),
+        @CompoundIndex(name = "repository_analyzed_at_idx", def = "{'repositoryUrl': 1, 'analyzedAt': -1}"),
+        @CompoundIndex(name = "status_analyzed_at_idx", def = "{'status': 1, 'analyzedAt': 1}")
+})
 public class AnalysisInfo {
 
     @Id
@@ -45,10 +52,20 @@ public class AnalysisInfo {
 
     private LocalDate endDate;
 
+    private Integer hotSpotAnalysisPeriodMonths;
+
+    private Integer authorInactivityThresholdMonths;
+
+    private String headCommitId;
+
+    private String analysisKey;
+
     public enum AnalysisStatus {
         IN_PROGRESS,
         COMPLETED,
-        FAILED
+        FAILED,
+        // Selected by the retention policy, results are being purged
+        EXPIRED
     }
 
     public void markAsCompleted() {
@@ -59,4 +76,8 @@ public class AnalysisInfo {
         this.status = AnalysisStatus.FAILED;
     }
 
+    public LocalDate resolveReferenceDate() {
+        return endDate != null ? endDate : analyzedAt.toLocalDate();
+    }
+
 }
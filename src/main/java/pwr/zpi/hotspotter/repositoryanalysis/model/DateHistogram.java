@@ -0,0 +1,103 @@
+package pwr.zpi.hotspotter.repositoryanalysis.model;
+
+import org.springframework.data.annotation.PersistenceCreator;
+import org.springframework.data.annotation.Transient;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Compact histogram of commit dates stored as two parallel arrays of epoch days and commit counts,
+ * sorted by day. Dates are expected to be recorded in chronological order (as produced by {@code git log --reverse}).
+ */
+public class DateHistogram {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] days;
+    private int[] counts;
+
+    @Transient
+    private int size;
+
+    public DateHistogram() {
+        this(new int[0], new int[0]);
+    }
+
+    @PersistenceCreator
+    public DateHistogram(int[] days, int[] counts) {
+        this.days = days != null ? days : new int[0];
+        this.counts = counts != null ? counts : new int[0];
+        this.size = Math.min(this.days.length, this.counts.length);
+    }
+
+    public void record(LocalDate date) {
+        int day = (int) date.toEpochDay();
+
+        if (size > 0 && days[size - 1] == day) {
+            counts[size - 1]++;
+            return;
+        }
+
+        if (size > 0 && days[size - 1] > day) {
+            insertOutOfOrder(day);
+            return;
+        }
+
+        ensureCapacity(size + 1);
+        days[size] = day;
+        counts[size] = 1;
+        size++;
+    }
+
+    public int countSince(LocalDate date) {
+        int fromDay = (int) date.toEpochDay();
+        int total = 0;
+
+        for (int i = size - 1; i >= 0 && days[i] >= fromDay; i--) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public LocalDate dateAt(int index) {
+        return LocalDate.ofEpochDay(days[index]);
+    }
+
+    /**
+     * Trims the backing arrays to the number of recorded days, must be called before the histogram is persisted.
+     */
+    public void trim() {
+        if (days.length != size) days = Arrays.copyOf(days, size);
+        if (counts.length != size) counts = Arrays.copyOf(counts, size);
+    }
+
+    private void insertOutOfOrder(int day) {
+        int index = Arrays.binarySearch(days, 0, size, day);
+        if (index >= 0) {
+            counts[index]++;
+            return;
+        }
+
+        int insertionPoint = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(days, insertionPoint, days, insertionPoint + 1, size - insertionPoint);
+        System.arraycopy(counts, insertionPoint, counts, insertionPoint + 1, size - insertionPoint);
+        days[insertionPoint] = day;
+        counts[insertionPoint] = 1;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (days.length >= capacity) return;
+
+        int newCapacity = Math.max(INITIAL_CAPACITY, Math.max(capacity, days.length * 2));
+        days = Arrays.copyOf(days, newCapacity);
+        counts = Arrays.copyOf(counts, newCapacity);
+    }
+
+}
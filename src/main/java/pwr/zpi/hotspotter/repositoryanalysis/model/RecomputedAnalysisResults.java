@@ -0,0 +1,30 @@
+package pwr.zpi.hotspotter.repositoryanalysis.model;
+
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.model.ActivityTrendsDailyStats;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record RecomputedAnalysisResults(
+        String analysisId,
+        LocalDate referenceDate,
+        int hotSpotAnalysisPeriodMonths,
+        int authorInactivityThresholdMonths,
+        List<FileResult> files,
+        List<AuthorResult> authors,
+        List<ActivityTrendsDailyStats> dailyStats
+) {
+
+    public record FileResult(
+            String filePath,
+            Integer commitsInHotSpotAnalysisPeriod,
+            Double knowledgeLoss,
+            Integer activeContributors
+    ) { }
+
+    public record AuthorResult(
+            String name,
+            Boolean isActive
+    ) { }
+
+}
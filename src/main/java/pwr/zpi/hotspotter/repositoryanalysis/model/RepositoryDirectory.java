@@ -0,0 +1,43 @@
+package pwr.zpi.hotspotter.repositoryanalysis.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+/**
+ * Single directory of an analyzed repository with its direct children and sizes aggregated over all files below it.
+ * Together the directories of an analysis form a path index used to load the structure tree one level at a time.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "repository_directories")
+@CompoundIndex(name = "analysis_path_idx", def = "{'analysisId': 1, 'path': 1}", unique = true)
+public class RepositoryDirectory {
+
+    @Id
+    private String id;
+
+    @NotBlank(message = "Analysis ID is required")
+    private String analysisId;
+
+    @NotNull(message = "Directory path is required")
+    private String path;
+
+    private String name;
+
+    private RepositoryStructureMetrics metrics;
+
+    @NotNull(message = "Directory children are required")
+    private List<RepositoryDirectoryEntry> children;
+
+}
@@ -0,0 +1,26 @@
+package pwr.zpi.hotspotter.repositoryanalysis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepositoryDirectoryEntry {
+
+    private String name;
+
+    private String path;
+
+    private String type;
+
+    private RepositoryStructureMetrics metrics;
+
+    private Double height;
+
+    private Double width;
+
+}
@@ -0,0 +1,44 @@
+package pwr.zpi.hotspotter.repositoryanalysis.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Metrics of a directory, rolled up over all files below it. Averages are weighted by lines of code.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RepositoryStructureMetrics {
+
+    private Integer fileCount;
+
+    private Long codeLines;
+
+    private Long totalLines;
+
+    private Long totalCommits;
+
+    private Integer maxCommits;
+
+    private Long hotSpotCommits;
+
+    /**
+     * Commits in the hot spot analysis period per file.
+     */
+    private Double hotSpotDensity;
+
+    private Integer maxContributors;
+
+    private Double averageContributors;
+
+    private Double knowledgeLoss;
+
+    private Double maxKnowledgeLoss;
+
+}
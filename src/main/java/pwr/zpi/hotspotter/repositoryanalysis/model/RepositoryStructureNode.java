@@ -29,6 +29,8 @@ public class RepositoryStructureNode {
 
     private Double width;
 
+    private RepositoryStructureMetrics metrics;
+
     public void addChild(RepositoryStructureNode child) {
         if (children == null) {
             children = new ArrayList<>();
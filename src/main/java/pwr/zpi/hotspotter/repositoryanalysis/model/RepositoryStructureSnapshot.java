@@ -0,0 +1,37 @@
+package pwr.zpi.hotspotter.repositoryanalysis.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository structure tree of a completed analysis, stored as gzip-compressed JSON of {@link RepositoryStructureNode}.
+ * The id is the analysis id.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "repository_structures")
+public class RepositoryStructureSnapshot {
+
+    @Id
+    private String id;
+
+    @NotNull(message = "Structure data is required")
+    private byte[] data;
+
+    private Integer uncompressedSize;
+
+    private Integer fileCount;
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+}
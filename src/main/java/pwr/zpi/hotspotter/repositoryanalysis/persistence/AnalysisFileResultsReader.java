@@ -0,0 +1,74 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.repository.FileInfoRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.repository.FileKnowledgeRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Reads per-file analysis results regardless of the storage mode they were written with.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalysisFileResultsReader {
+
+    private final FileInfoRepository fileInfoRepository;
+    private final FileKnowledgeRepository fileKnowledgeRepository;
+    private final PackedFileResultsStore packedFileResultsStore;
+
+    public List<FileInfo> findAllFileInfo(String analysisId) {
+        if (packedFileResultsStore.contains(analysisId, FileInfo.class)) {
+            return packedFileResultsStore.findAll(analysisId, FileInfo.class);
+        }
+        return fileInfoRepository.findAllByAnalysisId(analysisId);
+    }
+
+    public Optional<FileInfo> findFileInfo(String analysisId, String filePath) {
+        if (packedFileResultsStore.contains(analysisId, FileInfo.class)) {
+            return packedFileResultsStore.findByFilePath(analysisId, FileInfo.class, filePath);
+        }
+        return fileInfoRepository.findByAnalysisIdAndFilePath(analysisId, filePath);
+    }
+
+    /**
+     * Streams file info sorted by file path in {@link pwr.zpi.hotspotter.repositoryanalysis.util.AnalysisUtils#compareFilePaths}
+     * order. The stream must be closed.
+     */
+    public Stream<FileInfo> streamFileInfo(String analysisId) {
+        if (packedFileResultsStore.contains(analysisId, FileInfo.class)) {
+            return packedFileResultsStore.stream(analysisId, FileInfo.class);
+        }
+        return fileInfoRepository.streamAllByAnalysisIdOrderByFilePathAsc(analysisId);
+    }
+
+    public List<FileKnowledge> findAllFileKnowledge(String analysisId) {
+        if (packedFileResultsStore.contains(analysisId, FileKnowledge.class)) {
+            return packedFileResultsStore.findAll(analysisId, FileKnowledge.class);
+        }
+        return fileKnowledgeRepository.findAllByAnalysisId(analysisId);
+    }
+
+    /**
+     * Streams file knowledge sorted by file path, see {@link #streamFileInfo}. The stream must be closed.
+     */
+    public Stream<FileKnowledge> streamFileKnowledge(String analysisId) {
+        if (packedFileResultsStore.contains(analysisId, FileKnowledge.class)) {
+            return packedFileResultsStore.stream(analysisId, FileKnowledge.class);
+        }
+        return fileKnowledgeRepository.streamAllByAnalysisIdOrderByFilePathAsc(analysisId);
+    }
+
+    public Optional<FileKnowledge> findFileKnowledge(String analysisId, String filePath) {
+        if (packedFileResultsStore.contains(analysisId, FileKnowledge.class)) {
+            return packedFileResultsStore.findByFilePath(analysisId, FileKnowledge.class, filePath);
+        }
+        return fileKnowledgeRepository.findByAnalysisIdAndFilePath(analysisId, filePath);
+    }
+
+}
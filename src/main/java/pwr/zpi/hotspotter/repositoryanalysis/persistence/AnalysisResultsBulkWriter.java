@@ -0,0 +1,183 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.config.AnalysisPersistenceConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Persists analysis results with unordered bulk writes of pre-converted documents. Documents are converted once
+ * on the calling thread, split into batches sized by the average encoded document size and written concurrently
+ * with a bounded number of batches in flight. New entities are inserted (their generated ids are written back),
+ * entities that already have an id are upserted.
+ */
+@Slf4j
+@Component
+public class AnalysisResultsBulkWriter {
+
+    private static final int SIZE_SAMPLE_COUNT = 32;
+    private static final String ID_FIELD = "_id";
+
+    private final MongoTemplate mongoTemplate;
+    private final AnalysisPersistenceConfig analysisPersistenceConfig;
+    private final Executor mongoWriteExecutor;
+
+    public AnalysisResultsBulkWriter(MongoTemplate mongoTemplate,
+                                     AnalysisPersistenceConfig analysisPersistenceConfig,
+                                     @Qualifier("mongoWriteExecutor") Executor mongoWriteExecutor) {
+        this.mongoTemplate = mongoTemplate;
+        this.analysisPersistenceConfig = analysisPersistenceConfig;
+        this.mongoWriteExecutor = mongoWriteExecutor;
+    }
+
+    public <T> void saveAll(Class<T> entityClass, Collection<T> entities) {
+        saveAll(entityClass, entities, () -> false);
+    }
+
+    /**
+     * Same as {@link #saveAll(Class, Collection)}, but batches that have not been sent yet are skipped
+     * once {@code cancelled} returns {@code true}.
+     */
+    public <T> void saveAll(Class<T> entityClass, Collection<T> entities, BooleanSupplier cancelled) {
+        if (entities == null || entities.isEmpty()) return;
+
+        List<PendingWrite> documents = convert(entityClass, entities);
+        int batchSize = calculateBatchSize(documents);
+        Semaphore batchesInFlight = new Semaphore(analysisPersistenceConfig.getMaxBatchesInFlight());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        long startTime = System.currentTimeMillis();
+        for (int i = 0; i < documents.size() && !cancelled.getAsBoolean(); i += batchSize) {
+            List<PendingWrite> batch = documents.subList(i, Math.min(i + batchSize, documents.size()));
+            acquire(batchesInFlight);
+
+            futures.add(CompletableFuture
+                    .runAsync(() -> {
+                        if (!cancelled.getAsBoolean()) writeBatch(entityClass, batch);
+                    }, mongoWriteExecutor)
+                    .whenComplete((_, _) -> batchesInFlight.release()));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        if (cancelled.getAsBoolean()) {
+            log.debug("Cancelled saving {} {} documents", documents.size(), entityClass.getSimpleName());
+            return;
+        }
+        log.debug("Saved {} {} documents in batches of {} in {} ms", documents.size(), entityClass.getSimpleName(),
+                batchSize, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Deletes the given entities by their ids, entities without an id were never written and are skipped.
+     *
+     * @return number of deleted documents
+     */
+    public <T> long deleteAll(Class<T> entityClass, Collection<T> entities) {
+        if (entities == null || entities.isEmpty()) return 0L;
+
+        MongoPersistentEntity<?> persistentEntity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(entityClass);
+        List<Object> ids = entities.stream()
+                .map(entity -> persistentEntity.getIdentifierAccessor(entity).getIdentifier())
+                .filter(Objects::nonNull)
+                .toList();
+
+        long deleted = 0L;
+        int batchSize = analysisPersistenceConfig.getMaxBatchSize();
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            Query query = Query.query(Criteria.where(ID_FIELD).in(ids.subList(i, Math.min(i + batchSize, ids.size()))));
+            deleted += mongoTemplate.remove(query, entityClass).getDeletedCount();
+        }
+        return deleted;
+    }
+
+    private <T> List<PendingWrite> convert(Class<T> entityClass, Collection<T> entities) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        MongoPersistentEntity<?> persistentEntity = converter.getMappingContext().getRequiredPersistentEntity(entityClass);
+        MongoPersistentProperty idProperty = persistentEntity.getIdProperty();
+
+        List<PendingWrite> documents = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            Document document = new Document();
+            converter.write(entity, document);
+
+            boolean isNew = document.get(ID_FIELD) == null;
+            if (isNew && idProperty != null) {
+                ObjectId id = new ObjectId();
+                document.put(ID_FIELD, id);
+                Object idValue = converter.getConversionService().convert(id, idProperty.getType());
+                persistentEntity.getPropertyAccessor(entity).setProperty(idProperty, idValue);
+            }
+
+            documents.add(new PendingWrite(document, isNew));
+        }
+        return documents;
+    }
+
+    private int calculateBatchSize(List<PendingWrite> documents) {
+        int sampleCount = Math.min(SIZE_SAMPLE_COUNT, documents.size());
+        long sampledBytes = 0L;
+
+        for (int i = 0; i < sampleCount; i++) {
+            sampledBytes += new RawBsonDocument(documents.get(i).document(), new DocumentCodec()).getByteBuffer().remaining();
+        }
+
+        long averageDocumentSize = Math.max(1L, sampledBytes / sampleCount);
+        long batchSize = analysisPersistenceConfig.getTargetBatchSizeBytes() / averageDocumentSize;
+        return Math.clamp(batchSize, analysisPersistenceConfig.getMinBatchSize(), analysisPersistenceConfig.getMaxBatchSize());
+    }
+
+    private <T> void writeBatch(Class<T> entityClass, List<PendingWrite> batch) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+
+        for (PendingWrite write : batch) {
+            if (write.isNew()) {
+                bulkOperations.insert(write.document());
+            } else {
+                Query query = Query.query(Criteria.where(ID_FIELD).is(write.document().get(ID_FIELD)));
+                bulkOperations.replaceOne(query, write.document(), FindAndReplaceOptions.options().upsert());
+            }
+        }
+
+        bulkOperations.execute();
+    }
+
+    private void acquire(Semaphore semaphore) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a bulk write batch slot", e);
+        }
+    }
+
+    private record PendingWrite(Document document, boolean isNew) { }
+
+}
@@ -0,0 +1,38 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.config.AnalysisPersistenceConfig;
+
+import java.util.concurrent.Executor;
+
+@Component
+public class AnalysisResultsWriteBehind {
+
+    private final AnalysisResultsBulkWriter analysisResultsBulkWriter;
+    private final PackedFileResultsStore packedFileResultsStore;
+    private final AnalysisPersistenceConfig analysisPersistenceConfig;
+    private final Executor analysisWriteBehindExecutor;
+
+    public AnalysisResultsWriteBehind(AnalysisResultsBulkWriter analysisResultsBulkWriter,
+                                      PackedFileResultsStore packedFileResultsStore,
+                                      AnalysisPersistenceConfig analysisPersistenceConfig,
+                                      @Qualifier("analysisWriteBehindExecutor") Executor analysisWriteBehindExecutor) {
+        this.analysisResultsBulkWriter = analysisResultsBulkWriter;
+        this.packedFileResultsStore = packedFileResultsStore;
+        this.analysisPersistenceConfig = analysisPersistenceConfig;
+        this.analysisWriteBehindExecutor = analysisWriteBehindExecutor;
+    }
+
+    public AnalysisWriteSession openSession(String analysisId) {
+        return new AnalysisWriteSession(
+                analysisId,
+                analysisResultsBulkWriter,
+                packedFileResultsStore,
+                analysisPersistenceConfig.getFileResultsStorageMode(),
+                analysisWriteBehindExecutor,
+                analysisPersistenceConfig.getMaxPendingWrites()
+        );
+    }
+
+}
@@ -0,0 +1,126 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import pwr.zpi.hotspotter.repositoryanalysis.exception.AnalysisException;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.config.AnalysisPersistenceConfig.FileResultsStorageMode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Write-behind stage of a single analysis. Result collections are handed over as soon as they are produced
+ * and written asynchronously (different collections in parallel), while the analysis continues.
+ * The number of pending writes is bounded, {@link #flush()} waits for all of them and reports the first failure.
+ * {@link #abort()} drops the writes that have not been sent yet when the analysis fails and deletes the results
+ * already written, so a failed analysis leaves nothing behind.
+ */
+@Slf4j
+public class AnalysisWriteSession {
+
+    private final String analysisId;
+    private final AnalysisResultsBulkWriter analysisResultsBulkWriter;
+    private final PackedFileResultsStore packedFileResultsStore;
+    private final FileResultsStorageMode fileResultsStorageMode;
+    private final Executor executor;
+    private final Semaphore pendingWrites;
+    private final List<CompletableFuture<Void>> writes = new ArrayList<>();
+    private final List<Runnable> cleanups = new ArrayList<>();
+    private volatile boolean aborted;
+
+    AnalysisWriteSession(String analysisId, AnalysisResultsBulkWriter analysisResultsBulkWriter,
+                         PackedFileResultsStore packedFileResultsStore, FileResultsStorageMode fileResultsStorageMode,
+                         Executor executor, int maxPendingWrites) {
+        this.analysisId = analysisId;
+        this.analysisResultsBulkWriter = analysisResultsBulkWriter;
+        this.packedFileResultsStore = packedFileResultsStore;
+        this.fileResultsStorageMode = fileResultsStorageMode;
+        this.executor = executor;
+        this.pendingWrites = new Semaphore(maxPendingWrites);
+    }
+
+    public <T> void submit(Class<T> entityClass, Collection<T> entities) {
+        if (entities == null || entities.isEmpty()) return;
+        enqueue(entityClass, entities.size(),
+                () -> analysisResultsBulkWriter.saveAll(entityClass, entities, () -> aborted));
+        cleanups.add(() -> analysisResultsBulkWriter.deleteAll(entityClass, entities));
+    }
+
+    /**
+     * Submits per-file results (keyed by {@code filePath}), stored either as one document per file
+     * or packed into blocks depending on the configured storage mode.
+     */
+    public <T> void submitFileResults(Class<T> entityClass, Collection<T> entities) {
+        if (fileResultsStorageMode != FileResultsStorageMode.PACKED) {
+            submit(entityClass, entities);
+            return;
+        }
+
+        if (entities == null || entities.isEmpty()) return;
+        enqueue(entityClass, entities.size(),
+                () -> packedFileResultsStore.saveAll(analysisId, entityClass, entities, () -> aborted));
+        cleanups.add(() -> packedFileResultsStore.deleteAll(analysisId, entityClass));
+    }
+
+    public void flush() {
+        try {
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Error persisting analysis results for ID {}: {}", analysisId, cause.getMessage(), cause);
+            throw new AnalysisException("Failed to persist analysis results: " + cause.getMessage());
+        } finally {
+            writes.clear();
+        }
+    }
+
+    /**
+     * Skips queued writes and remaining bulk batches, waits for the batches already sent, then deletes
+     * everything the session has written (including flushed writes), so no partial results remain.
+     */
+    public void abort() {
+        aborted = true;
+        try {
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            log.debug("Ignoring write failure of aborted analysis ID {}: {}", analysisId, e.getMessage());
+        } finally {
+            writes.clear();
+        }
+
+        for (Runnable cleanup : cleanups) {
+            try {
+                cleanup.run();
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete partial results of aborted analysis ID {}: {}", analysisId, e.getMessage());
+            }
+        }
+        cleanups.clear();
+        log.debug("Aborted pending writes and deleted partial results for analysis ID {}", analysisId);
+    }
+
+    private void enqueue(Class<?> entityClass, int count, Runnable write) {
+        if (aborted) {
+            throw new AnalysisException("Write session for analysis ID " + analysisId + " was aborted");
+        }
+
+        try {
+            pendingWrites.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Interrupted while waiting to persist analysis results");
+        }
+
+        log.debug("Queued {} {} documents for analysis ID {}", count, entityClass.getSimpleName(), analysisId);
+        writes.add(CompletableFuture
+                .runAsync(() -> {
+                    if (!aborted) write.run();
+                }, executor)
+                .whenComplete((_, _) -> pendingWrites.release()));
+    }
+
+}
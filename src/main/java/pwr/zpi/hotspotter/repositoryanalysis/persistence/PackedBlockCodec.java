@@ -0,0 +1,114 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence;
+
+import lombok.experimental.UtilityClass;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes rows of converted documents as a deflate-compressed BSON document with one array per field
+ * ({@code {rows: n, columns: {field: [v0, v1, ...]}}}). Field names are written once per block and values of the
+ * same field are adjacent, which is what makes the compression effective. Missing values are stored as nulls.
+ */
+@UtilityClass
+class PackedBlockCodec {
+
+    private static final String ROWS_FIELD = "rows";
+    private static final String COLUMNS_FIELD = "columns";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static EncodedBlock encode(List<Document> rows, Set<String> excludedFields) {
+        Map<String, List<Object>> columns = new LinkedHashMap<>();
+
+        for (int row = 0; row < rows.size(); row++) {
+            for (Map.Entry<String, Object> field : rows.get(row).entrySet()) {
+                if (excludedFields.contains(field.getKey())) continue;
+
+                List<Object> column = columns.computeIfAbsent(field.getKey(), _ -> new ArrayList<>(rows.size()));
+                while (column.size() < row) column.add(null);
+                column.add(field.getValue());
+            }
+        }
+        columns.values().forEach(column -> {
+            while (column.size() < rows.size()) column.add(null);
+        });
+
+        Document columnsDocument = new Document();
+        columnsDocument.putAll(columns);
+        Document block = new Document(ROWS_FIELD, rows.size()).append(COLUMNS_FIELD, columnsDocument);
+        ByteBuffer buffer = new RawBsonDocument(block, new DocumentCodec()).getByteBuffer().asNIO();
+        byte[] bson = new byte[buffer.remaining()];
+        buffer.get(bson);
+
+        return new EncodedBlock(deflate(bson), bson.length);
+    }
+
+    static List<Document> decode(byte[] data, int uncompressedSize) {
+        Document block = new RawBsonDocument(inflate(data, uncompressedSize)).decode(new DocumentCodec());
+        int rowCount = block.getInteger(ROWS_FIELD);
+        Document columns = block.get(COLUMNS_FIELD, Document.class);
+
+        List<Document> rows = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            rows.add(new Document());
+        }
+
+        for (Map.Entry<String, Object> column : columns.entrySet()) {
+            List<?> values = (List<?>) column.getValue();
+            for (int row = 0; row < rowCount; row++) {
+                Object value = values.get(row);
+                if (value != null) rows.get(row).put(column.getKey(), value);
+            }
+        }
+        return rows;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(BUFFER_SIZE, input.length / 4));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int uncompressedSize) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            byte[] output = new byte[uncompressedSize];
+            int length = 0;
+            while (length < uncompressedSize && !inflater.finished()) {
+                int inflated = inflater.inflate(output, length, uncompressedSize - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += inflated;
+            }
+            if (length != uncompressedSize) {
+                throw new IllegalStateException("Corrupted packed block: expected " + uncompressedSize + " bytes, got " + length);
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted packed block: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    record EncodedBlock(byte[] data, int uncompressedSize) { }
+
+}
@@ -0,0 +1,178 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.config.AnalysisPersistenceConfig;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.model.PackedFileResultsBlock;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.repository.PackedFileResultsBlockRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.util.AnalysisUtils;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Stores per-file analysis results packed into compressed columnar blocks of up to
+ * {@code analysis-persistence.packed-block-size} files, one document per block instead of one per file.
+ * Entities are stored without their ids and analysis id, blocks are decoded on read.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PackedFileResultsStore {
+
+    private static final String FILE_PATH_FIELD = "filePath";
+    private static final String ANALYSIS_ID_FIELD = "analysisId";
+    private static final Set<String> EXCLUDED_FIELDS = Set.of("_id", "_class", ANALYSIS_ID_FIELD);
+
+    private final MongoTemplate mongoTemplate;
+    private final PackedFileResultsBlockRepository packedFileResultsBlockRepository;
+    private final AnalysisPersistenceConfig analysisPersistenceConfig;
+
+    public <T> void saveAll(String analysisId, Class<T> entityClass, Collection<T> entities) {
+        saveAll(analysisId, entityClass, entities, () -> false);
+    }
+
+    /**
+     * Same as {@link #saveAll(String, Class, Collection)}, but nothing is written once {@code cancelled}
+     * returns {@code true}.
+     */
+    public <T> void saveAll(String analysisId, Class<T> entityClass, Collection<T> entities, BooleanSupplier cancelled) {
+        if (entities == null || entities.isEmpty()) return;
+
+        MongoConverter converter = mongoTemplate.getConverter();
+        List<Document> rows = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            Document document = new Document();
+            converter.write(entity, document);
+            rows.add(document);
+        }
+        rows.sort(Comparator.comparing(row -> row.getString(FILE_PATH_FIELD), AnalysisUtils::compareFilePaths));
+
+        String resultCollection = mongoTemplate.getCollectionName(entityClass);
+        int blockSize = analysisPersistenceConfig.getPackedBlockSize();
+        List<PackedFileResultsBlock> blocks = new ArrayList<>(rows.size() / blockSize + 1);
+        long compressedBytes = 0L;
+        long uncompressedBytes = 0L;
+
+        for (int i = 0; i < rows.size() && !cancelled.getAsBoolean(); i += blockSize) {
+            List<Document> blockRows = rows.subList(i, Math.min(i + blockSize, rows.size()));
+            PackedBlockCodec.EncodedBlock encoded = PackedBlockCodec.encode(blockRows, EXCLUDED_FIELDS);
+
+            blocks.add(PackedFileResultsBlock.builder()
+                    .analysisId(analysisId)
+                    .resultCollection(resultCollection)
+                    .firstPath(blockRows.getFirst().getString(FILE_PATH_FIELD))
+                    .lastPath(blockRows.getLast().getString(FILE_PATH_FIELD))
+                    .fileCount(blockRows.size())
+                    .uncompressedSize(encoded.uncompressedSize())
+                    .data(encoded.data())
+                    .build());
+
+            compressedBytes += encoded.data().length;
+            uncompressedBytes += encoded.uncompressedSize();
+        }
+
+        if (cancelled.getAsBoolean()) {
+            log.debug("Cancelled packing {} {} documents for analysis ID {}", rows.size(), entityClass.getSimpleName(), analysisId);
+            return;
+        }
+
+        packedFileResultsBlockRepository.saveAll(blocks);
+        log.debug("Packed {} {} documents into {} blocks ({} -> {} bytes) for analysis ID {}", rows.size(),
+                entityClass.getSimpleName(), blocks.size(), uncompressedBytes, compressedBytes, analysisId);
+    }
+
+    public boolean contains(String analysisId, Class<?> entityClass) {
+        return packedFileResultsBlockRepository.existsByAnalysisIdAndResultCollection(
+                analysisId, mongoTemplate.getCollectionName(entityClass));
+    }
+
+    public <T> List<T> findAll(String analysisId, Class<T> entityClass) {
+        List<PackedFileResultsBlock> blocks = packedFileResultsBlockRepository
+                .findAllByAnalysisIdAndResultCollectionOrderByFirstPathAsc(analysisId, mongoTemplate.getCollectionName(entityClass));
+
+        List<T> entities = new ArrayList<>(blocks.stream().mapToInt(PackedFileResultsBlock::getFileCount).sum());
+        for (PackedFileResultsBlock block : blocks) {
+            for (Document row : decode(block)) {
+                entities.add(read(analysisId, entityClass, row));
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * Lazily decodes the stored entities block by block, sorted by file path. The stream must be closed.
+     */
+    public <T> Stream<T> stream(String analysisId, Class<T> entityClass) {
+        return packedFileResultsBlockRepository
+                .streamAllByAnalysisIdAndResultCollectionOrderByFirstPathAsc(analysisId, mongoTemplate.getCollectionName(entityClass))
+                .flatMap(block -> decode(block).stream())
+                .map(row -> read(analysisId, entityClass, row));
+    }
+
+    /**
+     * Lazily decodes the stored rows as converted documents (with the analysis id restored) block by block,
+     * in file path order, so at most one block is held in memory. When {@code afterPath} is given, only rows
+     * past it in the requested direction are returned and the blocks before it are not read. The stream must be closed.
+     */
+    public Stream<Document> streamDocuments(String analysisId, Class<?> entityClass, boolean ascending, String afterPath) {
+        String resultCollection = mongoTemplate.getCollectionName(entityClass);
+        Stream<PackedFileResultsBlock> blocks;
+        if (ascending) {
+            blocks = afterPath == null
+                    ? packedFileResultsBlockRepository.streamAllByAnalysisIdAndResultCollectionOrderByFirstPathAsc(analysisId, resultCollection)
+                    : packedFileResultsBlockRepository.streamAllByAnalysisIdAndResultCollectionAndLastPathGreaterThanOrderByFirstPathAsc(
+                            analysisId, resultCollection, afterPath);
+        } else {
+            blocks = afterPath == null
+                    ? packedFileResultsBlockRepository.streamAllByAnalysisIdAndResultCollectionOrderByFirstPathDesc(analysisId, resultCollection)
+                    : packedFileResultsBlockRepository.streamAllByAnalysisIdAndResultCollectionAndFirstPathLessThanOrderByFirstPathDesc(
+                            analysisId, resultCollection, afterPath);
+        }
+
+        return blocks
+                .flatMap(block -> (ascending ? decode(block) : decode(block).reversed()).stream())
+                .filter(row -> afterPath == null || isPast(row.getString(FILE_PATH_FIELD), afterPath, ascending))
+                .peek(row -> row.put(ANALYSIS_ID_FIELD, analysisId));
+    }
+
+    public <T> Optional<T> findByFilePath(String analysisId, Class<T> entityClass, String filePath) {
+        return packedFileResultsBlockRepository
+                .findFirstByAnalysisIdAndResultCollectionAndFirstPathLessThanEqualOrderByFirstPathDesc(
+                        analysisId, mongoTemplate.getCollectionName(entityClass), filePath)
+                .filter(block -> AnalysisUtils.compareFilePaths(block.getLastPath(), filePath) >= 0)
+                .flatMap(block -> decode(block).stream()
+                        .filter(row -> filePath.equals(row.getString(FILE_PATH_FIELD)))
+                        .findFirst())
+                .map(row -> read(analysisId, entityClass, row));
+    }
+
+    public void deleteAll(String analysisId, Class<?> entityClass) {
+        packedFileResultsBlockRepository.deleteAllByAnalysisIdAndResultCollection(
+                analysisId, mongoTemplate.getCollectionName(entityClass));
+    }
+
+    public void deleteAllByAnalysisId(String analysisId) {
+        packedFileResultsBlockRepository.deleteAllByAnalysisId(analysisId);
+    }
+
+    private boolean isPast(String filePath, String afterPath, boolean ascending) {
+        int comparison = AnalysisUtils.compareFilePaths(filePath, afterPath);
+        return ascending ? comparison > 0 : comparison < 0;
+    }
+
+    private List<Document> decode(PackedFileResultsBlock block) {
+        return PackedBlockCodec.decode(block.getData(), block.getUncompressedSize());
+    }
+
+    private <T> T read(String analysisId, Class<T> entityClass, Document row) {
+        row.put(ANALYSIS_ID_FIELD, analysisId);
+        return mongoTemplate.getConverter().read(entityClass, row);
+    }
+
+}
@@ -0,0 +1,42 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "analysis-persistence")
+public class AnalysisPersistenceConfig {
+
+    @Min(value = 1024, message = "Target batch size must be at least 1 KB")
+    private Integer targetBatchSizeBytes = 4 * 1024 * 1024;
+
+    @Min(value = 1, message = "Minimum batch size must be at least 1 document")
+    private Integer minBatchSize = 100;
+
+    @Min(value = 1, message = "Maximum batch size must be at least 1 document")
+    private Integer maxBatchSize = 10_000;
+
+    @Min(value = 1, message = "Number of batches in flight must be at least 1")
+    private Integer maxBatchesInFlight = 4;
+
+    @Min(value = 1, message = "Number of pending write-behind writes must be at least 1")
+    private Integer maxPendingWrites = 4;
+
+    @NotNull
+    private FileResultsStorageMode fileResultsStorageMode = FileResultsStorageMode.DOCUMENTS;
+
+    @Min(value = 100, message = "Packed block size must be at least 100 files")
+    private Integer packedBlockSize = 10_000;
+
+    public enum FileResultsStorageMode {
+        DOCUMENTS,
+        PACKED
+    }
+
+}
@@ -0,0 +1,49 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Block of per-file analysis results (e.g. {@code file_info}, {@code file_knowledge}) sorted by file path and
+ * stored as a compressed columnar payload. The {@code firstPath}/{@code lastPath} range of each block is the
+ * path index used to locate a single file without decoding other blocks.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "packed_file_results")
+@CompoundIndex(name = "analysis_block_idx", def = "{'analysisId': 1, 'resultCollection': 1, 'firstPath': 1}", unique = true)
+public class PackedFileResultsBlock {
+
+    @Id
+    private String id;
+
+    @NotBlank(message = "Analysis ID is required")
+    private String analysisId;
+
+    @NotBlank(message = "Result collection is required")
+    private String resultCollection;
+
+    @NotBlank(message = "First file path is required")
+    private String firstPath;
+
+    @NotBlank(message = "Last file path is required")
+    private String lastPath;
+
+    @NotNull(message = "File count is required")
+    private Integer fileCount;
+
+    private Integer uncompressedSize;
+
+    @NotNull(message = "Block data is required")
+    private byte[] data;
+
+}
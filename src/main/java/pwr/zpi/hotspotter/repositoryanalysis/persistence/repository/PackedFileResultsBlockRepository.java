@@ -0,0 +1,38 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.model.PackedFileResultsBlock;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface PackedFileResultsBlockRepository extends MongoRepository<PackedFileResultsBlock, String> {
+
+    List<PackedFileResultsBlock> findAllByAnalysisIdAndResultCollectionOrderByFirstPathAsc(String analysisId,
+                                                                                         String resultCollection);
+
+    Stream<PackedFileResultsBlock> streamAllByAnalysisIdAndResultCollectionOrderByFirstPathAsc(String analysisId,
+                                                                                             String resultCollection);
+
+    Stream<PackedFileResultsBlock> streamAllByAnalysisIdAndResultCollectionOrderByFirstPathDesc(String analysisId,
+                                                                                              String resultCollection);
+
+    Stream<PackedFileResultsBlock> streamAllByAnalysisIdAndResultCollectionAndLastPathGreaterThanOrderByFirstPathAsc(
+            String analysisId, String resultCollection, String filePath);
+
+    Stream<PackedFileResultsBlock> streamAllByAnalysisIdAndResultCollectionAndFirstPathLessThanOrderByFirstPathDesc(
+            String analysisId, String resultCollection, String filePath);
+
+    Optional<PackedFileResultsBlock> findFirstByAnalysisIdAndResultCollectionAndFirstPathLessThanEqualOrderByFirstPathDesc(
+            String analysisId, String resultCollection, String filePath);
+
+    boolean existsByAnalysisIdAndResultCollection(String analysisId, String resultCollection);
+
+    void deleteAllByAnalysisIdAndResultCollection(String analysisId, String resultCollection);
+
+    void deleteAllByAnalysisId(String analysisId);
+
+}
@@ -0,0 +1,36 @@
+package pwr.zpi.hotspotter.repositoryanalysis.query;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonParseException;
+import org.bson.json.JsonWriterSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor holding the sort value and key of the last returned item, encoded as
+ * URL-safe Base64 of extended JSON so BSON types survive the round trip.
+ */
+public record ResultCursor(Object sortValue, Object keyValue) {
+
+    private static final String SORT_VALUE_FIELD = "s";
+    private static final String KEY_VALUE_FIELD = "k";
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    public String encode() {
+        String json = new Document(SORT_VALUE_FIELD, sortValue).append(KEY_VALUE_FIELD, keyValue).toJson(JSON_SETTINGS);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ResultCursor decode(String cursor) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Document document = Document.parse(json);
+            return new ResultCursor(document.get(SORT_VALUE_FIELD), document.get(KEY_VALUE_FIELD));
+        } catch (IllegalArgumentException | JsonParseException _) {
+            throw new IllegalArgumentException("Invalid pagination cursor.");
+        }
+    }
+
+}
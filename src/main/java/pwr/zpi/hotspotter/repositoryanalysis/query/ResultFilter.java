@@ -0,0 +1,31 @@
+package pwr.zpi.hotspotter.repositoryanalysis.query;
+
+/**
+ * Single filter condition parsed from {@code field:operator:value}, e.g. {@code totalCommits:gte:10}.
+ */
+public record ResultFilter(String field, Operator operator, String value) {
+
+    public static ResultFilter parse(String filter) {
+        String[] parts = filter.split(":", 3);
+        if (parts.length != 3 || parts[0].isBlank()) {
+            throw new IllegalArgumentException("Filter must have the form field:operator:value, got: " + filter);
+        }
+
+        try {
+            return new ResultFilter(parts[0].trim(), Operator.valueOf(parts[1].trim().toUpperCase()), parts[2]);
+        } catch (IllegalArgumentException _) {
+            throw new IllegalArgumentException("Unknown filter operator: " + parts[1]);
+        }
+    }
+
+    public enum Operator {
+        EQ,
+        NE,
+        GT,
+        GTE,
+        LT,
+        LTE,
+        PREFIX
+    }
+
+}
@@ -0,0 +1,13 @@
+package pwr.zpi.hotspotter.repositoryanalysis.query;
+
+import java.util.List;
+
+/**
+ * Histogram of a numeric result field. Buckets include their lower bound and exclude their upper bound,
+ * {@code otherCount} counts results without a value or outside all buckets.
+ */
+public record ResultHistogram(String field, List<Bucket> buckets, long otherCount) {
+
+    public record Bucket(Number lowerBound, Number upperBound, long count) { }
+
+}
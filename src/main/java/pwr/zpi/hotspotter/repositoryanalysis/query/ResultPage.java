@@ -0,0 +1,9 @@
+package pwr.zpi.hotspotter.repositoryanalysis.query;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page of results, {@code nextCursor} is {@code null} on the last page.
+ */
+public record ResultPage(List<Map<String, Object>> items, String nextCursor) { }
@@ -0,0 +1,14 @@
+package pwr.zpi.hotspotter.repositoryanalysis.query;
+
+import java.util.List;
+
+public record ResultQuery(
+        String analysisId,
+        ResultResource resource,
+        String sortField,
+        boolean ascending,
+        List<ResultFilter> filters,
+        List<String> fields,
+        String cursor,
+        int limit
+) { }
@@ -0,0 +1,25 @@
+package pwr.zpi.hotspotter.repositoryanalysis.query;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+
+/**
+ * Per-analysis result collections exposed through the query API. The key field is unique within an analysis,
+ * enforced by the collection's {@code (analysisId, key)} unique index, and is the keyset pagination tie-breaker.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ResultResource {
+
+    FILES(FileInfo.class, "filePath", true),
+    KNOWLEDGE(FileKnowledge.class, "filePath", true),
+    AUTHORS(AuthorStatistics.class, "name", false);
+
+    private final Class<?> entityClass;
+    private final String keyField;
+    private final boolean perFileResult;
+
+}
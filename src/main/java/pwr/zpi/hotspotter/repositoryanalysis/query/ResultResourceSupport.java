@@ -0,0 +1,112 @@
+package pwr.zpi.hotspotter.repositoryanalysis.query;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.PackedFileResultsStore;
+import pwr.zpi.hotspotter.repositoryanalysis.repository.AnalysisInfoRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Validation and mapping shared by the query and aggregation APIs over {@link ResultResource} collections.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResultResourceSupport {
+
+    public static final String ANALYSIS_ID_FIELD = "analysisId";
+    public static final Set<String> HIDDEN_FIELDS = Set.of(ANALYSIS_ID_FIELD, "commitHistogram");
+    private static final TypeReference<Map<String, Object>> ITEM_TYPE = new TypeReference<>() { };
+
+    private final MongoTemplate mongoTemplate;
+    private final AnalysisInfoRepository analysisInfoRepository;
+    private final PackedFileResultsStore packedFileResultsStore;
+    private final ObjectMapper objectMapper;
+
+    public MongoPersistentEntity<?> getEntity(ResultResource resource) {
+        return mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(resource.getEntityClass());
+    }
+
+    /**
+     * Resolves a visible, non-id field holding a single value.
+     *
+     * @param usage what the field is used for, e.g. {@code "sorting or filtering"}
+     */
+    public MongoPersistentProperty requireScalarProperty(MongoPersistentEntity<?> entity, String field, String usage) {
+        MongoPersistentProperty property = entity.getPersistentProperty(field);
+        if (property == null || property.isIdProperty() || HIDDEN_FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Unknown field: " + field);
+        }
+        if (property.isEntity() || property.isCollectionLike() || property.isMap()) {
+            throw new IllegalArgumentException("Field cannot be used for " + usage + ": " + field);
+        }
+        return property;
+    }
+
+    /**
+     * Validates the requested response fields, an empty list means all visible fields.
+     */
+    public List<MongoPersistentProperty> resolveFields(MongoPersistentEntity<?> entity, List<String> fields) {
+        List<MongoPersistentProperty> properties = new ArrayList<>();
+        for (String field : Objects.requireNonNullElse(fields, List.<String>of())) {
+            MongoPersistentProperty property = entity.getPersistentProperty(field);
+            if (property == null || HIDDEN_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            properties.add(property);
+        }
+        return properties;
+    }
+
+    public Map<String, Object> toItem(Class<?> entityClass, Document document, List<MongoPersistentProperty> fields) {
+        Object entity = mongoTemplate.getConverter().read(entityClass, document);
+        Map<String, Object> item = objectMapper.convertValue(entity, ITEM_TYPE);
+        if (fields.isEmpty()) return item;
+
+        Map<String, Object> projected = new LinkedHashMap<>();
+        fields.forEach(field -> projected.put(field.getName(), item.get(field.getName())));
+        return projected;
+    }
+
+    public boolean isPacked(String analysisId, ResultResource resource) {
+        return resource.isPerFileResult() && packedFileResultsStore.contains(analysisId, resource.getEntityClass());
+    }
+
+    public void checkIfAnalysisCompleted(String analysisId) {
+        if (!analysisInfoRepository.isAnalysisCompleted(analysisId)) {
+            log.warn("Analysis with ID {} does not exist or is not completed.", analysisId);
+            throw new IllegalArgumentException("Analysis with given ID does not exist or is not completed.");
+        }
+    }
+
+    /**
+     * Orders values of a result field the way Mongo orders them within one type, {@code null} first.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static int compareValues(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        if (left instanceof Number leftNumber && right instanceof Number rightNumber) {
+            return Double.compare(leftNumber.doubleValue(), rightNumber.doubleValue());
+        }
+        if (left instanceof Comparable comparable && left.getClass().isInstance(right)) {
+            return comparable.compareTo(right);
+        }
+        return left.toString().compareTo(right.toString());
+    }
+
+}
@@ -0,0 +1,3 @@
+package pwr.zpi.hotspotter.repositoryanalysis.query;
+
+public record ResultValueCount(Object value, long count) { }
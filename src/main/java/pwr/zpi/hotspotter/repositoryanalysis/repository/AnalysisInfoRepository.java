@@ -5,12 +5,16 @@ import org.springframework.stereotype.Repository;
 import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AnalysisInfoRepository extends MongoRepository<AnalysisInfo, String> {
 
     List<AnalysisInfo> findByRepositoryUrl(String repositoryUrl);
 
+    Optional<AnalysisInfo> findFirstByAnalysisKeyAndStatusOrderByAnalyzedAtDesc(String analysisKey,
+                                                                                AnalysisInfo.AnalysisStatus status);
+
     boolean existsByIdAndStatus(String id, AnalysisInfo.AnalysisStatus status);
 
     default boolean isAnalysisCompleted(String id) {
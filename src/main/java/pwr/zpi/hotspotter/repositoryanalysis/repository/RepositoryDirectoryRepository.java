@@ -0,0 +1,22 @@
+package pwr.zpi.hotspotter.repositoryanalysis.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryDirectory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RepositoryDirectoryRepository extends MongoRepository<RepositoryDirectory, String> {
+
+    Optional<RepositoryDirectory> findByAnalysisIdAndPath(String analysisId, String path);
+
+    List<RepositoryDirectory> findAllByAnalysisIdAndPathIn(String analysisId, Collection<String> paths);
+
+    boolean existsByAnalysisId(String analysisId);
+
+    void deleteAllByAnalysisId(String analysisId);
+
+}
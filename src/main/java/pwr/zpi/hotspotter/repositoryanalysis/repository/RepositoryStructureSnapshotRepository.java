@@ -0,0 +1,8 @@
+package pwr.zpi.hotspotter.repositoryanalysis.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureSnapshot;
+
+@Repository
+public interface RepositoryStructureSnapshotRepository extends MongoRepository<RepositoryStructureSnapshot, String> { }
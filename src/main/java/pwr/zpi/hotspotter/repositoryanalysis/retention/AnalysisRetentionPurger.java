@@ -0,0 +1,210 @@
+package pwr.zpi.hotspotter.repositoryanalysis.retention;
+
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.model.ActivityTrends;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.AnalysisResultsCache;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryDirectory;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureSnapshot;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.model.PackedFileResultsBlock;
+import pwr.zpi.hotspotter.repositoryanalysis.retention.config.AnalysisRetentionConfig;
+import pwr.zpi.hotspotter.sonar.model.analysisstatus.SonarAnalysisStatus;
+import pwr.zpi.hotspotter.sonar.model.repoanalysis.SonarRepoAnalysisResult;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Purges analyses selected by the retention policy (maximum age, maximum analyses per repository).
+ * Selected analyses are first marked as {@code EXPIRED} so they stop being served, then their documents are
+ * deleted from every result collection in throttled batches, the analysis documents themselves last.
+ * An interrupted purge is resumed by the next run. Runs on its own scheduler thread, since pauses between
+ * batches can keep it busy for a long time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AnalysisRetentionPurger {
+
+    private static final String METRIC_PREFIX = "analysis.retention.purged";
+    private static final String ID_FIELD = "_id";
+    private static final String SIZE_FIELD = "size";
+    private static final int ANALYSES_PER_BATCH = 50;
+    private static final List<AnalysisInfo.AnalysisStatus> FINISHED_STATUSES = List.of(
+            AnalysisInfo.AnalysisStatus.COMPLETED, AnalysisInfo.AnalysisStatus.FAILED);
+
+    // Collections holding per-analysis data and the field referencing the analysis
+    private static final List<PurgeTarget> PURGE_TARGETS = List.of(
+            new PurgeTarget(FileInfo.class, "analysisId"),
+            new PurgeTarget(FileKnowledge.class, "analysisId"),
+            new PurgeTarget(AuthorStatistics.class, "analysisId"),
+            new PurgeTarget(ActivityTrends.class, ID_FIELD),
+            new PurgeTarget(PackedFileResultsBlock.class, "analysisId"),
+            new PurgeTarget(RepositoryStructureSnapshot.class, ID_FIELD),
+            new PurgeTarget(RepositoryDirectory.class, "analysisId"),
+            new PurgeTarget(SonarRepoAnalysisResult.class, "repoAnalysisId"),
+            new PurgeTarget(SonarAnalysisStatus.class, "repoAnalysisId"),
+            new PurgeTarget(AnalysisInfo.class, ID_FIELD)
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final AnalysisResultsCache analysisResultsCache;
+    private final AnalysisRetentionConfig analysisRetentionConfig;
+    private final MeterRegistry meterRegistry;
+
+    @Scheduled(cron = "#{@analysisRetentionConfig.purgeCron}", scheduler = "analysisRetentionScheduler")
+    public void purgeExpiredAnalyses() {
+        if (!analysisRetentionConfig.getEnabled()) return;
+
+        markExpiredAnalyses();
+        List<String> expiredAnalysisIds = findExpiredAnalysisIds();
+        if (expiredAnalysisIds.isEmpty()) {
+            log.debug("No expired analyses to purge");
+            return;
+        }
+
+        log.info("Purging {} expired analyses", expiredAnalysisIds.size());
+        long reclaimedBytes = 0L;
+        for (int i = 0; i < expiredAnalysisIds.size(); i += ANALYSES_PER_BATCH) {
+            List<String> analysisIds = expiredAnalysisIds.subList(i, Math.min(i + ANALYSES_PER_BATCH, expiredAnalysisIds.size()));
+            analysisIds.forEach(analysisResultsCache::invalidate);
+
+            for (PurgeTarget target : PURGE_TARGETS) {
+                OptionalLong purged = purgeCollection(target, analysisIds);
+                if (purged.isEmpty()) {
+                    log.info("Purge interrupted, remaining analyses will be purged on the next run");
+                    return;
+                }
+                reclaimedBytes += purged.getAsLong();
+            }
+            meterRegistry.counter(METRIC_PREFIX + ".analyses").increment(analysisIds.size());
+        }
+
+        log.info("Purged {} expired analyses, reclaimed {} bytes", expiredAnalysisIds.size(), reclaimedBytes);
+    }
+
+    private void markExpiredAnalyses() {
+        List<String> analysisIds = new ArrayList<>();
+
+        if (analysisRetentionConfig.getMaxAgeDays() > 0) {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(analysisRetentionConfig.getMaxAgeDays());
+            Query query = Query.query(Criteria.where("status").in(FINISHED_STATUSES).and("analyzedAt").lt(cutoff));
+            query.fields().include(ID_FIELD);
+            mongoTemplate.find(query, Document.class, collection(AnalysisInfo.class))
+                    .forEach(document -> analysisIds.add(document.getString(ID_FIELD)));
+        }
+
+        if (analysisRetentionConfig.getMaxAnalysesPerRepository() > 0) {
+            analysisIds.addAll(findAnalysesOverRepositoryLimit(analysisRetentionConfig.getMaxAnalysesPerRepository()));
+        }
+
+        if (analysisIds.isEmpty()) return;
+
+        long marked = mongoTemplate.updateMulti(
+                Query.query(Criteria.where(ID_FIELD).in(analysisIds).and("status").in(FINISHED_STATUSES)),
+                Update.update("status", AnalysisInfo.AnalysisStatus.EXPIRED),
+                AnalysisInfo.class).getModifiedCount();
+        log.info("Marked {} analyses as expired by the retention policy", marked);
+    }
+
+    private List<String> findAnalysesOverRepositoryLimit(int maxAnalysesPerRepository) {
+        List<Document> repositories = mongoTemplate.aggregate(Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("status").in(FINISHED_STATUSES)),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "analyzedAt")),
+                Aggregation.group("repositoryUrl").push(ID_FIELD).as("analysisIds").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(maxAnalysesPerRepository))
+        ), collection(AnalysisInfo.class), Document.class).getMappedResults();
+
+        List<String> analysisIds = new ArrayList<>();
+        for (Document repository : repositories) {
+            List<String> newestFirst = repository.getList("analysisIds", String.class);
+            analysisIds.addAll(newestFirst.subList(maxAnalysesPerRepository, newestFirst.size()));
+        }
+        return analysisIds;
+    }
+
+    private List<String> findExpiredAnalysisIds() {
+        Query query = Query.query(Criteria.where("status").is(AnalysisInfo.AnalysisStatus.EXPIRED))
+                .with(Sort.by(Sort.Direction.ASC, "analyzedAt"))
+                .limit(analysisRetentionConfig.getMaxAnalysesPerRun());
+        query.fields().include(ID_FIELD);
+
+        return mongoTemplate.find(query, Document.class, collection(AnalysisInfo.class)).stream()
+                .map(document -> document.getString(ID_FIELD))
+                .toList();
+    }
+
+    /**
+     * Deletes the documents of the given analyses in batches, pausing between batches.
+     *
+     * @return number of reclaimed bytes, empty when the purge was interrupted
+     */
+    private OptionalLong purgeCollection(PurgeTarget target, List<String> analysisIds) {
+        String collection = collection(target.entityClass());
+        int batchSize = analysisRetentionConfig.getBatchSize();
+        long reclaimedBytes = 0L;
+
+        AggregationOperation documentSize = _ -> new Document("$project",
+                new Document(SIZE_FIELD, new Document("$bsonSize", "$$ROOT")));
+
+        while (true) {
+            List<Document> batch = mongoTemplate.aggregate(Aggregation.newAggregation(
+                    Aggregation.match(Criteria.where(target.analysisIdField()).in(analysisIds)),
+                    Aggregation.limit(batchSize),
+                    documentSize
+            ), collection, Document.class).getMappedResults();
+
+            if (batch.isEmpty()) break;
+
+            List<Object> ids = batch.stream().map(document -> document.get(ID_FIELD)).toList();
+            long batchBytes = batch.stream().mapToLong(document -> ((Number) document.get(SIZE_FIELD)).longValue()).sum();
+            DeleteResult result = mongoTemplate.remove(Query.query(Criteria.where(ID_FIELD).in(ids)), collection);
+
+            reclaimedBytes += batchBytes;
+            meterRegistry.counter(METRIC_PREFIX + ".documents", "collection", collection).increment(result.getDeletedCount());
+            meterRegistry.counter(METRIC_PREFIX + ".bytes", "collection", collection).increment(batchBytes);
+
+            if (batch.size() < batchSize) break;
+            if (!pause()) return OptionalLong.empty();
+        }
+
+        if (reclaimedBytes > 0) {
+            log.debug("Purged {} bytes from collection {}", reclaimedBytes, collection);
+        }
+        return OptionalLong.of(reclaimedBytes);
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(analysisRetentionConfig.getBatchDelayMs());
+            return true;
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String collection(Class<?> entityClass) {
+        return mongoTemplate.getCollectionName(entityClass);
+    }
+
+    private record PurgeTarget(Class<?> entityClass, String analysisIdField) { }
+
+}
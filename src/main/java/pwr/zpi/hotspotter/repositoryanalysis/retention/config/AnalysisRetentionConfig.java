@@ -0,0 +1,49 @@
+package pwr.zpi.hotspotter.repositoryanalysis.retention.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "analysis-retention")
+public class AnalysisRetentionConfig {
+
+    @NotNull
+    private Boolean enabled = false;
+
+    /**
+     * Analyses older than this are purged, {@code 0} disables the age limit.
+     */
+    @NotNull
+    @Min(value = 0, message = "Maximum analysis age cannot be negative")
+    private Integer maxAgeDays = 180;
+
+    /**
+     * Only the newest analyses of each repository are kept, {@code 0} disables the limit.
+     */
+    @NotNull
+    @Min(value = 0, message = "Maximum number of analyses per repository cannot be negative")
+    private Integer maxAnalysesPerRepository = 20;
+
+    @NotNull
+    @Min(value = 1, message = "Purge batch size must be at least 1")
+    private Integer batchSize = 1000;
+
+    @NotNull
+    @Min(value = 0, message = "Delay between purge batches cannot be negative")
+    private Long batchDelayMs = 200L;
+
+    @NotNull
+    @Min(value = 1, message = "At least one analysis must be purged per run")
+    private Integer maxAnalysesPerRun = 500;
+
+    @NotBlank(message = "Purge schedule must be configured")
+    private String purgeCron = "0 0 3 * * *";
+
+}
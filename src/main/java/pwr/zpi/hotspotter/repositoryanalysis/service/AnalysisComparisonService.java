@@ -0,0 +1,253 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.AnalysisResultsCache;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.CachedResult;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.ResultFormat;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.ResultFormatEncoder;
+import pwr.zpi.hotspotter.repositoryanalysis.exception.AnalysisException;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisFileDelta;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisFileResultsReader;
+import pwr.zpi.hotspotter.repositoryanalysis.repository.AnalysisInfoRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.util.AnalysisUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Computes per-file deltas between two completed analyses of the same repository. Both sides are streamed
+ * in file path order, read through the {@code (analysisId, filePath)} index, and merge-joined, so memory use
+ * does not depend on the size of the repository.
+ * Unchanged files are only counted in the summary.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalysisComparisonService {
+
+    private static final String DIFF_VIEW = "diff";
+
+    private final AnalysisInfoRepository analysisInfoRepository;
+    private final AnalysisFileResultsReader analysisFileResultsReader;
+    private final AnalysisResultsCache analysisResultsCache;
+    private final ResultFormatEncoder resultFormatEncoder;
+
+    /**
+     * Both analyses are checked on every request, the cached view is only invalidated with the base analysis,
+     * so it must not be served once the target analysis has been removed.
+     */
+    public CachedResult compare(String baseAnalysisId, String targetAnalysisId, ResultFormat format) {
+        checkIfComparable(baseAnalysisId, targetAnalysisId);
+
+        String view = DIFF_VIEW + ":" + format + ":" + targetAnalysisId;
+        return analysisResultsCache.get(baseAnalysisId, view, () -> {
+            try {
+                return resultFormatEncoder.write(format, generator -> writeComparison(generator, baseAnalysisId, targetAnalysisId));
+            } catch (UncheckedIOException e) {
+                throw new AnalysisException("Failed to serialize analysis comparison: " + e.getMessage());
+            }
+        });
+    }
+
+    private void writeComparison(JsonGenerator generator, String baseAnalysisId, String targetAnalysisId) throws IOException {
+        Map<AnalysisFileDelta.Status, Integer> summary = new EnumMap<>(AnalysisFileDelta.Status.class);
+        for (AnalysisFileDelta.Status status : AnalysisFileDelta.Status.values()) {
+            summary.put(status, 0);
+        }
+
+        generator.writeStartObject();
+        generator.writeStringField("baseAnalysisId", baseAnalysisId);
+        generator.writeStringField("targetAnalysisId", targetAnalysisId);
+        generator.writeArrayFieldStart("files");
+
+        try (Stream<FileInfo> baseInfo = analysisFileResultsReader.streamFileInfo(baseAnalysisId);
+             Stream<FileKnowledge> baseKnowledge = analysisFileResultsReader.streamFileKnowledge(baseAnalysisId);
+             Stream<FileInfo> targetInfo = analysisFileResultsReader.streamFileInfo(targetAnalysisId);
+             Stream<FileKnowledge> targetKnowledge = analysisFileResultsReader.streamFileKnowledge(targetAnalysisId)) {
+
+            FileStateIterator base = new FileStateIterator(baseInfo.iterator(), baseKnowledge.iterator());
+            FileStateIterator target = new FileStateIterator(targetInfo.iterator(), targetKnowledge.iterator());
+
+            while (base.hasNext() || target.hasNext()) {
+                String filePath = MergeCursor.minPath(base.peekPath(), target.peekPath());
+                FileState before = filePath.equals(base.peekPath()) ? base.next() : null;
+                FileState after = filePath.equals(target.peekPath()) ? target.next() : null;
+
+                AnalysisFileDelta delta = createDelta(filePath, before, after);
+                summary.merge(delta.status(), 1, Integer::sum);
+                if (delta.status() != AnalysisFileDelta.Status.UNCHANGED) {
+                    generator.writeObject(delta);
+                }
+            }
+        }
+
+        generator.writeEndArray();
+        generator.writeObjectFieldStart("summary");
+        for (Map.Entry<AnalysisFileDelta.Status, Integer> entry : summary.entrySet()) {
+            generator.writeNumberField(entry.getKey().name().toLowerCase(), entry.getValue());
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private AnalysisFileDelta createDelta(String filePath, FileState before, FileState after) {
+        Integer commitsBefore = before != null ? before.commits() : null;
+        Integer commitsAfter = after != null ? after.commits() : null;
+        Integer codeLinesBefore = before != null ? before.codeLines() : null;
+        Integer codeLinesAfter = after != null ? after.codeLines() : null;
+        Double knowledgeLossBefore = before != null ? before.knowledgeLoss() : null;
+        Double knowledgeLossAfter = after != null ? after.knowledgeLoss() : null;
+        String leadAuthorBefore = before != null ? before.leadAuthor() : null;
+        String leadAuthorAfter = after != null ? after.leadAuthor() : null;
+
+        boolean changed = !Objects.equals(commitsBefore, commitsAfter)
+                || !Objects.equals(codeLinesBefore, codeLinesAfter)
+                || !Objects.equals(knowledgeLossBefore, knowledgeLossAfter)
+                || !Objects.equals(leadAuthorBefore, leadAuthorAfter);
+
+        AnalysisFileDelta.Status status;
+        if (before == null) {
+            status = AnalysisFileDelta.Status.ADDED;
+        } else if (after == null) {
+            status = AnalysisFileDelta.Status.REMOVED;
+        } else {
+            status = changed ? AnalysisFileDelta.Status.MODIFIED : AnalysisFileDelta.Status.UNCHANGED;
+        }
+
+        return new AnalysisFileDelta(
+                filePath,
+                status,
+                commitsBefore,
+                commitsAfter,
+                Objects.requireNonNullElse(commitsAfter, 0) - Objects.requireNonNullElse(commitsBefore, 0),
+                codeLinesBefore,
+                codeLinesAfter,
+                Objects.requireNonNullElse(codeLinesAfter, 0) - Objects.requireNonNullElse(codeLinesBefore, 0),
+                knowledgeLossBefore,
+                knowledgeLossAfter,
+                Objects.requireNonNullElse(knowledgeLossAfter, 0.0) - Objects.requireNonNullElse(knowledgeLossBefore, 0.0),
+                leadAuthorBefore,
+                leadAuthorAfter,
+                !Objects.equals(leadAuthorBefore, leadAuthorAfter)
+        );
+    }
+
+    private void checkIfComparable(String baseAnalysisId, String targetAnalysisId) {
+        AnalysisInfo base = findCompletedAnalysis(baseAnalysisId);
+        AnalysisInfo target = findCompletedAnalysis(targetAnalysisId);
+
+        if (!Objects.equals(base.getRepositoryUrl(), target.getRepositoryUrl())) {
+            log.warn("Cannot compare analyses {} and {} of different repositories.", baseAnalysisId, targetAnalysisId);
+            throw new IllegalArgumentException("Only analyses of the same repository can be compared.");
+        }
+    }
+
+    private AnalysisInfo findCompletedAnalysis(String analysisId) {
+        return analysisInfoRepository.findById(analysisId)
+                .filter(analysis -> analysis.getStatus() == AnalysisInfo.AnalysisStatus.COMPLETED)
+                .orElseThrow(() -> {
+                    log.warn("Analysis with ID {} does not exist or is not completed.", analysisId);
+                    return new IllegalArgumentException("Analysis with given ID does not exist or is not completed.");
+                });
+    }
+
+    private record FileState(String filePath, FileInfo fileInfo, FileKnowledge fileKnowledge) {
+
+        private Integer commits() {
+            if (fileInfo != null) return fileInfo.getTotalCommits();
+            return fileKnowledge != null ? fileKnowledge.getCommits() : null;
+        }
+
+        private Integer codeLines() {
+            return fileInfo != null ? fileInfo.getCodeLines() : null;
+        }
+
+        private Double knowledgeLoss() {
+            return fileKnowledge != null ? fileKnowledge.getKnowledgeLoss() : null;
+        }
+
+        private String leadAuthor() {
+            return fileKnowledge != null ? fileKnowledge.getLeadAuthor() : null;
+        }
+
+    }
+
+    /**
+     * Joins the file info and file knowledge of one analysis, both sorted by file path, into file states.
+     */
+    private static class FileStateIterator implements Iterator<FileState> {
+
+        private final MergeCursor<FileInfo> fileInfo;
+        private final MergeCursor<FileKnowledge> fileKnowledge;
+
+        private FileStateIterator(Iterator<FileInfo> fileInfo, Iterator<FileKnowledge> fileKnowledge) {
+            this.fileInfo = new MergeCursor<>(fileInfo, FileInfo::getFilePath);
+            this.fileKnowledge = new MergeCursor<>(fileKnowledge, FileKnowledge::getFilePath);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return fileInfo.peekPath() != null || fileKnowledge.peekPath() != null;
+        }
+
+        private String peekPath() {
+            return MergeCursor.minPath(fileInfo.peekPath(), fileKnowledge.peekPath());
+        }
+
+        @Override
+        public FileState next() {
+            String filePath = peekPath();
+            return new FileState(filePath, fileInfo.nextIfAt(filePath), fileKnowledge.nextIfAt(filePath));
+        }
+
+    }
+
+    private static class MergeCursor<T> {
+
+        private final Iterator<T> iterator;
+        private final Function<T, String> pathExtractor;
+        private T current;
+
+        private MergeCursor(Iterator<T> iterator, Function<T, String> pathExtractor) {
+            this.iterator = iterator;
+            this.pathExtractor = pathExtractor;
+            advance();
+        }
+
+        private String peekPath() {
+            return current != null ? pathExtractor.apply(current) : null;
+        }
+
+        private T nextIfAt(String filePath) {
+            if (current == null || !filePath.equals(pathExtractor.apply(current))) return null;
+
+            T result = current;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            current = iterator.hasNext() ? iterator.next() : null;
+        }
+
+        private static String minPath(String first, String second) {
+            if (first == null) return second;
+            if (second == null) return first;
+            return AnalysisUtils.compareFilePaths(first, second) <= 0 ? first : second;
+        }
+
+    }
+
+}
@@ -0,0 +1,177 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.repository.AnalysisInfoRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.sse.RepositoryAnalysisSsePublisher;
+import pwr.zpi.hotspotter.user.model.analysispreferences.UserAnalysisPreferences;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Deduplicates analyses by a content key of (repository, HEAD commit, date range, effective preferences).
+ * A completed analysis with the same key is reused, an in-flight one is joined: the joining client receives
+ * the progress, completion and error events of the running analysis.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalysisDeduplicationService {
+
+    private final AnalysisInfoRepository analysisInfoRepository;
+    private final RepositoryAnalysisSsePublisher ssePublisher;
+    private final Map<String, InFlightAnalysis> inFlightAnalyses = new ConcurrentHashMap<>();
+
+    /**
+     * The end date defaults to the day of the analysis, so analyses without one are only reused on the same day.
+     */
+    public String computeAnalysisKey(String repositoryUrl, String headCommitId, LocalDate startDate, LocalDate endDate,
+                                     UserAnalysisPreferences preferences) {
+        if (headCommitId == null) return null;
+
+        String source = String.join("|",
+                repositoryUrl,
+                headCommitId,
+                String.valueOf(startDate),
+                String.valueOf(endDate != null ? endDate : LocalDate.now()),
+                String.valueOf(preferences.getHotSpotAnalysisPeriodMonths()),
+                String.valueOf(preferences.getAuthorInactivityThresholdMonths()));
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the id of a completed analysis with the given key, or joins the emitter to a running one.
+     * When neither exists the caller becomes the leader of a new in-flight analysis, see {@link Resolution}.
+     */
+    public Resolution resolve(String analysisKey, String analysisId, SseEmitter emitter) {
+        InFlightAnalysis running = inFlightAnalyses.get(analysisKey);
+        if (running != null && running.join(emitter)) {
+            log.info("Joined in-flight analysis {} with key {}", running.getAnalysisId(), analysisKey);
+            return Resolution.joined(running);
+        }
+
+        // Leaders mark their analysis as completed before unregistering, so a missing entry means it is stored
+        Optional<AnalysisInfo> completed = analysisInfoRepository
+                .findFirstByAnalysisKeyAndStatusOrderByAnalyzedAtDesc(analysisKey, AnalysisInfo.AnalysisStatus.COMPLETED);
+        if (completed.isPresent()) {
+            log.info("Reusing completed analysis {} with key {}", completed.get().getId(), analysisKey);
+            return Resolution.completed(completed.get().getId());
+        }
+
+        InFlightAnalysis created = new InFlightAnalysis(analysisKey, analysisId, emitter);
+        InFlightAnalysis existing = inFlightAnalyses.putIfAbsent(analysisKey, created);
+        if (existing != null && existing.join(emitter)) {
+            return Resolution.joined(existing);
+        }
+        if (existing != null) {
+            return resolve(analysisKey, analysisId, emitter);
+        }
+        return Resolution.leader(created);
+    }
+
+    public void sendProgress(InFlightAnalysis analysis, RepositoryAnalysisService.AnalysisSseStatus status) {
+        for (SseEmitter emitter : analysis.progress(status)) {
+            ssePublisher.sendProgress(emitter, status);
+        }
+    }
+
+    /**
+     * Sends the completion event to all clients and completes the emitters of joined clients,
+     * the leader's emitter is completed by its caller.
+     */
+    public void complete(InFlightAnalysis analysis) {
+        inFlightAnalyses.remove(analysis.getAnalysisKey(), analysis);
+        List<SseEmitter> emitters = analysis.finish();
+        for (SseEmitter emitter : emitters) {
+            ssePublisher.sendComplete(emitter, analysis.getAnalysisId());
+        }
+        emitters.stream().filter(emitter -> emitter != analysis.getLeader()).forEach(SseEmitter::complete);
+    }
+
+    /**
+     * Sends the error to joined clients and completes their emitters, the leader reports its own error.
+     */
+    public void fail(InFlightAnalysis analysis, String message) {
+        inFlightAnalyses.remove(analysis.getAnalysisKey(), analysis);
+        for (SseEmitter emitter : analysis.finish()) {
+            if (emitter == analysis.getLeader()) continue;
+            ssePublisher.sendError(emitter, message);
+            emitter.complete();
+        }
+    }
+
+    public record Resolution(String completedAnalysisId, InFlightAnalysis inFlightAnalysis, boolean leader) {
+
+        private static Resolution completed(String analysisId) {
+            return new Resolution(analysisId, null, false);
+        }
+
+        private static Resolution joined(InFlightAnalysis analysis) {
+            return new Resolution(null, analysis, false);
+        }
+
+        private static Resolution leader(InFlightAnalysis analysis) {
+            return new Resolution(null, analysis, true);
+        }
+
+    }
+
+    @Getter
+    public class InFlightAnalysis {
+
+        private final String analysisKey;
+        private final String analysisId;
+        private final SseEmitter leader;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private RepositoryAnalysisService.AnalysisSseStatus lastStatus;
+        private boolean finished;
+
+        private InFlightAnalysis(String analysisKey, String analysisId, SseEmitter leader) {
+            this.analysisKey = analysisKey;
+            this.analysisId = analysisId;
+            this.leader = leader;
+            this.emitters.add(leader);
+        }
+
+        private synchronized boolean join(SseEmitter emitter) {
+            if (finished) return false;
+
+            emitters.add(emitter);
+            if (lastStatus != null) {
+                ssePublisher.sendProgress(emitter, lastStatus);
+            }
+            return true;
+        }
+
+        private synchronized List<SseEmitter> progress(RepositoryAnalysisService.AnalysisSseStatus status) {
+            lastStatus = status;
+            return List.copyOf(emitters);
+        }
+
+        private synchronized List<SseEmitter> finish() {
+            finished = true;
+            return List.copyOf(emitters);
+        }
+
+    }
+
+}
@@ -0,0 +1,113 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.ActivityTrendsAnalyzer;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.model.ActivityTrends;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.model.ActivityTrendsDailyStats;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.repository.ActivityTrendsRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.AuthorsAnalyzer;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.repository.AuthorStatisticsRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.FileInfoAnalyzer;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.KnowledgeAnalyzer;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RecomputedAnalysisResults;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisFileResultsReader;
+import pwr.zpi.hotspotter.repositoryanalysis.repository.AnalysisInfoRepository;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Recomputes the threshold-dependent analysis results (hot spot commits, author activity, knowledge loss
+ * and active authors per day) for different analysis preferences, using the commit date histograms stored
+ * with the analysis instead of re-reading the git history. Stored results are never modified.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalysisRecomputationService {
+
+    private final AnalysisInfoRepository analysisInfoRepository;
+    private final AnalysisFileResultsReader analysisFileResultsReader;
+    private final AuthorStatisticsRepository authorStatisticsRepository;
+    private final ActivityTrendsRepository activityTrendsRepository;
+
+    private final FileInfoAnalyzer fileInfoAnalyzer;
+    private final AuthorsAnalyzer authorsAnalyzer;
+    private final KnowledgeAnalyzer knowledgeAnalyzer;
+    private final ActivityTrendsAnalyzer activityTrendsAnalyzer;
+
+    public RecomputedAnalysisResults recompute(String analysisId, Integer hotSpotAnalysisPeriodMonths,
+                                               Integer authorInactivityThresholdMonths) {
+
+        AnalysisInfo analysisInfo = analysisInfoRepository.findById(analysisId)
+                .filter(info -> info.getStatus() == AnalysisInfo.AnalysisStatus.COMPLETED)
+                .orElseThrow(() -> {
+                    log.warn("Analysis with ID {} does not exist or is not completed.", analysisId);
+                    return new IllegalArgumentException("Analysis with given ID does not exist or is not completed.");
+                });
+
+        LocalDate referenceDate = analysisInfo.resolveReferenceDate();
+        int hotSpotMonths = resolveThreshold(hotSpotAnalysisPeriodMonths, analysisInfo.getHotSpotAnalysisPeriodMonths());
+        int inactivityMonths = resolveThreshold(authorInactivityThresholdMonths, analysisInfo.getAuthorInactivityThresholdMonths());
+
+        List<AuthorStatistics> authorStatistics = authorStatisticsRepository.findAllByAnalysisId(analysisId);
+        Map<String, Boolean> authorActivityMap = new HashMap<>();
+        List<RecomputedAnalysisResults.AuthorResult> authors = new ArrayList<>(authorStatistics.size());
+
+        for (AuthorStatistics stats : authorStatistics) {
+            authorsAnalyzer.checkIfInactive(stats, inactivityMonths);
+            authorActivityMap.put(stats.getName(), stats.getIsActive());
+            authors.add(new RecomputedAnalysisResults.AuthorResult(stats.getName(), stats.getIsActive()));
+        }
+
+        Map<String, FileKnowledge> fileKnowledgeMap = new HashMap<>();
+        for (FileKnowledge fileKnowledge : analysisFileResultsReader.findAllFileKnowledge(analysisId)) {
+            knowledgeAnalyzer.applyAuthorActivity(fileKnowledge, authorActivityMap);
+            fileKnowledgeMap.put(fileKnowledge.getFilePath(), fileKnowledge);
+        }
+
+        List<RecomputedAnalysisResults.FileResult> files = analysisFileResultsReader.findAllFileInfo(analysisId).stream()
+                .map(fileInfo -> toFileResult(fileInfo, fileKnowledgeMap.get(fileInfo.getFilePath()), referenceDate, hotSpotMonths))
+                .toList();
+
+        List<ActivityTrendsDailyStats> dailyStats = activityTrendsRepository.findById(analysisId)
+                .map(ActivityTrends::getDailyStats)
+                .map(stats -> activityTrendsAnalyzer.recalculateActiveAuthors(stats, authorStatistics, inactivityMonths))
+                .orElse(List.of());
+
+        return new RecomputedAnalysisResults(
+                analysisId,
+                referenceDate,
+                hotSpotMonths,
+                inactivityMonths,
+                files,
+                authors,
+                dailyStats
+        );
+    }
+
+    private RecomputedAnalysisResults.FileResult toFileResult(FileInfo fileInfo, FileKnowledge fileKnowledge,
+                                                              LocalDate referenceDate, int hotSpotMonths) {
+
+        int hotSpotCommits = fileInfoAnalyzer.countCommitsInHotSpotAnalysisPeriod(fileInfo, referenceDate, hotSpotMonths);
+        return new RecomputedAnalysisResults.FileResult(
+                fileInfo.getFilePath(),
+                hotSpotCommits,
+                fileKnowledge != null ? fileKnowledge.getKnowledgeLoss() : null,
+                fileKnowledge != null ? fileKnowledge.getActiveContributors() : null
+        );
+    }
+
+    private int resolveThreshold(Integer requested, Integer analyzed) {
+        if (requested != null) return requested;
+        if (analyzed != null) return analyzed;
+        throw new IllegalArgumentException("Analysis has no stored preferences, thresholds must be provided explicitly.");
+    }
+
+}
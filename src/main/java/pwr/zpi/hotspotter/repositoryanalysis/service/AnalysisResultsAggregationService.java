@@ -0,0 +1,308 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.PackedFileResultsStore;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultHistogram;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultResource;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultResourceSupport;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultValueCount;
+import pwr.zpi.hotspotter.repositoryanalysis.util.AnalysisUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static pwr.zpi.hotspotter.repositoryanalysis.query.ResultResourceSupport.ANALYSIS_ID_FIELD;
+import static pwr.zpi.hotspotter.repositoryanalysis.query.ResultResourceSupport.HIDDEN_FIELDS;
+
+/**
+ * Top-N, histogram and value-count queries over per-analysis result collections, executed as aggregation
+ * pipelines so only the answer leaves the database. Top-N queries on the indexed fields are served by the
+ * {@code (analysisId, field, key)} indexes declared on the result models. Analyses stored in packed mode are
+ * aggregated incrementally while their blocks are streamed, holding one block and the partial answer at a time.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnalysisResultsAggregationService {
+
+    private static final String COUNT_FIELD = "count";
+    private static final String OTHER_BUCKET = "other";
+    private static final String FIELD_USAGE = "aggregation";
+    private static final Set<Class<?>> INTEGRAL_TYPES = Set.of(Integer.class, int.class, Long.class, long.class);
+    private static final Set<Class<?>> DECIMAL_TYPES = Set.of(Double.class, double.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final PackedFileResultsStore packedFileResultsStore;
+    private final ResultResourceSupport resultResourceSupport;
+
+    public List<Map<String, Object>> findTop(String analysisId, ResultResource resource, String field,
+                                             boolean ascending, int limit, List<String> fields) {
+        resultResourceSupport.checkIfAnalysisCompleted(analysisId);
+        MongoPersistentEntity<?> entity = resultResourceSupport.getEntity(resource);
+        String sortField = resultResourceSupport.requireScalarProperty(entity, field, FIELD_USAGE).getFieldName();
+        String keyField = entity.getRequiredPersistentProperty(resource.getKeyField()).getFieldName();
+        List<MongoPersistentProperty> projectedFields = resultResourceSupport.resolveFields(entity, fields);
+
+        List<Document> documents;
+        if (resultResourceSupport.isPacked(analysisId, resource)) {
+            Comparator<Document> bySortField =
+                    Comparator.comparing(document -> document.get(sortField), ResultResourceSupport::compareValues);
+            Comparator<Document> order = (ascending ? bySortField : bySortField.reversed())
+                    .thenComparing(document -> document.getString(keyField), AnalysisUtils::compareFilePaths);
+            try (Stream<Document> packedDocuments = streamPacked(analysisId, resource)) {
+                documents = selectTop(packedDocuments, order, limit);
+            }
+        } else {
+            Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+            documents = aggregate(resource,
+                    matchAnalysis(analysisId),
+                    Aggregation.sort(Sort.by(direction, sortField).and(Sort.by(Sort.Direction.ASC, keyField))),
+                    Aggregation.limit(limit),
+                    projection(projectedFields));
+        }
+
+        return documents.stream()
+                .map(document -> resultResourceSupport.toItem(resource.getEntityClass(), document, projectedFields))
+                .toList();
+    }
+
+    /**
+     * Buckets a numeric field either by the given boundaries or into {@code bucketCount} equal-width buckets
+     * spanning the field's value range.
+     */
+    public ResultHistogram findHistogram(String analysisId, ResultResource resource, String field,
+                                         List<Double> boundaries, Integer bucketCount) {
+        resultResourceSupport.checkIfAnalysisCompleted(analysisId);
+        MongoPersistentEntity<?> entity = resultResourceSupport.getEntity(resource);
+        MongoPersistentProperty property = resultResourceSupport.requireScalarProperty(entity, field, FIELD_USAGE);
+        if (!INTEGRAL_TYPES.contains(property.getActualType()) && !DECIMAL_TYPES.contains(property.getActualType())) {
+            throw new IllegalArgumentException("Histogram is only supported for numeric fields: " + field);
+        }
+        String fieldName = property.getFieldName();
+        boolean integral = INTEGRAL_TYPES.contains(property.getActualType());
+        boolean packed = resultResourceSupport.isPacked(analysisId, resource);
+
+        List<Number> bucketBoundaries;
+        if (boundaries != null && !boundaries.isEmpty()) {
+            bucketBoundaries = validateBoundaries(boundaries, integral);
+        } else {
+            int buckets = Objects.requireNonNullElse(bucketCount, 10);
+            Optional<double[]> range = packed ? findPackedRange(analysisId, resource, fieldName) : findRange(analysisId, resource, fieldName);
+            if (range.isEmpty()) {
+                long total = packed ? countPacked(analysisId, resource) : countAll(analysisId, resource);
+                return new ResultHistogram(field, List.of(), total);
+            }
+            bucketBoundaries = equalWidthBoundaries(range.get()[0], range.get()[1], buckets, integral);
+        }
+
+        Map<Object, Long> counts = packed
+                ? countPackedBuckets(analysisId, resource, fieldName, bucketBoundaries)
+                : countBuckets(analysisId, resource, fieldName, bucketBoundaries);
+
+        List<ResultHistogram.Bucket> buckets = new ArrayList<>(bucketBoundaries.size() - 1);
+        for (int i = 0; i < bucketBoundaries.size() - 1; i++) {
+            Number lowerBound = bucketBoundaries.get(i);
+            buckets.add(new ResultHistogram.Bucket(lowerBound, bucketBoundaries.get(i + 1),
+                    counts.getOrDefault(i, 0L)));
+        }
+        return new ResultHistogram(field, buckets, counts.getOrDefault(OTHER_BUCKET, 0L));
+    }
+
+    /**
+     * Counts results per distinct value of a field, most frequent first, e.g. files per lead author.
+     */
+    public List<ResultValueCount> findValueCounts(String analysisId, ResultResource resource, String field, int limit) {
+        resultResourceSupport.checkIfAnalysisCompleted(analysisId);
+        MongoPersistentEntity<?> entity = resultResourceSupport.getEntity(resource);
+        String fieldName = resultResourceSupport.requireScalarProperty(entity, field, FIELD_USAGE).getFieldName();
+        Comparator<ResultValueCount> byCount = Comparator.comparingLong(ResultValueCount::count).reversed()
+                .thenComparing(ResultValueCount::value, ResultResourceSupport::compareValues);
+
+        if (resultResourceSupport.isPacked(analysisId, resource)) {
+            Map<Optional<Object>, Long> counts;
+            try (Stream<Document> packedDocuments = streamPacked(analysisId, resource)) {
+                counts = packedDocuments.collect(Collectors.groupingBy(
+                        document -> Optional.ofNullable(document.get(fieldName)), Collectors.counting()));
+            }
+            return counts.entrySet().stream()
+                    .map(entry -> new ResultValueCount(entry.getKey().orElse(null), entry.getValue()))
+                    .sorted(byCount)
+                    .limit(limit)
+                    .toList();
+        }
+
+        return aggregate(resource,
+                matchAnalysis(analysisId),
+                Aggregation.group(fieldName).count().as(COUNT_FIELD),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, COUNT_FIELD).and(Sort.by(Sort.Direction.ASC, "_id"))),
+                Aggregation.limit(limit))
+                .stream()
+                .map(document -> new ResultValueCount(document.get("_id"), ((Number) document.get(COUNT_FIELD)).longValue()))
+                .toList();
+    }
+
+    // ==================================================
+    // Histogram helpers
+    // ==================================================
+
+    private List<Number> validateBoundaries(List<Double> boundaries, boolean integral) {
+        if (boundaries.size() < 2) {
+            throw new IllegalArgumentException("At least two histogram boundaries are required");
+        }
+        for (int i = 1; i < boundaries.size(); i++) {
+            if (boundaries.get(i) <= boundaries.get(i - 1)) {
+                throw new IllegalArgumentException("Histogram boundaries must be strictly increasing");
+            }
+        }
+        boolean wholeNumbers = integral && boundaries.stream().allMatch(boundary -> boundary == Math.rint(boundary));
+        return boundaries.stream().<Number>map(boundary -> wholeNumbers ? boundary.longValue() : boundary).toList();
+    }
+
+    private List<Number> equalWidthBoundaries(double min, double max, int bucketCount, boolean integral) {
+        List<Number> boundaries = new ArrayList<>(bucketCount + 1);
+        if (integral) {
+            long lowerBound = (long) Math.floor(min);
+            long upperBound = (long) Math.floor(max) + 1;
+            long width = Math.max(1L, Math.ceilDiv(upperBound - lowerBound, bucketCount));
+            for (long boundary = lowerBound; boundary < upperBound; boundary += width) {
+                boundaries.add(boundary);
+            }
+            boundaries.add(boundaries.getLast().longValue() + width);
+            return boundaries;
+        }
+
+        double width = (max - min) / bucketCount;
+        int buckets = width > 0 ? bucketCount : 1;
+        for (int i = 0; i < buckets; i++) {
+            boundaries.add(min + i * width);
+        }
+        boundaries.add(Math.nextUp(max));
+        return boundaries;
+    }
+
+    private Optional<double[]> findRange(String analysisId, ResultResource resource, String fieldName) {
+        return aggregate(resource,
+                Aggregation.match(Criteria.where(ANALYSIS_ID_FIELD).is(analysisId).and(fieldName).ne(null)),
+                Aggregation.group().min(fieldName).as("min").max(fieldName).as("max"))
+                .stream()
+                .findFirst()
+                .map(document -> new double[] {
+                        ((Number) document.get("min")).doubleValue(),
+                        ((Number) document.get("max")).doubleValue()
+                });
+    }
+
+    private Optional<double[]> findPackedRange(String analysisId, ResultResource resource, String fieldName) {
+        DoubleSummaryStatistics statistics;
+        try (Stream<Document> documents = streamPacked(analysisId, resource)) {
+            statistics = documents
+                    .map(document -> document.get(fieldName))
+                    .filter(Number.class::isInstance)
+                    .mapToDouble(value -> ((Number) value).doubleValue())
+                    .summaryStatistics();
+        }
+        return statistics.getCount() > 0
+                ? Optional.of(new double[] { statistics.getMin(), statistics.getMax() })
+                : Optional.empty();
+    }
+
+    private Map<Object, Long> countBuckets(String analysisId, ResultResource resource, String fieldName, List<Number> boundaries) {
+        Map<Double, Integer> bucketIndexes = new HashMap<>();
+        for (int i = 0; i < boundaries.size() - 1; i++) {
+            bucketIndexes.put(boundaries.get(i).doubleValue(), i);
+        }
+
+        Map<Object, Long> counts = new HashMap<>();
+        for (Document document : aggregate(resource,
+                matchAnalysis(analysisId),
+                Aggregation.bucket(fieldName)
+                        .withBoundaries(boundaries.toArray())
+                        .withDefaultBucket(OTHER_BUCKET)
+                        .andOutputCount().as(COUNT_FIELD))) {
+
+            Object bucket = document.get("_id");
+            long count = ((Number) document.get(COUNT_FIELD)).longValue();
+            counts.put(bucket instanceof Number lowerBound ? bucketIndexes.get(lowerBound.doubleValue()) : OTHER_BUCKET, count);
+        }
+        return counts;
+    }
+
+    private Map<Object, Long> countPackedBuckets(String analysisId, ResultResource resource, String fieldName,
+                                                 List<Number> boundaries) {
+        double[] bounds = boundaries.stream().mapToDouble(Number::doubleValue).toArray();
+        try (Stream<Document> documents = streamPacked(analysisId, resource)) {
+            return documents
+                    .map(document -> document.get(fieldName))
+                    .collect(Collectors.groupingBy(value -> {
+                        if (!(value instanceof Number number)) return OTHER_BUCKET;
+                        int index = Arrays.binarySearch(bounds, number.doubleValue());
+                        int bucket = index >= 0 ? index : -index - 2;
+                        return bucket >= 0 && bucket < bounds.length - 1 ? bucket : OTHER_BUCKET;
+                    }, Collectors.counting()));
+        }
+    }
+
+    private long countAll(String analysisId, ResultResource resource) {
+        return mongoTemplate.count(Query.query(Criteria.where(ANALYSIS_ID_FIELD).is(analysisId)), resource.getEntityClass());
+    }
+
+    private long countPacked(String analysisId, ResultResource resource) {
+        try (Stream<Document> documents = streamPacked(analysisId, resource)) {
+            return documents.count();
+        }
+    }
+
+    // ==================================================
+    // Common helpers
+    // ==================================================
+
+    /**
+     * Keeps only the best {@code limit} documents of the stream in a bounded heap.
+     */
+    private List<Document> selectTop(Stream<Document> documents, Comparator<Document> order, int limit) {
+        PriorityQueue<Document> top = new PriorityQueue<>(limit + 1, order.reversed());
+        documents.forEach(document -> {
+            top.add(document);
+            if (top.size() > limit) top.poll();
+        });
+
+        List<Document> selected = new ArrayList<>(top);
+        selected.sort(order);
+        return selected;
+    }
+
+    private Stream<Document> streamPacked(String analysisId, ResultResource resource) {
+        return packedFileResultsStore.streamDocuments(analysisId, resource.getEntityClass(), true, null);
+    }
+
+    private List<Document> aggregate(ResultResource resource, AggregationOperation... operations) {
+        return mongoTemplate.aggregate(Aggregation.newAggregation(operations),
+                mongoTemplate.getCollectionName(resource.getEntityClass()), Document.class).getMappedResults();
+    }
+
+    private AggregationOperation matchAnalysis(String analysisId) {
+        return Aggregation.match(Criteria.where(ANALYSIS_ID_FIELD).is(analysisId));
+    }
+
+    /**
+     * Returns only the requested fields from the database, or every visible field when none are requested.
+     */
+    private ProjectionOperation projection(List<MongoPersistentProperty> fields) {
+        if (fields.isEmpty()) {
+            return Aggregation.project().andExclude(HIDDEN_FIELDS.toArray(String[]::new));
+        }
+        return Aggregation.project(fields.stream().map(MongoPersistentProperty::getFieldName).toArray(String[]::new));
+    }
+
+}
@@ -0,0 +1,272 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.PackedFileResultsStore;
+import pwr.zpi.hotspotter.repositoryanalysis.query.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static pwr.zpi.hotspotter.repositoryanalysis.query.ResultResourceSupport.ANALYSIS_ID_FIELD;
+import static pwr.zpi.hotspotter.repositoryanalysis.query.ResultResourceSupport.HIDDEN_FIELDS;
+import static pwr.zpi.hotspotter.repositoryanalysis.query.ResultResourceSupport.compareValues;
+
+/**
+ * Paginated, filtered and projected access to per-analysis result collections. Pages use keyset pagination on
+ * {@code (sort field, key)}, the key being unique within an analysis. The default sort by key is served by
+ * the {@code (analysisId, key)} unique index, which {@link pwr.zpi.hotspotter.common.config.MongoIndexInitializer}
+ * builds after removing duplicates left by older versions.
+ * Analyses stored in packed mode are read block by block in file path order with the filters applied while
+ * streaming, so they can only be sorted by file path.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnalysisResultsQueryService {
+
+    private static final String FIELD_USAGE = "sorting or filtering";
+
+    private final MongoTemplate mongoTemplate;
+    private final PackedFileResultsStore packedFileResultsStore;
+    private final ResultResourceSupport resultResourceSupport;
+    private final ObjectMapper objectMapper;
+
+    public ResultPage findPage(ResultQuery query) {
+        resultResourceSupport.checkIfAnalysisCompleted(query.analysisId());
+        QueryPlan plan = plan(query);
+        ResultCursor cursor = query.cursor() != null ? ResultCursor.decode(query.cursor()) : null;
+
+        List<Document> documents;
+        if (plan.packed()) {
+            try (Stream<Document> packedDocuments = findPackedDocuments(plan, cursor)) {
+                documents = packedDocuments.limit(query.limit() + 1L).toList();
+            }
+        } else {
+            Query mongoQuery = buildMongoQuery(plan, cursor).limit(query.limit() + 1);
+            documents = mongoTemplate.find(mongoQuery, Document.class, plan.collection());
+        }
+
+        boolean hasMore = documents.size() > query.limit();
+        List<Document> pageDocuments = hasMore ? documents.subList(0, query.limit()) : documents;
+        String nextCursor = null;
+        if (hasMore) {
+            Document last = pageDocuments.getLast();
+            nextCursor = new ResultCursor(last.get(plan.sortField()), last.get(plan.keyField())).encode();
+        }
+
+        List<Map<String, Object>> items = pageDocuments.stream().map(document -> toItem(plan, document)).toList();
+        return new ResultPage(items, nextCursor);
+    }
+
+    /**
+     * Validates the query eagerly and returns a body writing all matching results as newline-delimited JSON,
+     * read through a Mongo cursor so the result set is never held in memory as a whole.
+     */
+    public StreamingResponseBody export(ResultQuery query) {
+        resultResourceSupport.checkIfAnalysisCompleted(query.analysisId());
+        QueryPlan plan = plan(query);
+        ObjectWriter writer = objectMapper.writer();
+
+        return outputStream -> {
+            try (Stream<Document> documents = plan.packed()
+                    ? findPackedDocuments(plan, null)
+                    : mongoTemplate.stream(buildMongoQuery(plan, null), Document.class, plan.collection())) {
+
+                Iterator<Document> iterator = documents.iterator();
+                while (iterator.hasNext()) {
+                    outputStream.write(writer.writeValueAsBytes(toItem(plan, iterator.next())));
+                    outputStream.write('\n');
+                }
+            }
+        };
+    }
+
+    private QueryPlan plan(ResultQuery query) {
+        ResultResource resource = query.resource();
+        MongoPersistentEntity<?> entity = resultResourceSupport.getEntity(resource);
+
+        String sortField = query.sortField() != null ? query.sortField() : resource.getKeyField();
+        MongoPersistentProperty sortProperty = resultResourceSupport.requireScalarProperty(entity, sortField, FIELD_USAGE);
+        boolean packed = resultResourceSupport.isPacked(query.analysisId(), resource);
+        if (packed && !sortProperty.getName().equals(resource.getKeyField())) {
+            throw new IllegalArgumentException("Results of this analysis are stored packed and can only be sorted by "
+                    + resource.getKeyField());
+        }
+
+        List<TypedFilter> filters = new ArrayList<>();
+        for (ResultFilter filter : query.filters()) {
+            MongoPersistentProperty property = resultResourceSupport.requireScalarProperty(entity, filter.field(), FIELD_USAGE);
+            filters.add(new TypedFilter(property.getFieldName(), filter.operator(), parseFilterValue(property, filter)));
+        }
+
+        return new QueryPlan(
+                query.analysisId(),
+                resource.getEntityClass(),
+                mongoTemplate.getCollectionName(resource.getEntityClass()),
+                sortProperty.getFieldName(),
+                entity.getRequiredPersistentProperty(resource.getKeyField()).getFieldName(),
+                query.ascending(),
+                packed,
+                filters,
+                resultResourceSupport.resolveFields(entity, query.fields())
+        );
+    }
+
+    private Object parseFilterValue(MongoPersistentProperty property, ResultFilter filter) {
+        Class<?> type = property.getActualType();
+        String value = filter.value();
+
+        if (filter.operator() == ResultFilter.Operator.PREFIX) {
+            if (type != String.class) {
+                throw new IllegalArgumentException("Prefix filter is only supported for text fields: " + filter.field());
+            }
+            return value;
+        }
+
+        try {
+            Object parsed;
+            if (type == String.class) parsed = value;
+            else if (type == Integer.class || type == int.class) parsed = Integer.valueOf(value);
+            else if (type == Long.class || type == long.class) parsed = Long.valueOf(value);
+            else if (type == Double.class || type == double.class) parsed = Double.valueOf(value);
+            else if (type == Boolean.class || type == boolean.class) parsed = Boolean.valueOf(value);
+            else if (type == LocalDate.class) parsed = LocalDate.parse(value);
+            else if (type == LocalDateTime.class) parsed = LocalDateTime.parse(value);
+            else throw new IllegalArgumentException("Field cannot be used for filtering: " + filter.field());
+
+            return mongoTemplate.getConverter().convertToMongoType(parsed);
+        } catch (NumberFormatException | DateTimeParseException _) {
+            throw new IllegalArgumentException("Invalid value for field " + filter.field() + ": " + value);
+        }
+    }
+
+    private Query buildMongoQuery(QueryPlan plan, ResultCursor cursor) {
+        List<Criteria> conditions = new ArrayList<>();
+        for (TypedFilter filter : plan.filters()) {
+            conditions.add(toCriteria(filter));
+        }
+        if (cursor != null) {
+            conditions.add(keysetCriteria(plan, cursor));
+        }
+
+        Criteria criteria = Criteria.where(ANALYSIS_ID_FIELD).is(plan.analysisId());
+        if (!conditions.isEmpty()) {
+            criteria.andOperator(conditions);
+        }
+
+        Query query = Query.query(criteria);
+        Sort.Direction direction = plan.ascending() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        query.with(plan.sortField().equals(plan.keyField())
+                ? Sort.by(direction, plan.keyField())
+                : Sort.by(direction, plan.sortField()).and(Sort.by(Sort.Direction.ASC, plan.keyField())));
+
+        if (plan.fields().isEmpty()) {
+            HIDDEN_FIELDS.stream().filter(field -> !field.equals(ANALYSIS_ID_FIELD)).forEach(query.fields()::exclude);
+        } else {
+            plan.fields().forEach(field -> query.fields().include(field.getFieldName()));
+            query.fields().include(plan.sortField()).include(plan.keyField());
+        }
+        return query;
+    }
+
+    private Criteria toCriteria(TypedFilter filter) {
+        Criteria criteria = Criteria.where(filter.field());
+        return switch (filter.operator()) {
+            case EQ -> criteria.is(filter.value());
+            case NE -> criteria.ne(filter.value());
+            case GT -> criteria.gt(filter.value());
+            case GTE -> criteria.gte(filter.value());
+            case LT -> criteria.lt(filter.value());
+            case LTE -> criteria.lte(filter.value());
+            case PREFIX -> criteria.regex("^" + Pattern.quote((String) filter.value()));
+        };
+    }
+
+    private Criteria keysetCriteria(QueryPlan plan, ResultCursor cursor) {
+        String sortField = plan.sortField();
+        String keyField = plan.keyField();
+
+        if (sortField.equals(keyField)) {
+            return plan.ascending()
+                    ? Criteria.where(keyField).gt(cursor.keyValue())
+                    : Criteria.where(keyField).lt(cursor.keyValue());
+        }
+
+        // Nulls sort lowest: first when ascending, last when descending
+        Criteria sameSortValue = Criteria.where(sortField).is(cursor.sortValue()).and(keyField).gt(cursor.keyValue());
+        Criteria pastSortValue;
+        if (cursor.sortValue() == null) {
+            if (!plan.ascending()) return sameSortValue;
+            pastSortValue = Criteria.where(sortField).ne(null);
+        } else if (plan.ascending()) {
+            pastSortValue = Criteria.where(sortField).gt(cursor.sortValue());
+        } else {
+            pastSortValue = new Criteria().orOperator(
+                    Criteria.where(sortField).lt(cursor.sortValue()),
+                    Criteria.where(sortField).is(null));
+        }
+        return new Criteria().orOperator(pastSortValue, sameSortValue);
+    }
+
+    /**
+     * Packed blocks are read in file path order, which is the key order of per-file results.
+     */
+    private Stream<Document> findPackedDocuments(QueryPlan plan, ResultCursor cursor) {
+        String afterPath = null;
+        if (cursor != null) {
+            if (!(cursor.keyValue() instanceof String keyValue)) {
+                throw new IllegalArgumentException("Invalid pagination cursor.");
+            }
+            afterPath = keyValue;
+        }
+
+        return packedFileResultsStore.streamDocuments(plan.analysisId(), plan.entityClass(), plan.ascending(), afterPath)
+                .filter(document -> plan.filters().stream().allMatch(filter -> matches(document, filter)));
+    }
+
+    private boolean matches(Document document, TypedFilter filter) {
+        Object value = document.get(filter.field());
+        return switch (filter.operator()) {
+            case EQ -> compareValues(value, filter.value()) == 0;
+            case NE -> compareValues(value, filter.value()) != 0;
+            case GT -> value != null && compareValues(value, filter.value()) > 0;
+            case GTE -> value != null && compareValues(value, filter.value()) >= 0;
+            case LT -> value != null && compareValues(value, filter.value()) < 0;
+            case LTE -> value != null && compareValues(value, filter.value()) <= 0;
+            case PREFIX -> value instanceof String text && text.startsWith((String) filter.value());
+        };
+    }
+
+    private Map<String, Object> toItem(QueryPlan plan, Document document) {
+        return resultResourceSupport.toItem(plan.entityClass(), document, plan.fields());
+    }
+
+    private record TypedFilter(String field, ResultFilter.Operator operator, Object value) { }
+
+    private record QueryPlan(
+            String analysisId,
+            Class<?> entityClass,
+            String collection,
+            String sortField,
+            String keyField,
+            boolean ascending,
+            boolean packed,
+            List<TypedFilter> filters,
+            List<MongoPersistentProperty> fields
+    ) { }
+
+}
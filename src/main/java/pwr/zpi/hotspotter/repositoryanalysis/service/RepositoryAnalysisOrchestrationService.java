@@ -11,6 +11,7 @@ import pwr.zpi.hotspotter.repositoryanalysis.sse.RepositoryAnalysisSsePublisher;
 import pwr.zpi.hotspotter.repositorymanagement.exception.InvalidRepositoryUrlException;
 import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryCloneException;
 import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryUpdateException;
+import pwr.zpi.hotspotter.user.model.analysispreferences.UserAnalysisPreferences;
 
 import java.time.LocalDate;
 
@@ -23,9 +24,11 @@ public class RepositoryAnalysisOrchestrationService {
     private final RepositoryAnalysisSsePublisher sse;
 
     @Async("repoAnalysisExecutor")
-    public void startAsyncAnalysis(String repoUrl, LocalDate start, LocalDate end, SseEmitter emitter) {
+    public void startAsyncAnalysis(String repoUrl, LocalDate start, LocalDate end,
+                                   UserAnalysisPreferences preferences, SseEmitter emitter) {
+        boolean joinedInFlightAnalysis = false;
         try {
-            repositoryAnalysisService.runRepositoryAnalysis(repoUrl, start, end, emitter);
+            joinedInFlightAnalysis = repositoryAnalysisService.runRepositoryAnalysis(repoUrl, start, end, preferences, emitter);
 
         } catch (InvalidRepositoryUrlException e) {
             log.warn("Invalid repository URL {}: {}", repoUrl, e.getMessage());
@@ -48,7 +51,9 @@ public class RepositoryAnalysisOrchestrationService {
             sse.sendError(emitter, e.getMessage());
 
         } finally {
-            emitter.complete();
+            if (!joinedInFlightAnalysis) {
+                emitter.complete();
+            }
         }
     }
 
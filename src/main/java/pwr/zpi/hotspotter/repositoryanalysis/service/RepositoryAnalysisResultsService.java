@@ -3,26 +3,68 @@ package pwr.zpi.hotspotter.repositoryanalysis.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
-import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.repository.FileInfoRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.AnalysisResultsCache;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.CachedResult;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.ResultFormat;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.ResultFormatEncoder;
+import pwr.zpi.hotspotter.repositoryanalysis.exception.AnalysisException;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RecomputedAnalysisResults;
 import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureNode;
 import pwr.zpi.hotspotter.repositoryanalysis.repository.AnalysisInfoRepository;
 
-import java.util.Collection;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RepositoryAnalysisResultsService {
 
+    private static final String STRUCTURE_VIEW = "structure";
+    private static final String SUBTREE_VIEW = "subtree";
+    private static final String RECOMPUTE_VIEW = "recompute";
+
     private final AnalysisInfoRepository analysisInfoRepository;
-    private final FileInfoRepository fileInfoRepository;
-    private final RepositoryStructureService repositoryStructureService;
+    private final RepositoryStructureSnapshotService repositoryStructureSnapshotService;
+    private final RepositoryDirectoryIndexService repositoryDirectoryIndexService;
+    private final AnalysisRecomputationService analysisRecomputationService;
+    private final AnalysisResultsCache analysisResultsCache;
+    private final ResultFormatEncoder resultFormatEncoder;
+
+    public CachedResult getRepositoryStructure(String analysisId, ResultFormat format) {
+        return analysisResultsCache.get(analysisId, STRUCTURE_VIEW + ":" + format, () -> {
+            checkIfAnalysisCompleted(analysisId);
+            byte[] snapshot = repositoryStructureSnapshotService.getSnapshot(analysisId).getData();
+            return encode(() -> resultFormatEncoder.transcodeGzipJson(snapshot, format));
+        });
+    }
+
+    public CachedResult getRepositorySubtree(String analysisId, String path, int depth, ResultFormat format) {
+        String view = SUBTREE_VIEW + ":" + format + ":" + depth + ":" + path;
+        return analysisResultsCache.get(analysisId, view, () -> {
+            checkIfAnalysisCompleted(analysisId);
+            RepositoryStructureNode subtree = repositoryDirectoryIndexService.getSubtree(analysisId, path, depth);
+            return encode(() -> resultFormatEncoder.encode(subtree, format));
+        });
+    }
 
-    public RepositoryStructureNode getRepositoryStructure(String analysisId) {
-        checkIfAnalysisCompleted(analysisId);
-        Collection<FileInfo> fileInfoData = fileInfoRepository.findAllByAnalysisId(analysisId);
-        return repositoryStructureService.buildRepositoryStructure(fileInfoData);
+    public CachedResult getRecomputedResults(String analysisId, Integer hotSpotAnalysisPeriodMonths,
+                                             Integer authorInactivityThresholdMonths, ResultFormat format) {
+
+        String view = RECOMPUTE_VIEW + ":" + format + ":" + hotSpotAnalysisPeriodMonths + ":" + authorInactivityThresholdMonths;
+        return analysisResultsCache.get(analysisId, view, () -> {
+            RecomputedAnalysisResults results = analysisRecomputationService.recompute(
+                    analysisId, hotSpotAnalysisPeriodMonths, authorInactivityThresholdMonths);
+            return encode(() -> resultFormatEncoder.encode(results, format));
+        });
+    }
+
+    private CachedResult encode(Supplier<CachedResult> encoder) {
+        try {
+            return encoder.get();
+        } catch (UncheckedIOException e) {
+            throw new AnalysisException("Failed to serialize analysis results: " + e.getMessage());
+        }
     }
 
     private void checkIfAnalysisCompleted(String analysisId) {
@@ -33,27 +75,3 @@ public class RepositoryAnalysisResultsService {
     }
 
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
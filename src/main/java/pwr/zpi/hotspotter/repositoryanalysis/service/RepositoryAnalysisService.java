@@ -6,27 +6,44 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.ActivityTrendsAnalyzer;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.ActivityTrendsContext;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.model.ActivityTrends;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.FileInfoAnalyzer;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.FileInfoAnalyzerContext;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.KnowledgeAnalyzer;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.KnowledgeAnalyzerContext;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.AuthorsAnalyzer;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.AuthorsAnalyzerContext;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
 import pwr.zpi.hotspotter.repositoryanalysis.exception.AnalysisException;
 import pwr.zpi.hotspotter.repositoryanalysis.exception.LogProcessingException;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.LogExtractor;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.LogParser;
 import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.Commit;
 import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryDirectory;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureNode;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureSnapshot;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisResultsWriteBehind;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisWriteSession;
 import pwr.zpi.hotspotter.repositoryanalysis.repository.AnalysisInfoRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.service.AnalysisDeduplicationService.InFlightAnalysis;
+import pwr.zpi.hotspotter.repositoryanalysis.service.AnalysisDeduplicationService.Resolution;
 import pwr.zpi.hotspotter.repositoryanalysis.sse.RepositoryAnalysisSsePublisher;
+import pwr.zpi.hotspotter.repositoryanalysis.util.AnalysisUtils;
 import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryWorktree;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryWorktreeManager;
 import pwr.zpi.hotspotter.repositorymanagement.service.RepositoryManagementService;
 import pwr.zpi.hotspotter.sonar.model.repoanalysis.SonarRepoAnalysisResult;
 import pwr.zpi.hotspotter.sonar.service.SonarService;
+import pwr.zpi.hotspotter.user.model.analysispreferences.UserAnalysisPreferences;
 
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
@@ -42,6 +59,12 @@ public class RepositoryAnalysisService {
     private final LogParser logParser;
     private final RepositoryAnalysisSsePublisher ssePublisher;
     private final SonarService sonarService;
+    private final AnalysisResultsWriteBehind analysisResultsWriteBehind;
+    private final RepositoryStructureService repositoryStructureService;
+    private final RepositoryStructureSnapshotService repositoryStructureSnapshotService;
+    private final RepositoryDirectoryIndexService repositoryDirectoryIndexService;
+    private final AnalysisDeduplicationService analysisDeduplicationService;
+    private final RepositoryWorktreeManager repositoryWorktreeManager;
 
     // Inject all analyzers here
     private final KnowledgeAnalyzer knowledgeAnalyzer;
@@ -49,31 +72,72 @@ public class RepositoryAnalysisService {
     private final FileInfoAnalyzer fileInfoAnalyzer;
     private final ActivityTrendsAnalyzer activityTrendsAnalyzer;
 
-    public void runRepositoryAnalysis(String repositoryUrl, LocalDate startDate, LocalDate endDate, SseEmitter emitter) {
+    /**
+     * Runs the analysis, or reuses an identical completed or in-flight one.
+     *
+     * @return {@code true} when the emitter joined an in-flight analysis, which completes it when done
+     */
+    public boolean runRepositoryAnalysis(String repositoryUrl, LocalDate startDate, LocalDate endDate,
+                                         UserAnalysisPreferences preferences, SseEmitter emitter) {
         long analysisStartTime = System.currentTimeMillis();
 
         ssePublisher.sendProgress(emitter, AnalysisSseStatus.DOWNLOADING);
-        RepositoryInfo repositoryInfo = repositoryManagementService.cloneOrUpdateRepository(repositoryUrl);
+        String pinId = UUID.randomUUID().toString();
+        RepositoryInfo repositoryInfo = repositoryManagementService.cloneOrUpdateRepository(repositoryUrl, pinId);
         Path repositoryPath = Path.of(repositoryInfo.getLocalPath());
 
-        AnalysisInfo analysisInfo = createAnalysisInfo(repositoryInfo, startDate, endDate);
+        AnalysisInfo analysisInfo;
+        InFlightAnalysis inFlightAnalysis = null;
+        String headCommitId;
+        try {
+            headCommitId = AnalysisUtils.resolveHeadCommitId(repositoryPath);
+            analysisInfo = createAnalysisInfo(repositoryInfo, startDate, endDate, preferences, headCommitId);
+
+            if (analysisInfo.getAnalysisKey() != null) {
+                Resolution resolution = analysisDeduplicationService.resolve(
+                        analysisInfo.getAnalysisKey(), analysisInfo.getId(), emitter);
+                if (resolution.completedAnalysisId() != null) {
+                    repositoryManagementService.unpinRepository(pinId);
+                    ssePublisher.sendComplete(emitter, resolution.completedAnalysisId());
+                    return false;
+                }
+                if (!resolution.leader()) {
+                    repositoryManagementService.unpinRepository(pinId);
+                    return true;
+                }
+                inFlightAnalysis = resolution.inFlightAnalysis();
+            }
+        } catch (RuntimeException e) {
+            repositoryManagementService.unpinRepository(pinId);
+            throw e;
+        }
         String analysisId = analysisInfo.getId();
-        analysisInfoRepository.save(analysisInfo);
 
         Path logFilePath = null;
+        RepositoryWorktree worktree = null;
+        AnalysisWriteSession writeSession = null;
+        CompletableFuture<SonarRepoAnalysisResult> sonarAnalysisFuture = null;
+        boolean completed = false;
+        String failureMessage = "Analysis failed";
         try {
-            ssePublisher.sendProgress(emitter, AnalysisSseStatus.PROCESSING_DATA);
-            CompletableFuture<SonarRepoAnalysisResult> sonarAnalysisFuture =
-                    sonarService.runAnalysis(analysisId, repositoryPath, analysisId, repositoryInfo.getName());
+            analysisInfoRepository.save(analysisInfo);
+            worktree = repositoryWorktreeManager.checkout(repositoryInfo, headCommitId, analysisId, pinId);
+            Path worktreePath = worktree.path();
+
+            sendProgress(inFlightAnalysis, emitter, AnalysisSseStatus.PROCESSING_DATA);
+            sonarAnalysisFuture = sonarService.runAnalysis(analysisId, worktreePath, analysisId, repositoryInfo.getName());
 
-            logFilePath = logExtractor.extractLogs(repositoryPath, analysisId, startDate, endDate);
+            logFilePath = logExtractor.extractLogs(worktreePath, analysisId, startDate, endDate);
             Stream<Commit> commits = logParser.parseLogs(logFilePath);
 
-            ssePublisher.sendProgress(emitter, AnalysisSseStatus.ANALYZING);
-            KnowledgeAnalyzerContext knowledgeContext = knowledgeAnalyzer.startAnalysis(analysisId, repositoryPath);
-            AuthorsAnalyzerContext authorsContext = authorsAnalyzer.startAnalysis(analysisId, endDate);
-            FileInfoAnalyzerContext fileInfoContext = fileInfoAnalyzer.startAnalysis(analysisId, repositoryPath, endDate);
-            ActivityTrendsContext activityTrendsContext = activityTrendsAnalyzer.startAnalysis(analysisId, endDate, 6);
+            sendProgress(inFlightAnalysis, emitter, AnalysisSseStatus.ANALYZING);
+            KnowledgeAnalyzerContext knowledgeContext = knowledgeAnalyzer.startAnalysis(analysisId, worktreePath);
+            AuthorsAnalyzerContext authorsContext = authorsAnalyzer.startAnalysis(
+                    analysisId, endDate, preferences.getAuthorInactivityThresholdMonths());
+            FileInfoAnalyzerContext fileInfoContext = fileInfoAnalyzer.startAnalysis(
+                    analysisId, worktreePath, endDate, preferences.getHotSpotAnalysisPeriodMonths());
+            ActivityTrendsContext activityTrendsContext = activityTrendsAnalyzer.startAnalysis(
+                    analysisId, endDate, preferences.getAuthorInactivityThresholdMonths());
 
             try (commits) {
                 commits.forEach(commit -> {
@@ -84,39 +148,64 @@ public class RepositoryAnalysisService {
                 });
             }
 
-            knowledgeAnalyzer.finishAnalysis(knowledgeContext);
-            authorsAnalyzer.finishAnalysis(authorsContext);
-            fileInfoAnalyzer.finishAnalysis(fileInfoContext);
-            activityTrendsAnalyzer.finishAnalysis(activityTrendsContext);
+            writeSession = analysisResultsWriteBehind.openSession(analysisId);
 
-            knowledgeAnalyzer.enrichAnalysisData(knowledgeContext);
-            authorsAnalyzer.enrichAnalysisData(authorsContext);
+            List<FileKnowledge> fileKnowledgeData = knowledgeAnalyzer.finishAnalysis(knowledgeContext);
+            Collection<AuthorStatistics> authorStatistics = authorsAnalyzer.finishAnalysis(authorsContext);
+            knowledgeAnalyzer.enrichAnalysisData(fileKnowledgeData, authorStatistics);
+            authorsAnalyzer.enrichAnalysisData(authorsContext, fileKnowledgeData);
+            writeSession.submitFileResults(FileKnowledge.class, fileKnowledgeData);
+            writeSession.submit(AuthorStatistics.class, authorStatistics);
 
-            ssePublisher.sendProgress(emitter, AnalysisSseStatus.SONAR);
+            ActivityTrends activityTrends = activityTrendsAnalyzer.finishAnalysis(activityTrendsContext);
+            if (activityTrends != null) {
+                writeSession.submit(ActivityTrends.class, List.of(activityTrends));
+            }
+
+            List<FileInfo> fileInfoData = fileInfoAnalyzer.finishAnalysis(fileInfoContext);
+            writeSession.submitFileResults(FileInfo.class, fileInfoData);
+            RepositoryStructureNode structureRoot =
+                    repositoryStructureService.buildRepositoryStructure(fileInfoData, fileKnowledgeData);
+            writeSession.submit(RepositoryStructureSnapshot.class,
+                    List.of(repositoryStructureSnapshotService.createSnapshot(analysisId, structureRoot, fileInfoData.size())));
+            writeSession.submit(RepositoryDirectory.class,
+                    repositoryDirectoryIndexService.buildDirectories(analysisId, structureRoot));
+
+            sendProgress(inFlightAnalysis, emitter, AnalysisSseStatus.SONAR);
             try {
                 sonarAnalysisFuture.get();
             } catch (Exception e) {
                 log.warn("Failed to retrieve SonarQube analysis results for analysis ID {}: {}", analysisId, e.getMessage());
             }
 
+            writeSession.flush();
+
             long analysisEndTime = System.currentTimeMillis();
             long analysisDurationSeconds = (analysisEndTime - analysisStartTime) / 1000;
 
             analysisInfo.setAnalysisTimeInSeconds(analysisDurationSeconds);
             analysisInfo.markAsCompleted();
             analysisInfoRepository.save(analysisInfo);
+            completed = true;
 
             log.info("Analysis completed for repository {} in {} seconds, ID: {}",
                     repositoryUrl, analysisDurationSeconds, analysisId);
-            ssePublisher.sendComplete(emitter, analysisId);
+            if (inFlightAnalysis == null) {
+                ssePublisher.sendComplete(emitter, analysisId);
+            }
+            return false;
 
         } catch (LogProcessingException e) {
+            failureMessage = e.getMessage();
+            abortWriteSession(writeSession);
             analysisInfo.markAsFailed();
             analysisInfoRepository.save(analysisInfo);
             ssePublisher.sendError(emitter, e.getMessage());
             throw e;
 
         } catch (Exception e) {
+            failureMessage = e.getMessage();
+            abortWriteSession(writeSession);
             analysisInfo.markAsFailed();
             analysisInfoRepository.save(analysisInfo);
             log.error("Unexpected error during analysis for repository {}: {}", repositoryUrl, e.getMessage(), e);
@@ -124,13 +213,56 @@ public class RepositoryAnalysisService {
             throw new AnalysisException("Analysis failed: " + e.getMessage());
 
         } finally {
+            // Joined clients are released even when marking the analysis as failed throws
+            finishInFlightAnalysis(inFlightAnalysis, completed, failureMessage);
             if (logFilePath != null) {
                 logExtractor.deleteLogFile(logFilePath);
             }
+            if (worktree != null) {
+                releaseWorktree(worktree, sonarAnalysisFuture);
+            } else {
+                repositoryManagementService.unpinRepository(pinId);
+            }
+        }
+    }
+
+    /**
+     * Sonar may still be scanning the worktree when the analysis fails, so it is removed once the scan finishes.
+     */
+    private void releaseWorktree(RepositoryWorktree worktree, CompletableFuture<?> sonarAnalysisFuture) {
+        if (sonarAnalysisFuture == null || sonarAnalysisFuture.isDone()) {
+            repositoryWorktreeManager.release(worktree);
+        } else {
+            sonarAnalysisFuture.whenComplete((_, _) -> repositoryWorktreeManager.release(worktree));
+        }
+    }
+
+    private void abortWriteSession(AnalysisWriteSession writeSession) {
+        if (writeSession != null) {
+            writeSession.abort();
+        }
+    }
+
+    private void sendProgress(InFlightAnalysis inFlightAnalysis, SseEmitter emitter, AnalysisSseStatus status) {
+        if (inFlightAnalysis != null) {
+            analysisDeduplicationService.sendProgress(inFlightAnalysis, status);
+        } else {
+            ssePublisher.sendProgress(emitter, status);
+        }
+    }
+
+    private void finishInFlightAnalysis(InFlightAnalysis inFlightAnalysis, boolean completed, String failureMessage) {
+        if (inFlightAnalysis == null) return;
+
+        if (completed) {
+            analysisDeduplicationService.complete(inFlightAnalysis);
+        } else {
+            analysisDeduplicationService.fail(inFlightAnalysis, failureMessage);
         }
     }
 
-    private AnalysisInfo createAnalysisInfo(RepositoryInfo repositoryInfo, LocalDate startDate, LocalDate endDate) {
+    private AnalysisInfo createAnalysisInfo(RepositoryInfo repositoryInfo, LocalDate startDate, LocalDate endDate,
+                                            UserAnalysisPreferences preferences, String headCommitId) {
         String analysisId = UUID.randomUUID().toString();
         return AnalysisInfo.builder()
                 .id(analysisId)
@@ -139,6 +271,11 @@ public class RepositoryAnalysisService {
                 .repositoryOwner(repositoryInfo.getOwner())
                 .startDate(startDate)
                 .endDate(endDate)
+                .hotSpotAnalysisPeriodMonths(preferences.getHotSpotAnalysisPeriodMonths())
+                .authorInactivityThresholdMonths(preferences.getAuthorInactivityThresholdMonths())
+                .headCommitId(headCommitId)
+                .analysisKey(analysisDeduplicationService.computeAnalysisKey(
+                        repositoryInfo.getRemoteUrl(), headCommitId, startDate, endDate, preferences))
                 .build();
     }
 
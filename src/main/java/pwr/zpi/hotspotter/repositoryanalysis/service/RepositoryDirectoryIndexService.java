@@ -0,0 +1,203 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import lombok.RequiredArgsConstructor;
+import com.mongodb.ErrorCategory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryDirectory;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryDirectoryEntry;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureMetrics;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureNode;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisFileResultsReader;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisResultsBulkWriter;
+import pwr.zpi.hotspotter.repositoryanalysis.repository.RepositoryDirectoryRepository;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RepositoryDirectoryIndexService {
+
+    private static final String DIRECTORY_TYPE = "dir";
+
+    private final RepositoryDirectoryRepository repositoryDirectoryRepository;
+    private final RepositoryStructureService repositoryStructureService;
+    private final AnalysisFileResultsReader analysisFileResultsReader;
+    private final AnalysisResultsBulkWriter analysisResultsBulkWriter;
+
+    private final Map<String, CompletableFuture<Void>> inFlightIndexBuilds = new ConcurrentHashMap<>();
+
+    public List<RepositoryDirectory> buildDirectories(String analysisId, RepositoryStructureNode root) {
+        List<RepositoryDirectory> directories = new ArrayList<>();
+        collectDirectory(analysisId, root, directories);
+        return directories;
+    }
+
+    /**
+     * Returns the directory at the given path with its descendants down to the given depth. Each level
+     * is loaded with a single indexed query, directories below the requested depth are returned without children.
+     */
+    public RepositoryStructureNode getSubtree(String analysisId, String path, int depth) {
+        String directoryPath = normalizePath(path);
+        RepositoryDirectory directory = findDirectory(analysisId, directoryPath);
+
+        RepositoryStructureNode root = toDirectoryNode(directory.getName(), directory.getPath(), directory.getMetrics());
+
+        Map<String, RepositoryStructureNode> levelNodes = Map.of(directoryPath, root);
+        Collection<RepositoryDirectory> levelDirectories = List.of(directory);
+
+        for (int level = 1; level <= depth; level++) {
+            Map<String, RepositoryStructureNode> nextLevelNodes = new HashMap<>();
+
+            for (RepositoryDirectory levelDirectory : levelDirectories) {
+                RepositoryStructureNode node = levelNodes.get(levelDirectory.getPath());
+                for (RepositoryDirectoryEntry entry : levelDirectory.getChildren()) {
+                    RepositoryStructureNode child = toNode(entry);
+                    node.addChild(child);
+                    if (DIRECTORY_TYPE.equals(entry.getType())) {
+                        nextLevelNodes.put(entry.getPath(), child);
+                    }
+                }
+            }
+
+            if (level == depth || nextLevelNodes.isEmpty()) break;
+
+            levelDirectories = repositoryDirectoryRepository.findAllByAnalysisIdAndPathIn(analysisId, nextLevelNodes.keySet());
+            levelNodes = nextLevelNodes;
+        }
+
+        return root;
+    }
+
+    private RepositoryDirectory findDirectory(String analysisId, String directoryPath) {
+        Optional<RepositoryDirectory> directory = repositoryDirectoryRepository.findByAnalysisIdAndPath(analysisId, directoryPath);
+        // A build in progress has inserted only part of the index, so its callers wait for it as well
+        if (directory.isEmpty() && (inFlightIndexBuilds.containsKey(analysisId)
+                || !repositoryDirectoryRepository.existsByAnalysisId(analysisId))) {
+            buildMissingIndex(analysisId);
+            directory = repositoryDirectoryRepository.findByAnalysisIdAndPath(analysisId, directoryPath);
+        }
+
+        return directory.orElseThrow(() ->
+                new IllegalArgumentException("Directory with given path does not exist in the analysis."));
+    }
+
+    /**
+     * Builds the index of an analysis persisted before directories were stored. Concurrent requests of this instance
+     * wait for a single build, a build racing with another instance fails on the unique {@code analysis_path_idx}
+     * index for the directories the other one already inserted, which is treated as success.
+     */
+    private void buildMissingIndex(String analysisId) {
+        CompletableFuture<Void> build = new CompletableFuture<>();
+        CompletableFuture<Void> inFlightBuild = inFlightIndexBuilds.putIfAbsent(analysisId, build);
+        if (inFlightBuild != null) {
+            log.debug("Waiting for in-flight directory index build of analysis ID {}", analysisId);
+            awaitBuild(inFlightBuild);
+            return;
+        }
+
+        try {
+            log.debug("Building missing directory index for analysis ID {}", analysisId);
+            RepositoryStructureNode root = repositoryStructureService.buildRepositoryStructure(
+                    analysisFileResultsReader.findAllFileInfo(analysisId), analysisFileResultsReader.findAllFileKnowledge(analysisId));
+            saveDirectories(analysisId, buildDirectories(analysisId, root));
+            build.complete(null);
+
+        } catch (RuntimeException e) {
+            build.completeExceptionally(e);
+            throw e;
+
+        } finally {
+            inFlightIndexBuilds.remove(analysisId, build);
+        }
+    }
+
+    private void saveDirectories(String analysisId, List<RepositoryDirectory> directories) {
+        try {
+            analysisResultsBulkWriter.saveAll(RepositoryDirectory.class, directories);
+        } catch (DuplicateKeyException e) {
+            log.debug("Directory index of analysis ID {} was built concurrently: {}", analysisId, e.getMessage());
+        } catch (BulkOperationException e) {
+            boolean onlyDuplicates = e.getErrors().stream()
+                    .allMatch(error -> error.getCategory() == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) throw e;
+            log.debug("Directory index of analysis ID {} was built concurrently: {}", analysisId, e.getMessage());
+        }
+    }
+
+    private void awaitBuild(CompletableFuture<Void> build) {
+        try {
+            build.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private void collectDirectory(String analysisId, RepositoryStructureNode node, List<RepositoryDirectory> directories) {
+        List<RepositoryStructureNode> nodeChildren = node.getChildren() != null ? node.getChildren() : List.of();
+        List<RepositoryDirectoryEntry> children = new ArrayList<>(nodeChildren.size());
+
+        for (RepositoryStructureNode child : nodeChildren) {
+            if (DIRECTORY_TYPE.equals(child.getType())) {
+                collectDirectory(analysisId, child, directories);
+            }
+            children.add(RepositoryDirectoryEntry.builder()
+                    .name(child.getName())
+                    .path(child.getPath())
+                    .type(child.getType())
+                    .height(child.getHeight())
+                    .width(child.getWidth())
+                    .metrics(child.getMetrics())
+                    .build());
+        }
+
+        directories.add(RepositoryDirectory.builder()
+                .analysisId(analysisId)
+                .path(node.getPath())
+                .name(node.getName())
+                .metrics(node.getMetrics())
+                .children(children)
+                .build());
+    }
+
+    private RepositoryStructureNode toNode(RepositoryDirectoryEntry entry) {
+        if (DIRECTORY_TYPE.equals(entry.getType())) {
+            return toDirectoryNode(entry.getName(), entry.getPath(), entry.getMetrics());
+        }
+
+        return RepositoryStructureNode.builder()
+                .name(entry.getName())
+                .path(entry.getPath())
+                .type(entry.getType())
+                .height(entry.getHeight())
+                .width(entry.getWidth())
+                .metrics(entry.getMetrics())
+                .build();
+    }
+
+    private RepositoryStructureNode toDirectoryNode(String name, String path, RepositoryStructureMetrics metrics) {
+        return RepositoryStructureNode.builder()
+                .name(name)
+                .path(path)
+                .type(DIRECTORY_TYPE)
+                .metrics(metrics)
+                .build();
+    }
+
+    private String normalizePath(String path) {
+        if (path == null) return "";
+
+        String normalized = path.trim();
+        while (normalized.startsWith("/")) normalized = normalized.substring(1);
+        while (normalized.endsWith("/")) normalized = normalized.substring(0, normalized.length() - 1);
+        return normalized;
+    }
+
+}
@@ -2,88 +2,81 @@ package pwr.zpi.hotspotter.repositoryanalysis.service;
 
 import org.springframework.stereotype.Service;
 import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureMetrics;
 import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureNode;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Builds the repository structure tree. Files are inserted into a trie of interned path segments, then a single
+ * post-order pass creates the nodes, sets file dimensions and rolls file metrics up into every directory.
+ * Only directory nodes carry metrics, file nodes keep just their dimensions to keep the payload small.
+ */
 @Service
 public class RepositoryStructureService {
 
-    public RepositoryStructureNode buildRepositoryStructure(Collection<FileInfo> fileInfoData) {
-        Map<String, FileInfo> fileInfoMap = fileInfoData.stream()
-                .collect(Collectors.toMap(FileInfo::getFilePath, fi -> fi));
+    public RepositoryStructureNode buildRepositoryStructure(Collection<FileInfo> fileInfoData,
+                                                            Collection<FileKnowledge> fileKnowledgeData) {
+        Map<String, FileKnowledge> fileKnowledgeMap = fileKnowledgeData.stream()
+                .collect(Collectors.toMap(FileKnowledge::getFilePath, Function.identity(), (first, _) -> first));
 
-        RepositoryStructureNode root = buildTree(fileInfoMap);
+        TrieNode root = new TrieNode("root");
+        Map<String, String> segments = new HashMap<>();
+        int maxCommits = 0;
+        int maxLinesOfCode = 0;
 
-        MaxFileValues maxFileValues = calculateMaxFileValues(fileInfoData);
-        setFileDimensions(root, maxFileValues, fileInfoMap);
+        for (FileInfo fileInfo : fileInfoData) {
+            addFileToTrie(root, fileInfo, segments);
+            maxCommits = Math.max(maxCommits, Objects.requireNonNullElse(fileInfo.getTotalCommits(), 0));
+            maxLinesOfCode = Math.max(maxLinesOfCode, Objects.requireNonNullElse(fileInfo.getCodeLines(), 0));
+        }
 
-        return root;
+        MaxFileValues maxFileValues = new MaxFileValues(maxCommits, maxLinesOfCode);
+        RepositoryStructureNode rootNode = createDirectoryNode(root.name, "");
+        buildDirectory(root, rootNode, maxFileValues, fileKnowledgeMap);
+        return rootNode;
     }
 
-    private RepositoryStructureNode buildTree(Map<String, FileInfo> fileInfoMap) {
-        RepositoryStructureNode root = RepositoryStructureNode.builder()
-                .name("root")
-                .type("dir")
-                .path("")
-                .build();
+    private void addFileToTrie(TrieNode root, FileInfo fileInfo, Map<String, String> segments) {
+        String filePath = fileInfo.getFilePath();
+        TrieNode parent = root;
+        int segmentStart = 0;
+        int separator;
 
-        Map<String, RepositoryStructureNode> directoryNodesMap = new HashMap<>();
-        directoryNodesMap.put("", root);
-
-        fileInfoMap.forEach((filePath, fileInfo) ->
-            addFileToTree(filePath, fileInfo, root, directoryNodesMap)
-        );
+        while ((separator = filePath.indexOf('/', segmentStart)) >= 0) {
+            String segment = segments.computeIfAbsent(filePath.substring(segmentStart, separator), Function.identity());
+            parent = parent.directories.computeIfAbsent(segment, TrieNode::new);
+            segmentStart = separator + 1;
+        }
 
-        return root;
+        parent.files.add(fileInfo);
     }
 
-    private void addFileToTree(
-            String filePath,
-            FileInfo fileInfo,
-            RepositoryStructureNode root,
-            Map<String, RepositoryStructureNode> directoryNodesMap) {
+    private MetricsAccumulator buildDirectory(TrieNode trieNode, RepositoryStructureNode node, MaxFileValues maxFileValues,
+                                              Map<String, FileKnowledge> fileKnowledgeMap) {
 
-        String[] pathSegments = filePath.split("/");
-        RepositoryStructureNode parentNode = ensureDirectoryPath(pathSegments, root, directoryNodesMap);
+        MetricsAccumulator accumulator = new MetricsAccumulator();
+        String pathPrefix = node.getPath().isEmpty() ? "" : node.getPath() + "/";
 
-        String fileName = fileInfo.getFileName();
-        RepositoryStructureNode fileNode = createFileNode(fileName, filePath);
-        parentNode.addChild(fileNode);
-    }
-
-    private RepositoryStructureNode ensureDirectoryPath(
-            String[] pathSegments,
-            RepositoryStructureNode root,
-            Map<String, RepositoryStructureNode> directoryNodesMap) {
-
-        StringBuilder currentPath = new StringBuilder();
-        RepositoryStructureNode parentNode = root;
+        for (TrieNode child : trieNode.directories.values()) {
+            RepositoryStructureNode directoryNode = createDirectoryNode(child.name, pathPrefix + child.name);
+            node.addChild(directoryNode);
+            accumulator.merge(buildDirectory(child, directoryNode, maxFileValues, fileKnowledgeMap));
+        }
 
-        for (int i = 0; i < pathSegments.length - 1; i++) {
-            String segment = pathSegments[i];
+        for (FileInfo fileInfo : trieNode.files) {
+            RepositoryStructureNode fileNode = createFileNode(fileInfo.getFileName(), fileInfo.getFilePath());
+            setFileDimensions(fileNode, fileInfo, maxFileValues);
+            node.addChild(fileNode);
 
-            if (!currentPath.isEmpty()) {
-                currentPath.append("/");
-            }
-            currentPath.append(segment);
-            String currentPathStr = currentPath.toString();
-
-            RepositoryStructureNode directoryNode = directoryNodesMap.get(currentPathStr);
-            if (directoryNode == null) {
-                directoryNode = createDirectoryNode(segment, currentPathStr);
-                directoryNodesMap.put(currentPathStr, directoryNode);
-                parentNode.addChild(directoryNode);
-            }
-
-            parentNode = directoryNode;
+            accumulator.addFile(fileInfo, fileKnowledgeMap.get(fileInfo.getFilePath()));
         }
 
-        return parentNode;
+        node.setMetrics(accumulator.toMetrics());
+        return accumulator;
     }
 
     private RepositoryStructureNode createDirectoryNode(String directoryName, String directoryPath) {
@@ -102,34 +95,7 @@ public class RepositoryStructureService {
                 .build();
     }
 
-    private MaxFileValues calculateMaxFileValues(Collection<FileInfo> fileInfoData) {
-        int maxCommits = fileInfoData.stream()
-                .mapToInt(fi -> Objects.requireNonNullElse(fi.getTotalCommits(), 0))
-                .max()
-                .orElse(0);
-        int maxLinesOfCode = fileInfoData.stream()
-                .mapToInt(fi -> Objects.requireNonNullElse(fi.getCodeLines(), 0))
-                .max()
-                .orElse(0);
-
-        return new MaxFileValues(maxCommits, maxLinesOfCode);
-    }
-
-    private void setFileDimensions(RepositoryStructureNode node, MaxFileValues maxFileValues, Map<String, FileInfo> fileInfoMap) {
-        if (node.getType().equals("dir")) {
-            if (node.getChildren() != null) {
-                node.getChildren().forEach(child -> setFileDimensions(child, maxFileValues, fileInfoMap));
-            }
-            return;
-        }
-
-        FileInfo fileInfo = fileInfoMap.get(node.getPath());
-        if (fileInfo == null) {
-            node.setHeight(0.0);
-            node.setWidth(0.0);
-            return;
-        }
-
+    private void setFileDimensions(RepositoryStructureNode node, FileInfo fileInfo, MaxFileValues maxFileValues) {
         Integer commits = fileInfo.getTotalCommits();
         if (commits != null && maxFileValues.maxCommits > 0) {
             double normalizedValue = (double) commits / maxFileValues.maxCommits;
@@ -150,4 +116,93 @@ public class RepositoryStructureService {
 
     private record MaxFileValues(int maxCommits, int maxLinesOfCode) { }
 
+    private static class TrieNode {
+
+        private final String name;
+        private final Map<String, TrieNode> directories = new LinkedHashMap<>();
+        private final List<FileInfo> files = new ArrayList<>();
+
+        private TrieNode(String name) {
+            this.name = name;
+        }
+
+    }
+
+    private static class MetricsAccumulator {
+
+        private int fileCount;
+        private long codeLines;
+        private long totalLines;
+        private long totalCommits;
+        private int maxCommits;
+        private long hotSpotCommits;
+        private int maxContributors;
+        private double maxKnowledgeLoss;
+
+        // Files are weighted by lines of code (at least 1), only files with knowledge data count towards the averages
+        private double knowledgeWeight;
+        private double weightedContributors;
+        private double weightedKnowledgeLoss;
+
+        private void addFile(FileInfo fileInfo, FileKnowledge fileKnowledge) {
+            int fileCodeLines = Objects.requireNonNullElse(fileInfo.getCodeLines(), 0);
+            int fileCommits = Objects.requireNonNullElse(fileInfo.getTotalCommits(), 0);
+
+            fileCount++;
+            codeLines += fileCodeLines;
+            totalLines += Objects.requireNonNullElse(fileInfo.getTotalLines(), 0);
+            totalCommits += fileCommits;
+            maxCommits = Math.max(maxCommits, fileCommits);
+            hotSpotCommits += Objects.requireNonNullElse(fileInfo.getCommitsInHotSpotAnalysisPeriod(), 0);
+
+            if (fileKnowledge != null) {
+                int contributors = Objects.requireNonNullElse(fileKnowledge.getContributors(), 0);
+                double knowledgeLoss = Objects.requireNonNullElse(fileKnowledge.getKnowledgeLoss(), 0.0);
+                double weight = Math.max(1, fileCodeLines);
+
+                maxContributors = Math.max(maxContributors, contributors);
+                maxKnowledgeLoss = Math.max(maxKnowledgeLoss, knowledgeLoss);
+                knowledgeWeight += weight;
+                weightedContributors += contributors * weight;
+                weightedKnowledgeLoss += knowledgeLoss * weight;
+            }
+        }
+
+        private void merge(MetricsAccumulator other) {
+            fileCount += other.fileCount;
+            codeLines += other.codeLines;
+            totalLines += other.totalLines;
+            totalCommits += other.totalCommits;
+            maxCommits = Math.max(maxCommits, other.maxCommits);
+            hotSpotCommits += other.hotSpotCommits;
+            maxContributors = Math.max(maxContributors, other.maxContributors);
+            maxKnowledgeLoss = Math.max(maxKnowledgeLoss, other.maxKnowledgeLoss);
+            knowledgeWeight += other.knowledgeWeight;
+            weightedContributors += other.weightedContributors;
+            weightedKnowledgeLoss += other.weightedKnowledgeLoss;
+        }
+
+        private RepositoryStructureMetrics toMetrics() {
+            boolean hasKnowledge = knowledgeWeight > 0;
+            return RepositoryStructureMetrics.builder()
+                    .fileCount(fileCount)
+                    .codeLines(codeLines)
+                    .totalLines(totalLines)
+                    .totalCommits(totalCommits)
+                    .maxCommits(maxCommits)
+                    .hotSpotCommits(hotSpotCommits)
+                    .hotSpotDensity(fileCount > 0 ? round((double) hotSpotCommits / fileCount) : 0.0)
+                    .maxContributors(hasKnowledge ? maxContributors : null)
+                    .averageContributors(hasKnowledge ? round(weightedContributors / knowledgeWeight) : null)
+                    .knowledgeLoss(hasKnowledge ? round(weightedKnowledgeLoss / knowledgeWeight) : null)
+                    .maxKnowledgeLoss(hasKnowledge ? maxKnowledgeLoss : null)
+                    .build();
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100.0) / 100.0;
+        }
+
+    }
+
 }
@@ -0,0 +1,59 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.exception.AnalysisException;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureNode;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureSnapshot;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisFileResultsReader;
+import pwr.zpi.hotspotter.repositoryanalysis.repository.RepositoryStructureSnapshotRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.util.ContentEncodingUtils;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RepositoryStructureSnapshotService {
+
+    private final RepositoryStructureSnapshotRepository repositoryStructureSnapshotRepository;
+    private final RepositoryStructureService repositoryStructureService;
+    private final AnalysisFileResultsReader analysisFileResultsReader;
+    private final ObjectMapper objectMapper;
+
+    public RepositoryStructureSnapshot createSnapshot(String analysisId, RepositoryStructureNode root, int fileCount) {
+        byte[] data;
+        try {
+            data = ContentEncodingUtils.writeGzipJson(objectMapper, root);
+        } catch (UncheckedIOException e) {
+            throw new AnalysisException("Failed to serialize repository structure: " + e.getMessage());
+        }
+
+        return RepositoryStructureSnapshot.builder()
+                .id(analysisId)
+                .data(data)
+                .uncompressedSize((int) ContentEncodingUtils.gzipUncompressedSize(data))
+                .fileCount(fileCount)
+                .build();
+    }
+
+    /**
+     * Returns the stored structure of the analysis. Analyses completed before structures were persisted
+     * get their snapshot built from the stored file info and saved on first access.
+     */
+    public RepositoryStructureSnapshot getSnapshot(String analysisId) {
+        return repositoryStructureSnapshotRepository.findById(analysisId).orElseGet(() -> {
+            log.debug("Building missing repository structure snapshot for analysis ID {}", analysisId);
+            List<FileInfo> fileInfoData = analysisFileResultsReader.findAllFileInfo(analysisId);
+            RepositoryStructureNode root = repositoryStructureService.buildRepositoryStructure(
+                    fileInfoData, analysisFileResultsReader.findAllFileKnowledge(analysisId));
+            RepositoryStructureSnapshot snapshot = createSnapshot(analysisId, root, fileInfoData.size());
+            return repositoryStructureSnapshotRepository.save(snapshot);
+        });
+    }
+
+}
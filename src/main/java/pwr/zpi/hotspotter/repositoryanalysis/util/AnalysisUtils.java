@@ -4,56 +4,20 @@ import lombok.experimental.UtilityClass;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
-import org.springframework.data.repository.CrudRepository;
 
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.*;
+import java.util.HashSet;
+import java.util.Set;
 
 @UtilityClass
 public class AnalysisUtils {
 
     // ==================================================
-    // Saving data in batches
-    // ==================================================
-
-    public static final int DEFAULT_SAVE_BATCH_SIZE = 500;
-
-    public static <T, ID> void saveDataInBatches(CrudRepository<T, ID> repository, Iterable<T> data, int batchSize)
-            throws IllegalArgumentException{
-
-        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1");
-        if (repository == null || data == null) return;
-
-        List<T> dataList = toList(data);
-        if (dataList.isEmpty()) return;
-
-        int totalSize = dataList.size();
-        for (int i = 0; i < totalSize; i += batchSize) {
-            int end = Math.min(i + batchSize, totalSize);
-            List<T> batch = dataList.subList(i, end);
-            repository.saveAll(batch);
-        }
-    }
-
-    public static <T, ID> void saveDataInBatches(CrudRepository<T, ID> repository, Iterable<T> data)
-            throws IllegalArgumentException {
-
-        saveDataInBatches(repository, data, DEFAULT_SAVE_BATCH_SIZE);
-    }
-
-    private static <T> List<T> toList(Iterable<T> data) {
-        if (data instanceof List) return (List<T>) data;
-        if (data instanceof Collection) return new ArrayList<>((Collection<T>) data);
-
-        List<T> list = new ArrayList<>();
-        data.forEach(list::add);
-        return list;
-    }
-
-    // ==================================================
-    // Extracting file names from git repository
+    // Reading data from git repository
     // ==================================================
 
     public static Set<String> getExistingFileNames(Path repositoryPath) {
@@ -73,4 +37,36 @@ public class AnalysisUtils {
         return existingFiles;
     }
 
+    public static String resolveHeadCommitId(Path repositoryPath) {
+        try (Git git = Git.open(repositoryPath.toFile())) {
+            ObjectId head = git.getRepository().resolve(Constants.HEAD);
+            return head != null ? head.name() : null;
+        } catch (IOException _) {
+            return null;
+        }
+    }
+
+    // ==================================================
+    // File path ordering
+    // ==================================================
+
+    /**
+     * Compares file paths by code point, which matches the binary UTF-8 order MongoDB sorts strings in
+     * ({@link String#compareTo} differs for characters outside the BMP).
+     */
+    public static int compareFilePaths(String first, String second) {
+        int i = 0;
+        int j = 0;
+        while (i < first.length() && j < second.length()) {
+            int firstCodePoint = first.codePointAt(i);
+            int secondCodePoint = second.codePointAt(j);
+            if (firstCodePoint != secondCodePoint) {
+                return Integer.compare(firstCodePoint, secondCodePoint);
+            }
+            i += Character.charCount(firstCodePoint);
+            j += Character.charCount(secondCodePoint);
+        }
+        return Integer.compare(first.length() - i, second.length() - j);
+    }
+
 }
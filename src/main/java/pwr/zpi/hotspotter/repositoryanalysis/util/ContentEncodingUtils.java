@@ -0,0 +1,109 @@
+package pwr.zpi.hotspotter.repositoryanalysis.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.experimental.UtilityClass;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+@UtilityClass
+public class ContentEncodingUtils {
+
+    public static final String GZIP = "gzip";
+    public static final String IDENTITY = "identity";
+
+    private static final String ANY = "*";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // ==================================================
+    // Accept-Encoding negotiation
+    // ==================================================
+
+    /**
+     * Picks the supported content coding with the highest quality value in the {@code Accept-Encoding} header,
+     * preferring earlier entries of {@code supported} on ties. Returns {@code null} when none is acceptable.
+     */
+    public static String negotiate(String acceptEncoding, List<String> supported) {
+        Map<String, Double> qualities = parseAcceptEncoding(acceptEncoding);
+
+        String best = null;
+        double bestQuality = 0.0;
+        for (String coding : supported) {
+            double quality = qualities.getOrDefault(coding, qualities.getOrDefault(ANY, implicitQuality(coding)));
+            if (quality > bestQuality) {
+                best = coding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    // Identity is acceptable unless explicitly refused, but preferred least
+    private static double implicitQuality(String coding) {
+        return coding.equals(IDENTITY) ? 0.001 : 0.0;
+    }
+
+    private static Map<String, Double> parseAcceptEncoding(String acceptEncoding) {
+        Map<String, Double> qualities = new HashMap<>();
+        if (acceptEncoding == null || acceptEncoding.isBlank()) return qualities;
+
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.trim().split(";");
+            String coding = parts[0].trim().toLowerCase();
+            if (coding.isEmpty()) continue;
+
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException _) {
+                        quality = 0.0;
+                    }
+                }
+            }
+            qualities.put(coding, quality);
+        }
+        return qualities;
+    }
+
+    // ==================================================
+    // Compressed JSON serialization
+    // ==================================================
+
+    /**
+     * Serializes the value with a {@link JsonGenerator} writing straight into a gzip stream, so the uncompressed
+     * JSON is never held in memory.
+     */
+    public static byte[] writeGzipJson(ObjectMapper objectMapper, Object value) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, BUFFER_SIZE);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(gzip)) {
+            objectMapper.writeValue(generator, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize JSON payload", e);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Reads the uncompressed size (modulo 2^32) from the gzip trailer.
+     */
+    public static long gzipUncompressedSize(byte[] gzipData) {
+        int length = gzipData.length;
+        if (length < 4) return 0L;
+
+        return (gzipData[length - 4] & 0xFFL)
+                | (gzipData[length - 3] & 0xFFL) << 8
+                | (gzipData[length - 2] & 0xFFL) << 16
+                | (gzipData[length - 1] & 0xFFL) << 24;
+    }
+
+}
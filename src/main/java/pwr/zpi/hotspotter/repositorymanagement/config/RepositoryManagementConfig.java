@@ -1,5 +1,7 @@
 package pwr.zpi.hotspotter.repositorymanagement.config;
 
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -8,6 +10,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 @Data
 @Validated
 @Configuration
@@ -17,12 +22,81 @@ public class RepositoryManagementConfig {
     @NotBlank(message = "Base directory for repositories must be configured")
     private String baseDirectory;
 
+    /**
+     * Directory for per-analysis worktrees, defaults to {@code .worktrees} inside the base directory.
+     */
+    private String worktreeDirectory;
+
+    /**
+     * Runs each analysis in its own linked worktree pinned to the analyzed commit instead of the shared checkout.
+     */
+    @NotNull
+    private Boolean analysisWorktreesEnabled = true;
+
     @NotNull
     @Min(value = 1, message = "Minimum free space must be at least 1 GB")
     private Long minFreeSpaceGb = 10L;
 
+    /**
+     * How often free space is read from the file store, in between it is estimated from the usage ledger.
+     */
+    @NotNull
+    @Min(value = 0, message = "Free space refresh interval cannot be negative")
+    private Integer freeSpaceRefreshSeconds = 30;
+
+    @NotNull
+    private CleanupStrategy cleanupStrategy = CleanupStrategy.GREEDY_DUAL_SIZE_FREQUENCY;
+
+    @NotNull
+    private Boolean evictionEnabled = true;
+
+    @NotNull
+    @Min(value = 1, message = "High watermark must be at least 1%")
+    @Max(value = 100, message = "High watermark must be at most 100%")
+    private Integer evictionHighWatermarkPercent = 90;
+
+    @NotNull
+    @Min(value = 0, message = "Low watermark cannot be negative")
+    @Max(value = 100, message = "Low watermark must be at most 100%")
+    private Integer evictionLowWatermarkPercent = 80;
+
+    /**
+     * Evicted repositories that are expensive to clone again or often used are compacted instead of deleted.
+     */
+    @NotNull
+    private Boolean compactionEnabled = true;
+
+    @NotNull
+    @Min(value = 0, message = "Minimum clone duration cannot be negative")
+    private Integer compactionMinCloneSeconds = 60;
+
+    @NotNull
+    @Min(value = 1, message = "Minimum access count must be at least 1")
+    private Integer compactionMinAccessCount = 3;
+
+    @NotNull
+    @Min(value = 1, message = "Pack depth must be at least 1")
+    private Integer compactionPackDepth = 50;
+
     @NotNull
-    private CleanupStrategy cleanupStrategy = CleanupStrategy.LEAST_RECENTLY_USED;
+    @Min(value = 1, message = "Pack window must be at least 1")
+    private Integer compactionPackWindow = 250;
+
+    /**
+     * Directory for compacted repositories, for example on a slower volume. Defaults to keeping them in place.
+     */
+    private String coldStorageDirectory;
+
+    /**
+     * Cap on the total size of cold repositories, beyond it the least valuable ones are deleted. {@code 0} disables it.
+     */
+    @NotNull
+    @Min(value = 0, message = "Cold storage size cap cannot be negative")
+    private Long coldStorageMaxSizeGb = 0L;
+
+    @NotNull
+    @Min(value = 1, message = "Eviction interval must be at least 1 second")
+    private Integer evictionIntervalSeconds = 60;
 
     @Min(value = 0)
     private Integer cloneMonitoringIntervalPercentage = 20;
@@ -30,13 +104,113 @@ public class RepositoryManagementConfig {
     @Min(value = 0)
     private Integer updateMonitoringIntervalPercentage = 50;
 
+    @NotNull
+    private GitTransportBackend transportBackend = GitTransportBackend.JGIT;
+
+    /**
+     * Partial clone filter such as {@code blob:none}, supported only by the native backend. Empty clones all objects.
+     */
+    @NotNull
+    private String cloneFilter = "";
+
+    @NotNull
+    private Boolean cloneSingleBranch = true;
+
+    /**
+     * Skips the initial checkout, only useful together with {@code updateWorkingTree} disabled.
+     */
+    @NotNull
+    private Boolean cloneNoCheckout = false;
+
+    @NotNull
+    @Min(value = 1, message = "Native git timeout must be at least 1 minute")
+    private Integer nativeGitTimeoutMinutes = 60;
+
+    /**
+     * Whether updates reset the working tree to the fetched commit, analyses reading files need it enabled.
+     */
+    @NotNull
+    private Boolean updateWorkingTree = true;
+
+    /**
+     * Writes the commit-graph with changed-path Bloom filters after each clone or update, requires the git executable.
+     */
+    @NotNull
+    private Boolean maintenanceEnabled = true;
+
+    @NotNull
+    @Min(value = 1, message = "Maximum pack count must be at least 1")
+    private Integer maintenanceMaxPackCount = 20;
+
+    /**
+     * Takes a lease in MongoDB for every repository operation, needed when instances share the base directory.
+     */
+    @NotNull
+    private Boolean leaseEnabled = true;
+
+    @NotNull
+    @Min(value = 5, message = "Lease TTL must be at least 5 seconds")
+    private Integer leaseTtlSeconds = 60;
+
+    @NotNull
+    @Min(value = 1, message = "Lease acquire timeout must be at least 1 second")
+    private Integer leaseAcquireTimeoutSeconds = 1800;
+
+    @NotNull
+    @Min(value = 10, message = "Lease poll interval must be at least 10 ms")
+    private Long leasePollIntervalMs = 500L;
+
+    /**
+     * Time after which pins of an instance that stopped renewing them no longer protect repositories from eviction.
+     */
+    @NotNull
+    @Min(value = 5, message = "Pin TTL must be at least 5 seconds")
+    private Integer pinTtlSeconds = 300;
+
+    /**
+     * Repositories synced within this window are used without contacting the remote, {@code 0} always syncs.
+     */
+    @NotNull
+    @Min(value = 0, message = "Sync freshness window cannot be negative")
+    private Integer syncFreshnessSeconds = 60;
+
     public enum CleanupStrategy {
         LEAST_RECENTLY_USED,
-        LEAST_FREQUENTLY_USED
+        LEAST_FREQUENTLY_USED,
+        GREEDY_DUAL_SIZE_FREQUENCY
+    }
+
+    public enum GitTransportBackend {
+        JGIT,
+        NATIVE
+    }
+
+    @AssertTrue(message = "Eviction low watermark must not exceed the high watermark")
+    public boolean isEvictionWatermarkOrderValid() {
+        return evictionLowWatermarkPercent == null || evictionHighWatermarkPercent == null
+                || evictionLowWatermarkPercent <= evictionHighWatermarkPercent;
+    }
+
+    public Path getColdStoragePath() {
+        return Path.of(coldStorageDirectory != null && !coldStorageDirectory.isBlank() ? coldStorageDirectory : baseDirectory);
+    }
+
+    public Path getWorktreeBasePath() {
+        return worktreeDirectory != null && !worktreeDirectory.isBlank()
+                ? Path.of(worktreeDirectory)
+                : Path.of(baseDirectory, ".worktrees");
+    }
+
+    public Duration getSyncFreshnessWindow() {
+        return Duration.ofSeconds(syncFreshnessSeconds);
     }
 
     public long getMinFreeSpaceInBytes() {
         return minFreeSpaceGb * 1024L * 1024L * 1024L;
     }
 
+    public long getColdStorageMaxSizeInBytes() {
+        return coldStorageMaxSizeGb * 1024L * 1024L * 1024L;
+    }
+
 }
@@ -0,0 +1,7 @@
+package pwr.zpi.hotspotter.repositorymanagement.exception;
+
+public class RepositoryLeaseException extends RuntimeException {
+    public RepositoryLeaseException(String message) {
+        super(message);
+    }
+}
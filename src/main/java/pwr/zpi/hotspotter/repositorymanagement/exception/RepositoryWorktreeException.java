@@ -0,0 +1,7 @@
+package pwr.zpi.hotspotter.repositorymanagement.exception;
+
+public class RepositoryWorktreeException extends RuntimeException {
+    public RepositoryWorktreeException(String message) {
+        super(message);
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import pwr.zpi.hotspotter.repositorymanagement.parser.RepositoryUrlParser;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Data
@@ -44,8 +45,29 @@ public class RepositoryInfo {
     @NotNull
     private Integer accessCount;
 
+    private LocalDateTime lastSyncedAt;
+
     private Long sizeInBytes;
 
+    private StorageTier storageTier;
+
+    private Long cloneDurationMillis;
+
+    private Double evictionPriority;
+
+    private MaintenanceStatus maintenanceStatus;
+
+    private LocalDateTime lastMaintainedAt;
+
+    private String maintainedCommitId;
+
+    private Integer packCount;
+
+    /**
+     * Fencing token of the lease under which the record was last written, writes with an older token are rejected.
+     */
+    private Long fencingToken;
+
     public RepositoryInfo(RepositoryUrlParser.RepositoryData repositoryData, String localPath) {
         this.remoteUrl = repositoryData.repositoryUrl();
         this.name = repositoryData.name();
@@ -55,6 +77,8 @@ public class RepositoryInfo {
         this.clonedAt = LocalDateTime.now();
         this.lastAccessedAt = LocalDateTime.now();
         this.accessCount = 0;
+        this.lastSyncedAt = this.clonedAt;
+        this.storageTier = StorageTier.HOT;
     }
 
     public void recordUsage() {
@@ -62,4 +86,22 @@ public class RepositoryInfo {
         this.accessCount += 1;
     }
 
+    public void recordSync() {
+        this.lastSyncedAt = LocalDateTime.now();
+    }
+
+    public boolean isSyncedWithin(Duration freshnessWindow) {
+        return lastSyncedAt != null && lastSyncedAt.isAfter(LocalDateTime.now().minus(freshnessWindow));
+    }
+
+    public enum StorageTier {
+        HOT,
+        COLD
+    }
+
+    public enum MaintenanceStatus {
+        SUCCEEDED,
+        FAILED
+    }
+
 }
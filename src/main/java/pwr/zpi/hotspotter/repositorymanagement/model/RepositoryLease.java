@@ -0,0 +1,36 @@
+package pwr.zpi.hotspotter.repositorymanagement.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Cluster-wide lease on operations of one repository, keyed by its normalized URL. Leases not renewed before
+ * {@code expiresAt} may be taken over, abandoned ones are removed by a TTL index.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "repository_leases")
+public class RepositoryLease {
+
+    @Id
+    private String repositoryUrl;
+
+    private String ownerId;
+
+    private Long fencingToken;
+
+    private Instant acquiredAt;
+
+    @Indexed(name = "lease_expiry_idx", expireAfter = "1h")
+    private Instant expiresAt;
+
+}
@@ -0,0 +1,35 @@
+package pwr.zpi.hotspotter.repositorymanagement.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Marks a repository as used by an analysis on some instance, so no instance evicts it. Pins are renewed while held,
+ * pins of instances that stopped without releasing them expire and are removed by a TTL index.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "repository_pins")
+public class RepositoryPin {
+
+    @Id
+    private String id;
+
+    @Indexed(name = "pin_repository_idx")
+    private String repositoryUrl;
+
+    private String ownerId;
+
+    @Indexed(name = "pin_expiry_idx", expireAfter = "1h")
+    private Instant expiresAt;
+
+}
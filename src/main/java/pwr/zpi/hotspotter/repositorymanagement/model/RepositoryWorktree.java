@@ -0,0 +1,9 @@
+package pwr.zpi.hotspotter.repositorymanagement.model;
+
+import java.nio.file.Path;
+
+/**
+ * Checkout used by a single analysis, pinned to {@code commitId}. When {@code linked} is false it is the shared
+ * checkout of the repository itself. {@code pinId} identifies the pin keeping the repository from eviction.
+ */
+public record RepositoryWorktree(Path repositoryPath, Path path, String commitId, boolean linked, String pinId) { }
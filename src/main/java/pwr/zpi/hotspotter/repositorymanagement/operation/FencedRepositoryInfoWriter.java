@@ -0,0 +1,92 @@
+package pwr.zpi.hotspotter.repositorymanagement.operation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryLeaseException;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.repository.RepositoryInfoRepository;
+
+/**
+ * Writes repository infos under the lease held on the repository. Each write stores the fencing token of the lease and
+ * matches only records last written with the same or an older token, so an instance whose lease expired in the middle
+ * of an operation cannot overwrite the work of the instance that took the lease over.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FencedRepositoryInfoWriter {
+
+    private static final String FENCING_TOKEN_FIELD = "fencingToken";
+
+    private final MongoTemplate mongoTemplate;
+    private final RepositoryInfoRepository repositoryInfoRepository;
+    private final RepositoryLeaseManager repositoryLeaseManager;
+
+    public RepositoryInfo save(RepositoryInfo repositoryInfo) {
+        RepositoryLeaseManager.Lease lease = repositoryLeaseManager.checkLease(repositoryInfo.getRemoteUrl());
+        if (lease == null) return repositoryInfoRepository.save(repositoryInfo);
+
+        repositoryInfo.setFencingToken(lease.getFencingToken());
+        if (repositoryInfo.getId() == null || !exists(repositoryInfo)) {
+            return repositoryInfoRepository.save(repositoryInfo);
+        }
+
+        if (mongoTemplate.findAndReplace(fencedQuery(repositoryInfo, lease), repositoryInfo) == null) {
+            throw rejected(repositoryInfo, lease);
+        }
+        return repositoryInfo;
+    }
+
+    /**
+     * Updates only the given fields, the fencing token is stored along with them.
+     */
+    public void update(RepositoryInfo repositoryInfo, Update update) {
+        RepositoryLeaseManager.Lease lease = repositoryLeaseManager.checkLease(repositoryInfo.getRemoteUrl());
+        Query query = Query.query(Criteria.where("_id").is(repositoryInfo.getId()));
+        if (lease != null) {
+            repositoryInfo.setFencingToken(lease.getFencingToken());
+            update.set(FENCING_TOKEN_FIELD, lease.getFencingToken());
+            query = fencedQuery(repositoryInfo, lease);
+        }
+
+        if (mongoTemplate.updateFirst(query, update, RepositoryInfo.class).getMatchedCount() == 0
+                && lease != null && exists(repositoryInfo)) {
+            throw rejected(repositoryInfo, lease);
+        }
+    }
+
+    public void delete(RepositoryInfo repositoryInfo) {
+        RepositoryLeaseManager.Lease lease = repositoryLeaseManager.checkLease(repositoryInfo.getRemoteUrl());
+        if (lease == null) {
+            repositoryInfoRepository.delete(repositoryInfo);
+            return;
+        }
+
+        if (mongoTemplate.remove(fencedQuery(repositoryInfo, lease), RepositoryInfo.class).getDeletedCount() == 0
+                && exists(repositoryInfo)) {
+            throw rejected(repositoryInfo, lease);
+        }
+    }
+
+    private Query fencedQuery(RepositoryInfo repositoryInfo, RepositoryLeaseManager.Lease lease) {
+        return Query.query(Criteria.where("_id").is(repositoryInfo.getId())
+                .and(FENCING_TOKEN_FIELD).not().gt(lease.getFencingToken()));
+    }
+
+    private boolean exists(RepositoryInfo repositoryInfo) {
+        return mongoTemplate.exists(Query.query(Criteria.where("_id").is(repositoryInfo.getId())), RepositoryInfo.class);
+    }
+
+    private RepositoryLeaseException rejected(RepositoryInfo repositoryInfo, RepositoryLeaseManager.Lease lease) {
+        log.error("Rejected write of repository {} with fencing token {}, a newer lease holder has written it",
+                repositoryInfo.getRemoteUrl(), lease.getFencingToken());
+        return new RepositoryLeaseException("Lease on " + repositoryInfo.getRemoteUrl() + " with fencing token "
+                + lease.getFencingToken() + " was superseded, aborting the operation");
+    }
+
+}
@@ -3,18 +3,17 @@ package pwr.zpi.hotspotter.repositorymanagement.operation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
-import org.eclipse.jgit.api.CloneCommand;
-import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.springframework.stereotype.Component;
 import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
 import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryCloneException;
 import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
-import pwr.zpi.hotspotter.repositorymanagement.repository.RepositoryInfoRepository;
 import pwr.zpi.hotspotter.repositorymanagement.parser.RepositoryUrlParser;
 import pwr.zpi.hotspotter.repositorymanagement.storage.DiskSpaceManager;
+import pwr.zpi.hotspotter.repositorymanagement.transport.GitTransportSelector;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 
 @Slf4j
@@ -24,7 +23,9 @@ public class RepositoryCloner {
 
     private final DiskSpaceManager diskSpaceManager;
     private final RepositoryManagementConfig repositoryManagementConfig;
-    private final RepositoryInfoRepository repositoryInfoRepository;
+    private final FencedRepositoryInfoWriter fencedRepositoryInfoWriter;
+    private final RepositoryLeaseManager repositoryLeaseManager;
+    private final GitTransportSelector gitTransportSelector;
 
     public RepositoryInfo clone(RepositoryUrlParser.RepositoryData repositoryData) {
         String repositoryUrl = repositoryData.repositoryUrl();
@@ -46,6 +47,8 @@ public class RepositoryCloner {
             throw new RepositoryCloneException("Failed to cleanup local directory for repository.");
         }
 
+        repositoryLeaseManager.checkLease(repositoryUrl);
+        long cloneStartTime = System.currentTimeMillis();
         try {
             cloneRepository(repositoryUrl, localPath);
         } catch (GitAPIException e) {
@@ -65,7 +68,7 @@ public class RepositoryCloner {
         }
 
         log.info("Successfully cloned repository {} to {}", repositoryUrl, localPath);
-        return createAndSaveRepositoryInfo(repositoryData, localPath);
+        return createAndSaveRepositoryInfo(repositoryData, localPath, System.currentTimeMillis() - cloneStartTime);
     }
 
     private Path getLocalRepositoryPath(RepositoryUrlParser.RepositoryData repositoryData) {
@@ -93,18 +96,8 @@ public class RepositoryCloner {
         }
     }
 
-    private void cloneRepository(String repositoryUrl, Path localPath) throws GitAPIException {
-        int logIntervalPercentage = repositoryManagementConfig.getCloneMonitoringIntervalPercentage();
-
-        CloneCommand cloneCommand = Git.cloneRepository()
-                .setURI(repositoryUrl)
-                .setDirectory(localPath.toFile())
-                .setProgressMonitor(new ProcessProgressMonitor(logIntervalPercentage))
-                .setCloneAllBranches(false);
-
-        try (Git _ = cloneCommand.call()) {
-            log.debug("Git clone command completed successfully for URL {}", repositoryUrl);
-        }
+    private void cloneRepository(String repositoryUrl, Path localPath) throws GitAPIException, IOException {
+        gitTransportSelector.getTransport().cloneRepository(repositoryUrl, localPath);
     }
 
     private boolean isValidGitRepository(Path localPath) {
@@ -112,13 +105,13 @@ public class RepositoryCloner {
         return gitDir.exists() && gitDir.isDirectory();
     }
 
-    private RepositoryInfo createAndSaveRepositoryInfo(RepositoryUrlParser.RepositoryData repositoryData, Path localPath) {
-        long repositorySize = FileUtils.sizeOfDirectory(localPath.toFile());
+    private RepositoryInfo createAndSaveRepositoryInfo(RepositoryUrlParser.RepositoryData repositoryData, Path localPath,
+                                                       long cloneDurationMillis) {
         RepositoryInfo repositoryInfo = new RepositoryInfo(repositoryData, localPath.toString());
-        repositoryInfo.setSizeInBytes(repositorySize);
-        repositoryInfo.recordUsage();
-        repositoryInfoRepository.save(repositoryInfo);
-        return repositoryInfo;
+        repositoryInfo.setCloneDurationMillis(cloneDurationMillis);
+        diskSpaceManager.refreshRepositorySize(repositoryInfo);
+        diskSpaceManager.recordAccess(repositoryInfo);
+        return fencedRepositoryInfoWriter.save(repositoryInfo);
     }
 
 }
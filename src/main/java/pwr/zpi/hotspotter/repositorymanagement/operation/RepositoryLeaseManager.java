@@ -0,0 +1,212 @@
+package pwr.zpi.hotspotter.repositorymanagement.operation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryLeaseException;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryLease;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mongo-backed leases that keep instances sharing the repository storage from operating on the same repository at
+ * once. A lease is taken by upserting its document only when absent or expired, renewed by a heartbeat while held,
+ * and carries a fencing token from a global sequence, so a holder whose lease expired can be told apart.
+ * Expiry is judged by the clock of the Mongo server, so instances with skewed clocks agree on it; the holder counts
+ * its own validity from the last successful renewal with the monotonic clock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryLeaseManager {
+
+    private static final String SEQUENCE_COLLECTION = "repository_lease_sequences";
+    private static final String FENCING_SEQUENCE_ID = "fencing_token";
+    private static final Document SERVER_TIME_COMMAND = new Document("isMaster", 1);
+
+    private final MongoTemplate mongoTemplate;
+    private final RepositoryManagementConfig repositoryManagementConfig;
+    private final String ownerId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    private final Map<String, Lease> heldLeases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("repository-lease-heartbeat").daemon().factory());
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return repositoryManagementConfig.getLeaseEnabled();
+    }
+
+    /**
+     * Waits until the lease is acquired or the acquire timeout passes.
+     */
+    public Lease acquire(String repositoryUrl) {
+        long deadline = System.currentTimeMillis() + repositoryManagementConfig.getLeaseAcquireTimeoutSeconds() * 1000L;
+
+        while (true) {
+            Lease lease = tryAcquire(repositoryUrl);
+            if (lease != null) return lease;
+
+            if (System.currentTimeMillis() >= deadline) {
+                throw new RepositoryLeaseException("Timed out waiting for another instance to finish with " + repositoryUrl);
+            }
+
+            try {
+                Thread.sleep(repositoryManagementConfig.getLeasePollIntervalMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RepositoryLeaseException("Interrupted while waiting for lease on " + repositoryUrl);
+            }
+        }
+    }
+
+    /**
+     * @return the lease, or {@code null} when another instance holds it
+     */
+    public Lease tryAcquire(String repositoryUrl) {
+        long requestedAt = System.nanoTime();
+        Instant now = currentServerTime();
+        Query query = Query.query(Criteria.where("_id").is(repositoryUrl).and("expiresAt").gt(now));
+        if (mongoTemplate.exists(query, RepositoryLease.class)) return null;
+
+        long fencingToken = nextFencingToken();
+        Query available = Query.query(Criteria.where("_id").is(repositoryUrl).and("expiresAt").lte(now));
+        Update update = new Update()
+                .set("ownerId", ownerId)
+                .set("fencingToken", fencingToken)
+                .set("acquiredAt", now)
+                .set("expiresAt", now.plus(getTtl()));
+
+        try {
+            mongoTemplate.upsert(available, update, RepositoryLease.class);
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+
+        Lease lease = new Lease(repositoryUrl, fencingToken);
+        lease.validUntilNanos = requestedAt + getTtl().toNanos();
+        heldLeases.put(repositoryUrl, lease);
+        long renewIntervalMs = Math.max(1L, getTtl().toMillis() / 3);
+        lease.heartbeat = heartbeatExecutor.scheduleAtFixedRate(() -> renew(lease), renewIntervalMs, renewIntervalMs, TimeUnit.MILLISECONDS);
+        log.debug("Acquired lease on {} with fencing token {}", repositoryUrl, fencingToken);
+        return lease;
+    }
+
+    public void release(Lease lease) {
+        lease.heartbeat.cancel(false);
+        heldLeases.remove(lease.getRepositoryUrl(), lease);
+        if (lease.isLost()) {
+            log.warn("Lease on {} with fencing token {} expired before the operation finished",
+                    lease.getRepositoryUrl(), lease.getFencingToken());
+        }
+        mongoTemplate.remove(leaseQuery(lease), RepositoryLease.class);
+    }
+
+    /**
+     * Fails the running operation unless this instance still holds the lease on the repository. Called before
+     * touching git state or saving the repository info.
+     *
+     * @return the held lease, or {@code null} when leases are disabled
+     */
+    public Lease checkLease(String repositoryUrl) {
+        if (!isEnabled()) return null;
+
+        Lease lease = heldLeases.get(repositoryUrl);
+        if (lease == null) {
+            throw new RepositoryLeaseException("No lease held on " + repositoryUrl);
+        }
+        if (lease.isLost()) {
+            throw new RepositoryLeaseException("Lease on " + repositoryUrl + " with fencing token "
+                    + lease.getFencingToken() + " was lost, aborting the operation");
+        }
+        return lease;
+    }
+
+    private void renew(Lease lease) {
+        try {
+            long requestedAt = System.nanoTime();
+            Update update = Update.update("expiresAt", currentServerTime().plus(getTtl()));
+            if (mongoTemplate.updateFirst(leaseQuery(lease), update, RepositoryLease.class).getMatchedCount() == 0) {
+                lease.lost = true;
+                lease.heartbeat.cancel(false);
+                log.error("Lost lease on {} with fencing token {}", lease.getRepositoryUrl(), lease.getFencingToken());
+            } else {
+                lease.validUntilNanos = requestedAt + getTtl().toNanos();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to renew lease on {}: {}", lease.getRepositoryUrl(), e.getMessage());
+        }
+    }
+
+    private Query leaseQuery(Lease lease) {
+        return Query.query(Criteria.where("_id").is(lease.getRepositoryUrl()).and("fencingToken").is(lease.getFencingToken()));
+    }
+
+    /**
+     * {@code isMaster} reports the server clock without requiring monitoring privileges.
+     */
+    private Instant currentServerTime() {
+        return mongoTemplate.executeCommand(SERVER_TIME_COMMAND).getDate("localTime").toInstant();
+    }
+
+    private long nextFencingToken() {
+        Document sequence = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(FENCING_SEQUENCE_ID)),
+                new Update().inc("value", 1L),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class,
+                SEQUENCE_COLLECTION);
+        return sequence.get("value", Number.class).longValue();
+    }
+
+    private Duration getTtl() {
+        return Duration.ofSeconds(repositoryManagementConfig.getLeaseTtlSeconds());
+    }
+
+    public static class Lease {
+
+        @Getter
+        private final String repositoryUrl;
+        @Getter
+        private final long fencingToken;
+        private volatile boolean lost;
+        private volatile long validUntilNanos;
+        private ScheduledFuture<?> heartbeat;
+
+        private Lease(String repositoryUrl, long fencingToken) {
+            this.repositoryUrl = repositoryUrl;
+            this.fencingToken = fencingToken;
+        }
+
+        /**
+         * Whether another instance took the lease over or it was not renewed within its TTL.
+         */
+        public boolean isLost() {
+            return lost || System.nanoTime() - validUntilNanos > 0;
+        }
+
+    }
+
+}
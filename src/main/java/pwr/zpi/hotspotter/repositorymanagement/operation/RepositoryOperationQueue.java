@@ -1,39 +1,89 @@
 package pwr.zpi.hotspotter.repositorymanagement.operation;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
 
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
+/**
+ * Serializes operations on a repository. The in-memory lock orders threads of this instance, the outermost holder
+ * additionally takes a cluster-wide lease so instances sharing the storage do not operate on it at once.
+ */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class RepositoryOperationQueue {
 
-    private final ConcurrentHashMap<String, Lock> repositoryLocks = new ConcurrentHashMap<>();
+    private final RepositoryLeaseManager repositoryLeaseManager;
+    private final ConcurrentHashMap<String, ReentrantLock> repositoryLocks = new ConcurrentHashMap<>();
 
     public RepositoryInfo executeOperation(
             String repositoryUrl,
             Supplier<RepositoryInfo> operation) {
 
-        Lock lock = repositoryLocks.computeIfAbsent(repositoryUrl, _ -> new ReentrantLock());
+        ReentrantLock lock = repositoryLocks.computeIfAbsent(repositoryUrl, _ -> new ReentrantLock());
         lock.lock();
 
+        RepositoryLeaseManager.Lease lease = null;
         try {
+            if (lock.getHoldCount() == 1 && repositoryLeaseManager.isEnabled()) {
+                lease = repositoryLeaseManager.acquire(repositoryUrl);
+            }
             return operation.get();
 
         } finally {
-            lock.unlock();
-
-            if (lock.tryLock()) {
-                try {
-                    repositoryLocks.remove(repositoryUrl, lock);
-                } finally {
-                    lock.unlock();
-                }
+            releaseLease(lease);
+            unlock(repositoryUrl, lock);
+        }
+    }
+
+    /**
+     * Runs the operation only if no operation on the repository is in progress, including one started by the
+     * calling thread.
+     *
+     * @return the result of the operation, or {@code false} when the repository is busy
+     */
+    public boolean tryExecuteOperation(String repositoryUrl, BooleanSupplier operation) {
+        ReentrantLock lock = repositoryLocks.computeIfAbsent(repositoryUrl, _ -> new ReentrantLock());
+        if (lock.isHeldByCurrentThread() || !lock.tryLock()) return false;
+
+        RepositoryLeaseManager.Lease lease = null;
+        try {
+            if (repositoryLeaseManager.isEnabled()) {
+                lease = repositoryLeaseManager.tryAcquire(repositoryUrl);
+                if (lease == null) return false;
+            }
+            return operation.getAsBoolean();
+
+        } finally {
+            releaseLease(lease);
+            unlock(repositoryUrl, lock);
+        }
+    }
+
+    private void releaseLease(RepositoryLeaseManager.Lease lease) {
+        if (lease == null) return;
+
+        try {
+            repositoryLeaseManager.release(lease);
+        } catch (Exception e) {
+            log.warn("Failed to release lease on {}, it expires on its own: {}", lease.getRepositoryUrl(), e.getMessage());
+        }
+    }
+
+    private void unlock(String repositoryUrl, ReentrantLock lock) {
+        lock.unlock();
+
+        if (lock.tryLock()) {
+            try {
+                repositoryLocks.remove(repositoryUrl, lock);
+            } finally {
+                lock.unlock();
             }
         }
     }
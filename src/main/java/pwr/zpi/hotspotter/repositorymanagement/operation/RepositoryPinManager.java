@@ -0,0 +1,102 @@
+package pwr.zpi.hotspotter.repositorymanagement.operation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryPin;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mongo-backed pins that keep repositories used by analyses from being evicted by any instance sharing the storage.
+ * Pins held by this instance are renewed together by a heartbeat.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryPinManager {
+
+    private final MongoTemplate mongoTemplate;
+    private final RepositoryManagementConfig repositoryManagementConfig;
+    private final String ownerId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    private final Set<String> heldPins = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("repository-pin-heartbeat").daemon().factory());
+
+    @PostConstruct
+    public void init() {
+        long renewIntervalMs = Math.max(1L, getTtl().toMillis() / 3);
+        heartbeatExecutor.scheduleAtFixedRate(this::renewPins, renewIntervalMs, renewIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        List.copyOf(heldPins).forEach(this::unpin);
+    }
+
+    public void pin(String repositoryUrl, String pinId) {
+        heldPins.add(pinId);
+        mongoTemplate.save(RepositoryPin.builder()
+                .id(pinId)
+                .repositoryUrl(repositoryUrl)
+                .ownerId(ownerId)
+                .expiresAt(Instant.now().plus(getTtl()))
+                .build());
+        log.debug("Pinned repository {} with pin {}", repositoryUrl, pinId);
+    }
+
+    public void unpin(String pinId) {
+        if (!heldPins.remove(pinId)) return;
+
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(pinId)), RepositoryPin.class);
+        } catch (Exception e) {
+            log.warn("Failed to remove pin {}, it expires on its own: {}", pinId, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether any instance holds an unexpired pin on the repository.
+     */
+    public boolean isPinned(String repositoryUrl) {
+        Query query = Query.query(Criteria.where("repositoryUrl").is(repositoryUrl).and("expiresAt").gt(Instant.now()));
+        return mongoTemplate.exists(query, RepositoryPin.class);
+    }
+
+    private void renewPins() {
+        if (heldPins.isEmpty()) return;
+
+        try {
+            Query query = Query.query(Criteria.where("_id").in(heldPins).and("ownerId").is(ownerId));
+            long renewed = mongoTemplate.updateMulti(query, Update.update("expiresAt", Instant.now().plus(getTtl())),
+                    RepositoryPin.class).getMatchedCount();
+            if (renewed < heldPins.size()) {
+                log.warn("Renewed {} of {} repository pins, the others expired or were released", renewed, heldPins.size());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to renew repository pins: {}", e.getMessage());
+        }
+    }
+
+    private Duration getTtl() {
+        return Duration.ofSeconds(repositoryManagementConfig.getPinTtlSeconds());
+    }
+
+}
@@ -2,20 +2,22 @@ package pwr.zpi.hotspotter.repositorymanagement.operation;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.PullCommand;
-import org.eclipse.jgit.api.PullResult;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.springframework.stereotype.Component;
 import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryLeaseException;
 import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryUpdateException;
 import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
-import pwr.zpi.hotspotter.repositorymanagement.repository.RepositoryInfoRepository;
 import pwr.zpi.hotspotter.repositorymanagement.storage.DiskSpaceManager;
+import pwr.zpi.hotspotter.repositorymanagement.transport.GitTransport;
+import pwr.zpi.hotspotter.repositorymanagement.transport.GitTransportSelector;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Objects;
 
 @Slf4j
 @Component
@@ -23,8 +25,10 @@ import java.nio.file.Path;
 public class RepositoryUpdater {
 
     private final RepositoryManagementConfig repositoryManagementConfig;
-    private final RepositoryInfoRepository repositoryInfoRepository;
+    private final FencedRepositoryInfoWriter fencedRepositoryInfoWriter;
+    private final RepositoryLeaseManager repositoryLeaseManager;
     private final DiskSpaceManager diskSpaceManager;
+    private final GitTransportSelector gitTransportSelector;
 
     public RepositoryInfo update(RepositoryInfo repositoryInfo) {
         log.info("Updating existing repository at {}", repositoryInfo.getLocalPath());
@@ -36,48 +40,98 @@ public class RepositoryUpdater {
         }
 
         try {
-            PullResult result = updateRepository(localPath);
-
-            if (!result.isSuccessful()) {
-                log.error("Failed to update existing repository at {}", localPath);
-                throw new RepositoryUpdateException("Git pull failed.");
-            }
+            updateRepository(repositoryInfo.getRemoteUrl(), localPath);
 
             log.info("Successfully updated existing repository at {}", localPath);
-            updateRepositoryMetadata(repositoryInfo, localPath);
+            updateRepositoryMetadata(repositoryInfo);
             return repositoryInfo;
 
         } catch (GitAPIException e) {
-            log.error("Git pull failed for repository at {}: {}", localPath, e.getMessage(), e);
-            throw new RepositoryUpdateException("Git pull failed: " + e.getMessage());
+            log.error("Git fetch failed for repository at {}: {}", localPath, e.getMessage(), e);
+            throw new RepositoryUpdateException("Git fetch failed: " + e.getMessage());
 
         } catch (IOException e) {
-            log.error("IO error during git pull for repository at {}: {}", localPath, e.getMessage(), e);
-            throw new RepositoryUpdateException("IO error during git pull: " + e.getMessage());
+            log.error("IO error during git fetch for repository at {}: {}", localPath, e.getMessage(), e);
+            throw new RepositoryUpdateException("IO error during git fetch: " + e.getMessage());
+
+        } catch (RepositoryUpdateException | RepositoryLeaseException e) {
+            throw e;
 
         } catch (Exception e) {
-            log.error("Unexpected error during git pull for repository at {}: {}", localPath, e.getMessage(), e);
-            throw new RepositoryUpdateException("Unexpected error during git pull: " + e.getMessage());
+            log.error("Unexpected error during git fetch for repository at {}: {}", localPath, e.getMessage(), e);
+            throw new RepositoryUpdateException("Unexpected error during git fetch: " + e.getMessage());
         }
     }
 
-    private PullResult updateRepository(Path localPath) throws GitAPIException, IOException {
-        int logIntervalPercentage = repositoryManagementConfig.getUpdateMonitoringIntervalPercentage();
+    /**
+     * Fetches only the tracked branch with a forced refspec and moves the local branch to it, so diverged and
+     * force-pushed histories are followed without merging or re-cloning. The working tree is reset only when
+     * {@code repositories.update-working-tree} is enabled. The lease is checked before each change to git state.
+     */
+    private void updateRepository(String repositoryUrl, Path localPath) throws GitAPIException, IOException {
+        GitTransport transport = gitTransportSelector.getTransport();
 
         try (Git git = Git.open(localPath.toFile())) {
-            PullCommand pullCommand = git.pull()
-                    .setProgressMonitor(new ProcessProgressMonitor(logIntervalPercentage))
-                    .setRemote("origin");
+            Repository repository = git.getRepository();
+            String branch = repository.getBranch();
+            if (branch == null || ObjectId.isId(branch)) {
+                throw new RepositoryUpdateException("Repository at " + localPath + " is not on a branch.");
+            }
+
+            String remoteBranch = Objects.requireNonNullElse(
+                    new BranchConfig(repository.getConfig(), branch).getMerge(), Constants.R_HEADS + branch);
+            String trackingRef = Constants.R_REMOTES + GitTransport.REMOTE + "/" + Repository.shortenRefName(remoteBranch);
+
+            ObjectId previous = repository.resolve(trackingRef);
+            repositoryLeaseManager.checkLease(repositoryUrl);
+            transport.fetchBranch(localPath, remoteBranch, trackingRef);
+            repository.getRefDatabase().refresh();
+
+            ObjectId target = repository.resolve(trackingRef);
+            if (target == null) {
+                throw new RepositoryUpdateException("Tracked branch " + remoteBranch + " does not exist on the remote.");
+            }
+            if (previous != null && !previous.equals(target) && isRewritten(repository, previous, target)) {
+                log.info("History of {} was rewritten on the remote, following it without re-cloning", remoteBranch);
+            }
+            if (target.equals(repository.resolve(Constants.HEAD))) {
+                log.debug("Repository at {} is already up to date", localPath);
+                return;
+            }
+
+            repositoryLeaseManager.checkLease(repositoryUrl);
+            if (repositoryManagementConfig.getUpdateWorkingTree()) {
+                transport.resetWorkingTree(localPath, target.name());
+            } else {
+                moveBranch(repository, Constants.R_HEADS + branch, target);
+            }
+        }
+    }
+
+    private boolean isRewritten(Repository repository, ObjectId previous, ObjectId target) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            return !revWalk.isMergedInto(revWalk.parseCommit(previous), revWalk.parseCommit(target));
+        }
+    }
+
+    private void moveBranch(Repository repository, String branchRef, ObjectId target) throws IOException {
+        RefUpdate refUpdate = repository.updateRef(branchRef);
+        refUpdate.setNewObjectId(target);
+        refUpdate.setForceUpdate(true);
+        refUpdate.setRefLogMessage("hotspotter: fetch and reset", false);
 
-            return pullCommand.call();
+        RefUpdate.Result result = refUpdate.update();
+        if (result != RefUpdate.Result.FAST_FORWARD && result != RefUpdate.Result.FORCED
+                && result != RefUpdate.Result.NEW && result != RefUpdate.Result.NO_CHANGE) {
+            throw new RepositoryUpdateException("Failed to move branch " + branchRef + ": " + result);
         }
     }
 
-    private void updateRepositoryMetadata(RepositoryInfo repositoryInfo, Path localPath) {
-        long repositorySize = FileUtils.sizeOfDirectory(localPath.toFile());
-        repositoryInfo.setSizeInBytes(repositorySize);
-        repositoryInfo.recordUsage();
-        repositoryInfoRepository.save(repositoryInfo);
+    private void updateRepositoryMetadata(RepositoryInfo repositoryInfo) {
+        diskSpaceManager.refreshRepositorySize(repositoryInfo);
+        diskSpaceManager.recordAccess(repositoryInfo);
+        repositoryInfo.recordSync();
+        fencedRepositoryInfoWriter.save(repositoryInfo);
     }
 
 }
@@ -0,0 +1,92 @@
+package pwr.zpi.hotspotter.repositorymanagement.operation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.lib.Constants;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryWorktreeException;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryWorktree;
+import pwr.zpi.hotspotter.repositorymanagement.transport.GitCommandRunner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates per-analysis linked worktrees sharing the object store of the cached repository, so analyses of the same
+ * repository run in parallel without reading a checkout that is being updated or written to by a build.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryWorktreeManager {
+
+    private final RepositoryManagementConfig repositoryManagementConfig;
+    private final GitCommandRunner gitCommandRunner;
+    private final RepositoryPinManager repositoryPinManager;
+    private final Set<RepositoryWorktree> linkedWorktrees = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Removes the worktrees this instance created and still holds. The worktree directory may be shared with other
+     * instances, so it is never cleared as a whole; metadata of worktrees whose directories are gone is pruned per
+     * repository on the next checkout.
+     */
+    @PreDestroy
+    public void shutdown() {
+        linkedWorktrees.forEach(this::release);
+    }
+
+    /**
+     * The worktree takes over the pin taken when the repository was synced, in both modes, and releases it together
+     * with the worktree, so the repository is not evicted while the analysis reads it.
+     */
+    public RepositoryWorktree checkout(RepositoryInfo repositoryInfo, String commitId, String name, String pinId) {
+        Path repositoryPath = Path.of(repositoryInfo.getLocalPath());
+        if (!repositoryManagementConfig.getAnalysisWorktreesEnabled()) {
+            return new RepositoryWorktree(repositoryPath, repositoryPath, commitId, false, pinId);
+        }
+
+        Path worktreePath = repositoryManagementConfig.getWorktreeBasePath().resolve(name);
+        String revision = commitId != null ? commitId : Constants.HEAD;
+
+        try {
+            gitCommandRunner.run(repositoryPath, List.of("git", "worktree", "prune"));
+            gitCommandRunner.run(repositoryPath, List.of("git", "worktree", "add", "--detach", "--quiet",
+                    worktreePath.toString(), revision));
+            log.info("Checked out {} of {} into worktree {}", revision, repositoryPath, worktreePath);
+
+            RepositoryWorktree worktree = new RepositoryWorktree(repositoryPath, worktreePath, commitId, true, pinId);
+            linkedWorktrees.add(worktree);
+            return worktree;
+
+        } catch (IOException e) {
+            repositoryPinManager.unpin(pinId);
+            throw new RepositoryWorktreeException("Failed to create worktree for " + repositoryPath + ": " + e.getMessage());
+        }
+    }
+
+    public void release(RepositoryWorktree worktree) {
+        if (!worktree.linked()) {
+            repositoryPinManager.unpin(worktree.pinId());
+            return;
+        }
+        if (!linkedWorktrees.remove(worktree)) return;
+
+        try {
+            gitCommandRunner.run(worktree.repositoryPath(), List.of("git", "worktree", "remove", "--force",
+                    worktree.path().toString()));
+        } catch (IOException e) {
+            log.warn("Failed to remove worktree {}, deleting it: {}", worktree.path(), e.getMessage());
+            FileUtils.deleteQuietly(worktree.path().toFile());
+        } finally {
+            repositoryPinManager.unpin(worktree.pinId());
+        }
+    }
+
+}
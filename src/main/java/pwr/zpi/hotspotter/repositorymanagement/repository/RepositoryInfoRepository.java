@@ -4,7 +4,6 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
 
-import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,8 +11,4 @@ public interface RepositoryInfoRepository extends MongoRepository<RepositoryInfo
 
     Optional<RepositoryInfo> findByNameAndOwnerAndPlatform(String name, String owner, String platform);
 
-    List<RepositoryInfo> findAllByOrderByLastAccessedAtAsc();
-
-    List<RepositoryInfo> findAllByOrderByAccessCountAsc();
-
 }
@@ -4,18 +4,26 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jgit.api.Git;
 import org.springframework.stereotype.Service;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
 import pwr.zpi.hotspotter.repositorymanagement.exception.InvalidRepositoryUrlException;
 import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
 import pwr.zpi.hotspotter.repositorymanagement.repository.RepositoryInfoRepository;
+import pwr.zpi.hotspotter.repositorymanagement.operation.FencedRepositoryInfoWriter;
 import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryCloner;
 import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryOperationQueue;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryPinManager;
 import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryUpdater;
 import pwr.zpi.hotspotter.repositorymanagement.parser.RepositoryUrlParser;
 import pwr.zpi.hotspotter.repositorymanagement.storage.DiskSpaceManager;
+import pwr.zpi.hotspotter.repositorymanagement.storage.RepositoryMaintenanceService;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -27,38 +35,128 @@ public class RepositoryManagementService {
     private final RepositoryCloner repositoryCloner;
     private final RepositoryUpdater repositoryUpdater;
     private final RepositoryOperationQueue repositoryOperationQueue;
+    private final RepositoryPinManager repositoryPinManager;
+    private final FencedRepositoryInfoWriter fencedRepositoryInfoWriter;
     private final DiskSpaceManager diskSpaceManager;
-
+    private final RepositoryMaintenanceService repositoryMaintenanceService;
+    private final RepositoryManagementConfig repositoryManagementConfig;
+    private final Map<String, CompletableFuture<RepositoryInfo>> inFlightSyncs = new ConcurrentHashMap<>();
+
+    /**
+     * Clones or updates the repository. Concurrent callers for the same repository share a single in-flight
+     * sync, and repositories synced within the freshness window are returned without contacting the remote.
+     * Maintenance is scheduled once the sync released the repository, as it needs the repository to itself.
+     */
     public RepositoryInfo cloneOrUpdateRepository(String repositoryUrl) {
         log.info("Processing repository request for URL: {}", repositoryUrl);
-        return repositoryOperationQueue.executeOperation(repositoryUrl, () -> performCloneOrUpdate(repositoryUrl));
+        return syncRepository(parseRepositoryUrl(repositoryUrl));
+    }
+
+    /**
+     * Clones or updates the repository and pins it under {@code pinId} until {@link #unpinRepository} is called.
+     * The pin is recorded before the sync starts, so every instance sees the repository as in use from the moment
+     * it is synced; an eviction already running holds the repository, and the sync waits for it and clones again.
+     */
+    public RepositoryInfo cloneOrUpdateRepository(String repositoryUrl, String pinId) {
+        log.info("Processing repository request for URL: {}", repositoryUrl);
+        RepositoryUrlParser.RepositoryData repositoryData = parseRepositoryUrl(repositoryUrl);
+        repositoryPinManager.pin(repositoryData.repositoryUrl(), pinId);
+
+        try {
+            return syncRepository(repositoryData);
+        } catch (RuntimeException e) {
+            repositoryPinManager.unpin(pinId);
+            throw e;
+        }
+    }
+
+    public void unpinRepository(String pinId) {
+        repositoryPinManager.unpin(pinId);
     }
 
-    private RepositoryInfo performCloneOrUpdate(String repositoryUrl) {
+    private RepositoryInfo syncRepository(RepositoryUrlParser.RepositoryData repositoryData) {
+        String syncKey = repositoryData.repositoryUrl();
+
+        CompletableFuture<RepositoryInfo> sync = new CompletableFuture<>();
+        CompletableFuture<RepositoryInfo> inFlightSync = inFlightSyncs.putIfAbsent(syncKey, sync);
+        if (inFlightSync != null) {
+            log.debug("Joining in-flight sync of repository {}", syncKey);
+            return awaitSync(inFlightSync);
+        }
+
         try {
-            RepositoryUrlParser.RepositoryData repositoryData = repositoryUrlParser.parse(repositoryUrl);
-            Optional<RepositoryInfo> repositoryInfoOptional = repositoryInfoRepository.findByNameAndOwnerAndPlatform(
-                    repositoryData.name(),
-                    repositoryData.owner(),
-                    repositoryData.platform()
-            );
-            RepositoryState repositoryState = determineRepositoryState(repositoryInfoOptional);
-
-            return switch (repositoryState) {
-                case NONEXISTENT -> repositoryCloner.clone(repositoryData);
-                case VALID -> repositoryUpdater.update(repositoryInfoOptional.get());
-                case CORRUPTED, DB_ONLY -> {
-                    cleanupRepository(repositoryInfoOptional.get());
-                    yield repositoryCloner.clone(repositoryData);
-                }
-            };
+            RepositoryInfo repositoryInfo = repositoryOperationQueue.executeOperation(
+                    syncKey, () -> performCloneOrUpdate(repositoryData));
+            sync.complete(repositoryInfo);
+            repositoryMaintenanceService.scheduleMaintenance(repositoryInfo);
+            return repositoryInfo;
+
+        } catch (RuntimeException e) {
+            sync.completeExceptionally(e);
+            throw e;
 
+        } finally {
+            inFlightSyncs.remove(syncKey, sync);
+        }
+    }
+
+    private RepositoryUrlParser.RepositoryData parseRepositoryUrl(String repositoryUrl) {
+        try {
+            return repositoryUrlParser.parse(repositoryUrl);
         } catch (InvalidRepositoryUrlException e) {
             log.error("Invalid repository URL {}: {}", repositoryUrl, e.getMessage(), e);
             throw e;
         }
     }
 
+    private RepositoryInfo awaitSync(CompletableFuture<RepositoryInfo> sync) {
+        try {
+            return sync.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private RepositoryInfo performCloneOrUpdate(RepositoryUrlParser.RepositoryData repositoryData) {
+        Optional<RepositoryInfo> repositoryInfoOptional = repositoryInfoRepository.findByNameAndOwnerAndPlatform(
+                repositoryData.name(),
+                repositoryData.owner(),
+                repositoryData.platform()
+        );
+        RepositoryState repositoryState = determineRepositoryState(repositoryInfoOptional);
+
+        return switch (repositoryState) {
+            case NONEXISTENT -> repositoryCloner.clone(repositoryData);
+            case VALID -> updateIfStale(repositoryInfoOptional.get());
+            case COLD -> reactivateOrClone(repositoryInfoOptional.get(), repositoryData);
+            case CORRUPTED, DB_ONLY -> {
+                cleanupRepository(repositoryInfoOptional.get());
+                yield repositoryCloner.clone(repositoryData);
+            }
+        };
+    }
+
+    private RepositoryInfo updateIfStale(RepositoryInfo repositoryInfo) {
+        if (!repositoryInfo.isSyncedWithin(repositoryManagementConfig.getSyncFreshnessWindow())) {
+            return repositoryUpdater.update(repositoryInfo);
+        }
+
+        log.info("Repository at {} was synced at {}, skipping update", repositoryInfo.getLocalPath(), repositoryInfo.getLastSyncedAt());
+        diskSpaceManager.recordAccess(repositoryInfo);
+        return fencedRepositoryInfoWriter.save(repositoryInfo);
+    }
+
+    private RepositoryInfo reactivateOrClone(RepositoryInfo repositoryInfo, RepositoryUrlParser.RepositoryData repositoryData) {
+        try {
+            return updateIfStale(diskSpaceManager.reactivateRepository(repositoryInfo));
+        } catch (Exception e) {
+            log.warn("Failed to reactivate cold repository at {}, cloning it again: {}", repositoryInfo.getLocalPath(), e.getMessage());
+            cleanupRepository(repositoryInfo);
+            return repositoryCloner.clone(repositoryData);
+        }
+    }
+
     private RepositoryState determineRepositoryState(Optional<RepositoryInfo> repositoryInfoOptional) {
         if (repositoryInfoOptional.isEmpty()) return RepositoryState.NONEXISTENT;
 
@@ -68,6 +166,7 @@ public class RepositoryManagementService {
         if (!Files.exists(localPath)) return RepositoryState.DB_ONLY;
         if (!Files.isReadable(localPath) && !Files.isWritable(localPath)) return RepositoryState.CORRUPTED;
         if (!isValidGitRepository(localPath)) return RepositoryState.CORRUPTED;
+        if (repositoryInfo.getStorageTier() == RepositoryInfo.StorageTier.COLD) return RepositoryState.COLD;
 
         return RepositoryState.VALID;
     }
@@ -89,12 +188,12 @@ public class RepositoryManagementService {
     }
 
     private void cleanupRepository(RepositoryInfo repositoryInfo) {
-        repositoryInfoRepository.delete(repositoryInfo);
-        diskSpaceManager.deleteRepositoryDirectory(Path.of(repositoryInfo.getLocalPath()).toFile());
+        diskSpaceManager.deleteRepository(repositoryInfo);
     }
 
     private enum RepositoryState {
         VALID,
+        COLD,
         CORRUPTED,
         DB_ONLY,
         NONEXISTENT
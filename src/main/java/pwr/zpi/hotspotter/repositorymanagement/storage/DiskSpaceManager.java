@@ -4,9 +4,19 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
 import org.springframework.stereotype.Component;
 import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryLeaseException;
 import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.operation.FencedRepositoryInfoWriter;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryLeaseManager;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryOperationQueue;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryPinManager;
 import pwr.zpi.hotspotter.repositorymanagement.repository.RepositoryInfoRepository;
 
 import java.io.File;
@@ -15,6 +25,8 @@ import java.nio.file.FileStore;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Component
@@ -23,6 +35,16 @@ public class DiskSpaceManager {
 
     private final RepositoryInfoRepository repositoryInfoRepository;
     private final RepositoryManagementConfig repositoryManagementConfig;
+    private final RepositoryPinManager repositoryPinManager;
+    private final RepositoryOperationQueue repositoryOperationQueue;
+    private final RepositoryEvictionPolicy repositoryEvictionPolicy;
+    private final RepositoryColdStorage repositoryColdStorage;
+    private final RepositoryLeaseManager repositoryLeaseManager;
+    private final FencedRepositoryInfoWriter fencedRepositoryInfoWriter;
+
+    // Ledger of the space used by cached repositories, kept in step with RepositoryInfo.sizeInBytes
+    private final AtomicLong totalUsageBytes = new AtomicLong();
+    private volatile FreeSpaceSample freeSpaceSample;
 
     @PostConstruct
     public void init() {
@@ -36,6 +58,158 @@ public class DiskSpaceManager {
         } catch (IOException e) {
             log.error("Failed to create base directory: {}", e.getMessage(), e);
         }
+
+        List<RepositoryInfo> repositories = repositoryInfoRepository.findAll();
+        repositoryEvictionPolicy.initialize(repositories);
+        totalUsageBytes.set(repositories.stream().mapToLong(this::getLedgerSize).sum());
+        log.info("Cached repositories use {}", FileUtils.byteCountToDisplaySize(totalUsageBytes.get()));
+    }
+
+    public long getTotalUsageBytes() {
+        return totalUsageBytes.get();
+    }
+
+    /**
+     * Records a use of the repository and updates its eviction priority, the caller saves the repository info.
+     */
+    public void recordAccess(RepositoryInfo repositoryInfo) {
+        repositoryInfo.recordUsage();
+        repositoryEvictionPolicy.recordAccess(repositoryInfo);
+    }
+
+    /**
+     * Measures the repository and records its new size on the repository info and in the usage ledger.
+     */
+    public void refreshRepositorySize(RepositoryInfo repositoryInfo) {
+        long previousSize = getLedgerSize(repositoryInfo);
+        repositoryInfo.setSizeInBytes(measureRepositorySize(Path.of(repositoryInfo.getLocalPath())));
+        totalUsageBytes.addAndGet(getLedgerSize(repositoryInfo) - previousSize);
+    }
+
+    /**
+     * Sums the git directory and the file sizes recorded in the index instead of walking the whole checkout.
+     * Untracked files such as build outputs are not counted.
+     */
+    public long measureRepositorySize(Path localPath) {
+        try (Git git = Git.open(localPath.toFile())) {
+            Repository repository = git.getRepository();
+            long size = FileUtils.sizeOfDirectory(repository.getDirectory());
+
+            if (!repository.isBare()) {
+                DirCache dirCache = repository.readDirCache();
+                for (int i = 0; i < dirCache.getEntryCount(); i++) {
+                    size += dirCache.getEntry(i).getLength();
+                }
+            }
+            return size;
+
+        } catch (Exception e) {
+            log.warn("Failed to measure repository at {} from its index, walking the directory: {}", localPath, e.getMessage());
+            return FileUtils.sizeOfDirectory(localPath.toFile());
+        }
+    }
+
+    /**
+     * Deletes the repository directory and its record, releasing its space in the usage ledger.
+     */
+    public boolean deleteRepository(RepositoryInfo repositoryInfo) {
+        repositoryLeaseManager.checkLease(repositoryInfo.getRemoteUrl());
+        File directory = new File(repositoryInfo.getLocalPath());
+        if (directory.exists() && !deleteRepositoryDirectory(directory)) return false;
+
+        fencedRepositoryInfoWriter.delete(repositoryInfo);
+        totalUsageBytes.addAndGet(-getLedgerSize(repositoryInfo));
+        return true;
+    }
+
+    /**
+     * Moves the repository to the cold tier, keeping its objects so the next analysis does not clone it again.
+     */
+    public boolean compactRepository(RepositoryInfo repositoryInfo) {
+        Path localPath = Path.of(repositoryInfo.getLocalPath());
+        Path coldPath = getRepositoryPath(repositoryManagementConfig.getColdStoragePath(), repositoryInfo);
+        long previousSize = getLedgerSize(repositoryInfo);
+        repositoryLeaseManager.checkLease(repositoryInfo.getRemoteUrl());
+
+        try {
+            repositoryInfo.setLocalPath(repositoryColdStorage.compact(localPath, coldPath).toString());
+            repositoryInfo.setStorageTier(RepositoryInfo.StorageTier.COLD);
+            return true;
+
+        } catch (IOException e) {
+            log.error("Failed to compact repository at {}: {}", localPath, e.getMessage(), e);
+            recoverFailedCompaction(repositoryInfo, localPath, coldPath);
+            return false;
+
+        } finally {
+            repositoryInfo.setSizeInBytes(measureRepositorySize(Path.of(repositoryInfo.getLocalPath())));
+            totalUsageBytes.addAndGet(getLedgerSize(repositoryInfo) - previousSize);
+            fencedRepositoryInfoWriter.save(repositoryInfo);
+        }
+    }
+
+    /**
+     * The working tree may already be gone, so a repository whose git directory is intact is kept in place as cold,
+     * reactivation restores the working tree. A partial copy in the cold storage is removed.
+     */
+    private void recoverFailedCompaction(RepositoryInfo repositoryInfo, Path localPath, Path coldPath) {
+        if (!Files.isDirectory(localPath.resolve(Constants.DOT_GIT))) return;
+
+        if (!coldPath.equals(localPath)) {
+            FileUtils.deleteQuietly(coldPath.toFile());
+        }
+        repositoryInfo.setLocalPath(localPath.toString());
+        repositoryInfo.setStorageTier(RepositoryInfo.StorageTier.COLD);
+        log.warn("Keeping repository at {} in the cold tier after the failed compaction", localPath);
+    }
+
+    /**
+     * Moves a cold repository back to the base directory and restores its working tree.
+     */
+    public RepositoryInfo reactivateRepository(RepositoryInfo repositoryInfo) throws GitAPIException, IOException {
+        if (!ensureEnoughFreeSpace()) {
+            throw new IOException("Insufficient disk space or failed cleanup.");
+        }
+
+        Path hotPath = getRepositoryPath(Path.of(repositoryManagementConfig.getBaseDirectory()), repositoryInfo);
+        long previousSize = getLedgerSize(repositoryInfo);
+        repositoryLeaseManager.checkLease(repositoryInfo.getRemoteUrl());
+
+        repositoryInfo.setLocalPath(repositoryColdStorage.reactivate(Path.of(repositoryInfo.getLocalPath()), hotPath).toString());
+        repositoryInfo.setStorageTier(RepositoryInfo.StorageTier.HOT);
+        repositoryInfo.setSizeInBytes(measureRepositorySize(hotPath));
+        totalUsageBytes.addAndGet(getLedgerSize(repositoryInfo) - previousSize);
+        log.info("Reactivated cold repository at {}", hotPath);
+        return fencedRepositoryInfoWriter.save(repositoryInfo);
+    }
+
+    /**
+     * Compaction keeps repositories that are expensive to clone again or often used, others are deleted.
+     */
+    private boolean shouldCompact(RepositoryInfo repositoryInfo) {
+        if (!repositoryManagementConfig.getCompactionEnabled()) return false;
+        if (repositoryInfo.getStorageTier() == RepositoryInfo.StorageTier.COLD) return false;
+
+        long cloneDurationMillis = Objects.requireNonNullElse(repositoryInfo.getCloneDurationMillis(), 0L);
+        int accessCount = Objects.requireNonNullElse(repositoryInfo.getAccessCount(), 0);
+        return cloneDurationMillis >= repositoryManagementConfig.getCompactionMinCloneSeconds() * 1000L
+                || accessCount >= repositoryManagementConfig.getCompactionMinAccessCount();
+    }
+
+    private Path getRepositoryPath(Path directory, RepositoryInfo repositoryInfo) {
+        return directory.resolve(Path.of(repositoryInfo.getPlatform(), repositoryInfo.getOwner(), repositoryInfo.getName()));
+    }
+
+    /**
+     * Only repositories in the base directory count towards the usage of its file store.
+     */
+    private long getLedgerSize(RepositoryInfo repositoryInfo) {
+        return isInBaseDirectory(repositoryInfo) ? Objects.requireNonNullElse(repositoryInfo.getSizeInBytes(), 0L) : 0L;
+    }
+
+    private boolean isInBaseDirectory(RepositoryInfo repositoryInfo) {
+        Path baseDirectory = Path.of(repositoryManagementConfig.getBaseDirectory()).toAbsolutePath();
+        return Path.of(repositoryInfo.getLocalPath()).toAbsolutePath().startsWith(baseDirectory);
     }
 
     public boolean ensureEnoughFreeSpace() {
@@ -70,55 +244,150 @@ public class DiskSpaceManager {
         }
     }
 
+    /**
+     * Queries the file store at most once per refresh interval, in between the last sample is adjusted by the
+     * change in the usage ledger.
+     */
     private long getUsableSpace() throws IOException {
-        Path baseDirectory = Path.of(repositoryManagementConfig.getBaseDirectory());
-        FileStore fileStore = Files.getFileStore(baseDirectory);
-        return fileStore.getUsableSpace();
+        FreeSpaceSample sample = freeSpaceSample;
+        long now = System.currentTimeMillis();
+
+        if (sample == null || now - sample.sampledAt() >= repositoryManagementConfig.getFreeSpaceRefreshSeconds() * 1000L) {
+            Path baseDirectory = Path.of(repositoryManagementConfig.getBaseDirectory());
+            FileStore fileStore = Files.getFileStore(baseDirectory);
+            sample = new FreeSpaceSample(fileStore.getUsableSpace(), totalUsageBytes.get(), now);
+            freeSpaceSample = sample;
+            return sample.usableSpace();
+        }
+
+        return sample.usableSpace() - (totalUsageBytes.get() - sample.totalUsage());
     }
 
     private boolean cleanupRepositories() {
+        try {
+            return evictRepositories(repositoryManagementConfig.getMinFreeSpaceInBytes());
+        } catch (IOException e) {
+            log.error("Error during repository cleanup: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Evicts repositories once the used share of the file store reaches the high watermark, until it drops to the
+     * low watermark.
+     */
+    public void evictToLowWatermark() throws IOException {
+        long totalSpace = Files.getFileStore(Path.of(repositoryManagementConfig.getBaseDirectory())).getTotalSpace();
+        long usedSpace = totalSpace - getUsableSpace();
+        if (usedSpace * 100 < totalSpace * repositoryManagementConfig.getEvictionHighWatermarkPercent()) return;
+
+        long targetUsableSpace = Math.max(repositoryManagementConfig.getMinFreeSpaceInBytes(),
+                totalSpace / 100 * (100 - repositoryManagementConfig.getEvictionLowWatermarkPercent()));
+        log.info("Disk usage reached the high watermark of {}%, evicting repositories",
+                repositoryManagementConfig.getEvictionHighWatermarkPercent());
+        evictRepositories(targetUsableSpace);
+    }
+
+    /**
+     * Compacts or deletes repositories in eviction order until the usable space reaches the target. Only repositories
+     * in the base directory free space on its file store, cold ones kept elsewhere are left to the cold storage cap.
+     */
+    private synchronized boolean evictRepositories(long targetUsableSpace) throws IOException {
+        long spaceNeeded = targetUsableSpace - getUsableSpace();
+        if (spaceNeeded <= 0) return true;
+
         log.info("Starting repositories cleanup using strategy: {}", repositoryManagementConfig.getCleanupStrategy());
+        List<RepositoryInfo> repositories = repositoryEvictionPolicy.orderForEviction(repositoryInfoRepository.findAll());
+        if (repositories.isEmpty()) {
+            log.warn("No repositories available for cleanup.");
+            return false;
+        }
 
-        try {
-            List<RepositoryInfo> repositories = getRepositoriesOrderedByStrategy();
+        long spaceFreed = 0L;
+        boolean compacted = false;
+        for (RepositoryInfo repositoryInfo : repositories) {
+            if (spaceFreed >= spaceNeeded) break;
+            if (!isInBaseDirectory(repositoryInfo)) continue;
+            if (!new File(repositoryInfo.getLocalPath()).exists()) continue;
 
-            if (repositories.isEmpty()) {
-                log.warn("No repositories available for cleanup.");
-                return false;
+            long ledgerSize = getLedgerSize(repositoryInfo);
+            boolean compact = shouldCompact(repositoryInfo);
+            if (evictRepository(repositoryInfo, compact)) {
+                spaceFreed += ledgerSize - (compact ? getLedgerSize(repositoryInfo) : 0L);
+                compacted |= compact;
             }
+        }
 
-            long spaceNeeded = repositoryManagementConfig.getMinFreeSpaceInBytes() - getUsableSpace();
-            long spaceFreed = 0L;
+        if (compacted) {
+            enforceColdStorageCap();
+        }
+        return spaceFreed >= spaceNeeded;
+    }
 
-            for (RepositoryInfo repositoryInfo : repositories) {
-                if (spaceFreed >= spaceNeeded) break;
+    /**
+     * Deletes cold repositories in eviction order while their total size exceeds the cold storage cap.
+     */
+    public synchronized void enforceColdStorageCap() {
+        long maxSize = repositoryManagementConfig.getColdStorageMaxSizeInBytes();
+        if (maxSize <= 0) return;
 
-                long repositorySize = repositoryInfo.getSizeInBytes() != null ? repositoryInfo.getSizeInBytes() : 0L;
-                File localPath = new File(repositoryInfo.getLocalPath());
-                if (deleteRepositoryDirectory(localPath)) {
-                    repositoryInfoRepository.delete(repositoryInfo);
-                    logRemovedRepository(repositoryInfo);
-                    spaceFreed += repositorySize;
-                }
-            }
+        List<RepositoryInfo> coldRepositories = repositoryInfoRepository.findAll().stream()
+                .filter(repositoryInfo -> repositoryInfo.getStorageTier() == RepositoryInfo.StorageTier.COLD)
+                .toList();
+        long coldSize = coldRepositories.stream()
+                .mapToLong(repositoryInfo -> Objects.requireNonNullElse(repositoryInfo.getSizeInBytes(), 0L))
+                .sum();
+        if (coldSize <= maxSize) return;
 
-            return spaceFreed >= spaceNeeded;
+        log.info("Cold repositories use {}, above the cap of {}", FileUtils.byteCountToDisplaySize(coldSize),
+                FileUtils.byteCountToDisplaySize(maxSize));
+        for (RepositoryInfo repositoryInfo : repositoryEvictionPolicy.orderForEviction(coldRepositories)) {
+            if (coldSize <= maxSize) break;
 
-        } catch (IOException e) {
-            log.error("Error during repository cleanup: {}", e.getMessage(), e);
+            long size = Objects.requireNonNullElse(repositoryInfo.getSizeInBytes(), 0L);
+            if (evictRepository(repositoryInfo, false)) {
+                coldSize -= size;
+            }
+        }
+    }
+
+    /**
+     * Repositories being synced or pinned by an analysis on any instance are skipped. The pin is checked while
+     * holding the repository, so a sync pinning it afterwards waits for the eviction and clones the repository again.
+     * The record was read before the repository was held, so it is skipped if it has been written or deleted since.
+     */
+    private boolean evictRepository(RepositoryInfo repositoryInfo, boolean compact) {
+        boolean evicted;
+        try {
+            evicted = repositoryOperationQueue.tryExecuteOperation(repositoryInfo.getRemoteUrl(),
+                    () -> !repositoryPinManager.isPinned(repositoryInfo.getRemoteUrl())
+                            && isUnchanged(repositoryInfo)
+                            && (compact ? compactRepository(repositoryInfo) : deleteRepository(repositoryInfo)));
+        } catch (RepositoryLeaseException e) {
+            log.warn("Stopped evicting repository {}: {}", repositoryInfo.getLocalPath(), e.getMessage());
             return false;
         }
+
+        if (evicted) {
+            repositoryEvictionPolicy.recordEviction(repositoryInfo);
+            logRemovedRepository(repositoryInfo, compact);
+        }
+        return evicted;
     }
 
-    private List<RepositoryInfo> getRepositoriesOrderedByStrategy() {
-        return switch (repositoryManagementConfig.getCleanupStrategy()) {
-            case LEAST_RECENTLY_USED -> repositoryInfoRepository.findAllByOrderByLastAccessedAtAsc();
-            case LEAST_FREQUENTLY_USED -> repositoryInfoRepository.findAllByOrderByAccessCountAsc();
-        };
+    private boolean isUnchanged(RepositoryInfo repositoryInfo) {
+        boolean unchanged = repositoryInfoRepository.findById(repositoryInfo.getId())
+                .map(repositoryInfo::equals)
+                .orElse(false);
+        if (!unchanged) {
+            log.debug("Skipping eviction of repository {} changed since the cleanup started", repositoryInfo.getLocalPath());
+        }
+        return unchanged;
     }
 
-    private void logRemovedRepository(RepositoryInfo toRemove) {
-        log.info("Removing repository: {} (last accessed: {}, access count: {}, size: {})",
+    private void logRemovedRepository(RepositoryInfo toRemove, boolean compacted) {
+        log.info("{} repository: {} (last accessed: {}, access count: {}, size: {})",
+                compacted ? "Compacted" : "Removed",
                 toRemove.getLocalPath(),
                 toRemove.getLastAccessedAt(),
                 toRemove.getAccessCount(),
@@ -140,4 +409,6 @@ public class DiskSpaceManager {
         }
     }
 
+    private record FreeSpaceSample(long usableSpace, long totalUsage, long sampledAt) { }
+
 }
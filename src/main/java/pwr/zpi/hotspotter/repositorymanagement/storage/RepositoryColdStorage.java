@@ -0,0 +1,75 @@
+package pwr.zpi.hotspotter.repositorymanagement.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.transport.GitCommandRunner;
+import pwr.zpi.hotspotter.repositorymanagement.transport.GitTransportSelector;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Moves repositories between the hot tier, a regular checkout, and the cold tier, a git directory without working
+ * tree or index, repacked into a single tightly compressed pack and optionally kept on a slower volume.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryColdStorage {
+
+    private final RepositoryManagementConfig repositoryManagementConfig;
+    private final GitCommandRunner gitCommandRunner;
+    private final GitTransportSelector gitTransportSelector;
+
+    /**
+     * @return the path of the compacted repository
+     */
+    public Path compact(Path localPath, Path coldPath) throws IOException {
+        removeWorkingTree(localPath);
+        gitCommandRunner.run(localPath, List.of("git", "worktree", "prune"));
+        gitCommandRunner.run(localPath, List.of("git", "-c", "pack.compression=9", "repack", "-a", "-d", "-f", "-q",
+                "--depth=" + repositoryManagementConfig.getCompactionPackDepth(),
+                "--window=" + repositoryManagementConfig.getCompactionPackWindow()));
+
+        if (localPath.equals(coldPath)) return localPath;
+
+        FileUtils.deleteDirectory(coldPath.toFile());
+        FileUtils.moveDirectory(localPath.toFile(), coldPath.toFile());
+        return coldPath;
+    }
+
+    /**
+     * Moves the repository back to the hot tier and restores the working tree from the local objects.
+     *
+     * @return the path of the reactivated repository
+     */
+    public Path reactivate(Path localPath, Path hotPath) throws GitAPIException, IOException {
+        if (!localPath.equals(hotPath)) {
+            FileUtils.deleteDirectory(hotPath.toFile());
+            FileUtils.moveDirectory(localPath.toFile(), hotPath.toFile());
+        }
+
+        if (!repositoryManagementConfig.getCloneNoCheckout()) {
+            gitTransportSelector.getTransport().resetWorkingTree(hotPath, Constants.HEAD);
+        }
+        return hotPath;
+    }
+
+    private void removeWorkingTree(Path localPath) throws IOException {
+        try (Stream<Path> entries = Files.list(localPath)) {
+            for (Path entry : entries.filter(entry -> !entry.getFileName().toString().equals(Constants.DOT_GIT)).toList()) {
+                FileUtils.forceDelete(entry.toFile());
+            }
+        }
+        Files.deleteIfExists(localPath.resolve(Constants.DOT_GIT).resolve("index"));
+    }
+
+}
@@ -0,0 +1,36 @@
+package pwr.zpi.hotspotter.repositorymanagement.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evicts repositories in the background once disk usage crosses the high watermark, so clones and updates rarely
+ * have to free space on the request path. Compaction can take minutes, so it runs on its own scheduler.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryEvictionDaemon {
+
+    private final RepositoryManagementConfig repositoryManagementConfig;
+    private final DiskSpaceManager diskSpaceManager;
+
+    @Scheduled(fixedDelayString = "${repositories.eviction-interval-seconds:60}", timeUnit = TimeUnit.SECONDS,
+            scheduler = "repositoryEvictionScheduler")
+    public void evictAheadOfDemand() {
+        if (!repositoryManagementConfig.getEvictionEnabled()) return;
+
+        try {
+            diskSpaceManager.evictToLowWatermark();
+            diskSpaceManager.enforceColdStorageCap();
+        } catch (Exception e) {
+            log.error("Background repository eviction failed: {}", e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package pwr.zpi.hotspotter.repositorymanagement.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Orders repositories for eviction. The GreedyDual-Size-Frequency priority of a repository is
+ * {@code L + frequency * cost / size}, where cost is the time it took to clone it and {@code L} is raised to the
+ * priority of every evicted repository, so repositories not accessed since then age out.
+ */
+@Component
+@RequiredArgsConstructor
+public class RepositoryEvictionPolicy {
+
+    // Used as the re-clone cost of repositories cloned before clone durations were recorded
+    private static final long ESTIMATED_CLONE_BYTES_PER_MILLISECOND = 10_000L;
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+    private final RepositoryManagementConfig repositoryManagementConfig;
+
+    private volatile double inflation;
+
+    /**
+     * Restores {@code L} after a restart from the lowest priority still stored, so new priorities are comparable.
+     */
+    public void initialize(List<RepositoryInfo> repositories) {
+        inflation = repositories.stream()
+                .map(RepositoryInfo::getEvictionPriority)
+                .filter(Objects::nonNull)
+                .min(Double::compare)
+                .orElse(0.0);
+    }
+
+    public void recordAccess(RepositoryInfo repositoryInfo) {
+        repositoryInfo.setEvictionPriority(computePriority(repositoryInfo));
+    }
+
+    public void recordEviction(RepositoryInfo repositoryInfo) {
+        double priority = getPriority(repositoryInfo);
+        synchronized (this) {
+            inflation = Math.max(inflation, priority);
+        }
+    }
+
+    public List<RepositoryInfo> orderForEviction(List<RepositoryInfo> repositories) {
+        Comparator<RepositoryInfo> order = switch (repositoryManagementConfig.getCleanupStrategy()) {
+            case LEAST_RECENTLY_USED -> Comparator.comparing(RepositoryInfo::getLastAccessedAt,
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            case LEAST_FREQUENTLY_USED -> Comparator.comparing(RepositoryInfo::getAccessCount,
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            case GREEDY_DUAL_SIZE_FREQUENCY -> Comparator.comparingDouble(this::getPriority);
+        };
+        return repositories.stream().sorted(order).toList();
+    }
+
+    private double getPriority(RepositoryInfo repositoryInfo) {
+        return Objects.requireNonNullElseGet(repositoryInfo.getEvictionPriority(), () -> computePriority(repositoryInfo));
+    }
+
+    private double computePriority(RepositoryInfo repositoryInfo) {
+        long size = Math.max(1L, Objects.requireNonNullElse(repositoryInfo.getSizeInBytes(), 0L));
+        long cloneCost = Objects.requireNonNullElse(repositoryInfo.getCloneDurationMillis(), size / ESTIMATED_CLONE_BYTES_PER_MILLISECOND);
+        int frequency = Math.max(1, Objects.requireNonNullElse(repositoryInfo.getAccessCount(), 0));
+
+        return inflation + frequency * (double) Math.max(1L, cloneCost) / Math.max(1.0, size / BYTES_PER_MEGABYTE);
+    }
+
+}
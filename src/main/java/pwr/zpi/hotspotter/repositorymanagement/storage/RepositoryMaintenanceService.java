@@ -0,0 +1,143 @@
+package pwr.zpi.hotspotter.repositorymanagement.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryLeaseException;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.operation.FencedRepositoryInfoWriter;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryLeaseManager;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryOperationQueue;
+import pwr.zpi.hotspotter.repositorymanagement.transport.GitCommandRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Keeps cached repositories fast to walk. After a clone or update the commit-graph is rewritten with changed-path
+ * Bloom filters, which lets {@code git log} skip tree diffs for paths a commit did not touch, and the repository
+ * is repacked once fetches have accumulated too many packs. Maintenance runs as a repository operation and is
+ * skipped while the repository is synced, evicted or maintained elsewhere.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepositoryMaintenanceService {
+
+    private static final String PACK_EXTENSION = ".pack";
+
+    private final RepositoryManagementConfig repositoryManagementConfig;
+    private final GitCommandRunner gitCommandRunner;
+    private final DiskSpaceManager diskSpaceManager;
+    private final RepositoryOperationQueue repositoryOperationQueue;
+    private final RepositoryLeaseManager repositoryLeaseManager;
+    private final FencedRepositoryInfoWriter fencedRepositoryInfoWriter;
+
+    @Async("repositoryMaintenanceExecutor")
+    public void scheduleMaintenance(RepositoryInfo repositoryInfo) {
+        if (!repositoryManagementConfig.getMaintenanceEnabled()) return;
+        if (isMaintainedSinceLastSync(repositoryInfo)) return;
+
+        boolean maintained;
+        try {
+            maintained = repositoryOperationQueue.tryExecuteOperation(repositoryInfo.getRemoteUrl(), () -> {
+                maintain(repositoryInfo);
+                return true;
+            });
+        } catch (RepositoryLeaseException e) {
+            log.warn("Stopped maintenance of {}: {}", repositoryInfo.getLocalPath(), e.getMessage());
+            return;
+        }
+        if (!maintained) {
+            log.debug("Repository at {} is busy, skipping maintenance", repositoryInfo.getLocalPath());
+        }
+    }
+
+    private boolean isMaintainedSinceLastSync(RepositoryInfo repositoryInfo) {
+        return repositoryInfo.getMaintenanceStatus() == RepositoryInfo.MaintenanceStatus.SUCCEEDED
+                && repositoryInfo.getLastMaintainedAt() != null && repositoryInfo.getLastSyncedAt() != null
+                && repositoryInfo.getLastMaintainedAt().isAfter(repositoryInfo.getLastSyncedAt());
+    }
+
+    private void maintain(RepositoryInfo repositoryInfo) {
+        Path localPath = Path.of(repositoryInfo.getLocalPath());
+
+        try {
+            String headCommitId = resolveHeadCommitId(localPath);
+            int packCount = countPacks(localPath);
+            boolean repack = packCount > repositoryManagementConfig.getMaintenanceMaxPackCount();
+
+            if (!repack && Objects.equals(headCommitId, repositoryInfo.getMaintainedCommitId())
+                    && repositoryInfo.getMaintenanceStatus() == RepositoryInfo.MaintenanceStatus.SUCCEEDED) {
+                log.debug("Repository at {} is already maintained at {}", localPath, headCommitId);
+                return;
+            }
+
+            long startTime = System.currentTimeMillis();
+            repositoryLeaseManager.checkLease(repositoryInfo.getRemoteUrl());
+            if (repack) {
+                log.info("Repacking {} packs of repository at {}", packCount, localPath);
+                gitCommandRunner.run(localPath, List.of("git", "repack", "-a", "-d", "-q"));
+                packCount = countPacks(localPath);
+                diskSpaceManager.refreshRepositorySize(repositoryInfo);
+                repositoryLeaseManager.checkLease(repositoryInfo.getRemoteUrl());
+            }
+            gitCommandRunner.run(localPath, List.of("git", "commit-graph", "write", "--reachable", "--changed-paths"));
+
+            log.info("Maintained repository at {} in {} ms", localPath, System.currentTimeMillis() - startTime);
+            recordMaintenance(repositoryInfo, RepositoryInfo.MaintenanceStatus.SUCCEEDED, headCommitId, packCount);
+
+        } catch (IOException e) {
+            log.error("Maintenance of repository at {} failed: {}", localPath, e.getMessage(), e);
+            recordMaintenance(repositoryInfo, RepositoryInfo.MaintenanceStatus.FAILED, null, repositoryInfo.getPackCount());
+        }
+    }
+
+    private String resolveHeadCommitId(Path localPath) throws IOException {
+        try (Git git = Git.open(localPath.toFile())) {
+            ObjectId head = git.getRepository().resolve(Constants.HEAD);
+            return head != null ? head.name() : null;
+        }
+    }
+
+    private int countPacks(Path localPath) throws IOException {
+        Path packDirectory = localPath.resolve(Constants.DOT_GIT).resolve("objects").resolve("pack");
+        if (!Files.isDirectory(packDirectory)) return 0;
+
+        try (Stream<Path> files = Files.list(packDirectory)) {
+            return (int) files.filter(file -> file.getFileName().toString().endsWith(PACK_EXTENSION)).count();
+        }
+    }
+
+    /**
+     * Updates only the maintenance fields, so concurrent saves of usage statistics are not overwritten.
+     */
+    private void recordMaintenance(RepositoryInfo repositoryInfo, RepositoryInfo.MaintenanceStatus status,
+                                   String maintainedCommitId, Integer packCount) {
+        LocalDateTime maintainedAt = LocalDateTime.now();
+        repositoryInfo.setMaintenanceStatus(status);
+        repositoryInfo.setLastMaintainedAt(maintainedAt);
+        repositoryInfo.setMaintainedCommitId(maintainedCommitId);
+        repositoryInfo.setPackCount(packCount);
+
+        Update update = new Update()
+                .set("maintenanceStatus", status)
+                .set("lastMaintainedAt", maintainedAt)
+                .set("maintainedCommitId", maintainedCommitId)
+                .set("packCount", packCount)
+                .set("sizeInBytes", repositoryInfo.getSizeInBytes());
+        fencedRepositoryInfoWriter.update(repositoryInfo, update);
+    }
+
+}
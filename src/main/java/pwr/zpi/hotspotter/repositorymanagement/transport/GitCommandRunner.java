@@ -0,0 +1,79 @@
+package pwr.zpi.hotspotter.repositorymanagement.transport;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs git commands without a terminal prompt, failing with the tail of their output on a non-zero exit code.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GitCommandRunner {
+
+    private static final int OUTPUT_TAIL_LINES = 20;
+
+    private final RepositoryManagementConfig repositoryManagementConfig;
+
+    public void run(Path workingDirectory, List<String> command) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(workingDirectory.toFile());
+        processBuilder.redirectErrorStream(true);
+        processBuilder.environment().put("GIT_TERMINAL_PROMPT", "0");
+
+        log.debug("Running {} in {}", command, workingDirectory);
+        Process process = processBuilder.start();
+        Deque<String> outputTail = new ArrayDeque<>();
+        Thread outputReader = Thread.ofVirtual().start(() -> readOutput(process, outputTail));
+
+        try {
+            int timeoutMinutes = repositoryManagementConfig.getNativeGitTimeoutMinutes();
+            if (!process.waitFor(timeoutMinutes, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                throw new IOException("git " + command.get(1) + " timed out after " + timeoutMinutes + " minutes");
+            }
+            outputReader.join(TimeUnit.SECONDS.toMillis(5));
+
+            if (process.exitValue() != 0) {
+                synchronized (outputTail) {
+                    throw new IOException("git " + command.get(1) + " exited with code " + process.exitValue()
+                            + ": " + String.join("\n", outputTail));
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            throw new InterruptedIOException("git " + command.get(1) + " interrupted");
+        }
+    }
+
+    private void readOutput(Process process, Deque<String> outputTail) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.debug("[git] {}", line);
+                synchronized (outputTail) {
+                    if (outputTail.size() == OUTPUT_TAIL_LINES) outputTail.removeFirst();
+                    outputTail.addLast(line);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Stopped reading git output: {}", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package pwr.zpi.hotspotter.repositorymanagement.transport;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Network and checkout operations on local repositories, implemented by JGit or the native git executable.
+ */
+public interface GitTransport {
+
+    String REMOTE = "origin";
+
+    RepositoryManagementConfig.GitTransportBackend getBackend();
+
+    void cloneRepository(String repositoryUrl, Path localPath) throws GitAPIException, IOException;
+
+    /**
+     * Fetches a single remote branch into the given tracking ref, accepting non fast-forward updates.
+     */
+    void fetchBranch(Path localPath, String remoteBranch, String trackingRef) throws GitAPIException, IOException;
+
+    /**
+     * Resets the index and working tree of the current branch to the given commit.
+     */
+    void resetWorkingTree(Path localPath, String commitId) throws GitAPIException, IOException;
+
+}
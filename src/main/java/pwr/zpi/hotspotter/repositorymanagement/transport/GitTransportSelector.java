@@ -0,0 +1,29 @@
+package pwr.zpi.hotspotter.repositorymanagement.transport;
+
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides the transport backend chosen by {@code repositories.transport-backend}.
+ */
+@Component
+public class GitTransportSelector {
+
+    private final RepositoryManagementConfig repositoryManagementConfig;
+    private final Map<RepositoryManagementConfig.GitTransportBackend, GitTransport> transports =
+            new EnumMap<>(RepositoryManagementConfig.GitTransportBackend.class);
+
+    public GitTransportSelector(RepositoryManagementConfig repositoryManagementConfig, List<GitTransport> transports) {
+        this.repositoryManagementConfig = repositoryManagementConfig;
+        transports.forEach(transport -> this.transports.put(transport.getBackend(), transport));
+    }
+
+    public GitTransport getTransport() {
+        return transports.get(repositoryManagementConfig.getTransportBackend());
+    }
+
+}
@@ -0,0 +1,94 @@
+package pwr.zpi.hotspotter.repositorymanagement.transport;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.CloneCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.operation.ProcessProgressMonitor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JGitTransport implements GitTransport {
+
+    private final RepositoryManagementConfig repositoryManagementConfig;
+
+    @Override
+    public RepositoryManagementConfig.GitTransportBackend getBackend() {
+        return RepositoryManagementConfig.GitTransportBackend.JGIT;
+    }
+
+    @Override
+    public void cloneRepository(String repositoryUrl, Path localPath) throws GitAPIException {
+        if (!repositoryManagementConfig.getCloneFilter().isBlank()) {
+            log.warn("Partial clone filter is not supported by JGit, cloning {} with all objects", repositoryUrl);
+        }
+
+        CloneCommand cloneCommand = Git.cloneRepository()
+                .setURI(repositoryUrl)
+                .setDirectory(localPath.toFile())
+                .setProgressMonitor(new ProcessProgressMonitor(repositoryManagementConfig.getCloneMonitoringIntervalPercentage()))
+                .setNoCheckout(repositoryManagementConfig.getCloneNoCheckout());
+
+        if (repositoryManagementConfig.getCloneSingleBranch()) {
+            String defaultBranch = resolveDefaultBranch(repositoryUrl);
+            if (defaultBranch != null) {
+                cloneCommand.setCloneAllBranches(false)
+                        .setBranchesToClone(List.of(defaultBranch))
+                        .setBranch(defaultBranch);
+            } else {
+                log.warn("Default branch of {} could not be resolved, cloning all branches", repositoryUrl);
+            }
+        } else {
+            cloneCommand.setCloneAllBranches(true);
+        }
+
+        try (Git _ = cloneCommand.call()) {
+            log.debug("Git clone command completed successfully for URL {}", repositoryUrl);
+        }
+    }
+
+    /**
+     * JGit clones every branch unless told which one to clone, so the branch the remote {@code HEAD} points to
+     * is looked up first, like {@code git clone --single-branch} does.
+     */
+    private String resolveDefaultBranch(String repositoryUrl) throws GitAPIException {
+        Ref head = Git.lsRemoteRepository()
+                .setRemote(repositoryUrl)
+                .callAsMap()
+                .get(Constants.HEAD);
+        return head != null && head.isSymbolic() ? head.getTarget().getName() : null;
+    }
+
+    @Override
+    public void fetchBranch(Path localPath, String remoteBranch, String trackingRef) throws GitAPIException, IOException {
+        try (Git git = Git.open(localPath.toFile())) {
+            git.fetch()
+                    .setRemote(REMOTE)
+                    .setRefSpecs(new RefSpec("+" + remoteBranch + ":" + trackingRef))
+                    .setTagOpt(TagOpt.NO_TAGS)
+                    .setProgressMonitor(new ProcessProgressMonitor(repositoryManagementConfig.getUpdateMonitoringIntervalPercentage()))
+                    .call();
+        }
+    }
+
+    @Override
+    public void resetWorkingTree(Path localPath, String commitId) throws GitAPIException, IOException {
+        try (Git git = Git.open(localPath.toFile())) {
+            git.reset().setMode(ResetCommand.ResetType.HARD).setRef(commitId).call();
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package pwr.zpi.hotspotter.repositorymanagement.transport;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the git executable, which is faster than JGit on large packs and supports partial clones. Objects left out
+ * by {@code repositories.clone-filter} are fetched lazily by git when a later command needs them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NativeGitTransport implements GitTransport {
+
+    private final RepositoryManagementConfig repositoryManagementConfig;
+    private final GitCommandRunner gitCommandRunner;
+
+    @Override
+    public RepositoryManagementConfig.GitTransportBackend getBackend() {
+        return RepositoryManagementConfig.GitTransportBackend.NATIVE;
+    }
+
+    @Override
+    public void cloneRepository(String repositoryUrl, Path localPath) throws IOException {
+        List<String> command = new ArrayList<>(List.of("git", "clone", "--no-tags"));
+        if (!repositoryManagementConfig.getCloneFilter().isBlank()) {
+            command.add("--filter=" + repositoryManagementConfig.getCloneFilter());
+        }
+        if (repositoryManagementConfig.getCloneSingleBranch()) {
+            command.add("--single-branch");
+        }
+        if (repositoryManagementConfig.getCloneNoCheckout()) {
+            command.add("--no-checkout");
+        }
+        command.addAll(List.of("--", repositoryUrl, localPath.toString()));
+
+        gitCommandRunner.run(localPath.getParent(), command);
+    }
+
+    @Override
+    public void fetchBranch(Path localPath, String remoteBranch, String trackingRef) throws IOException {
+        gitCommandRunner.run(localPath, List.of("git", "fetch", "--no-tags", REMOTE, "+" + remoteBranch + ":" + trackingRef));
+    }
+
+    @Override
+    public void resetWorkingTree(Path localPath, String commitId) throws IOException {
+        gitCommandRunner.run(localPath, List.of("git", "reset", "--hard", "--quiet", commitId));
+    }
+
+}
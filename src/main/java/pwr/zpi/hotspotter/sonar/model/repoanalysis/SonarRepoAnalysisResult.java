@@ -3,6 +3,7 @@ package pwr.zpi.hotspotter.sonar.model.repoanalysis;
 import lombok.Data;
 import lombok.NonNull;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -14,6 +15,7 @@ public class SonarRepoAnalysisResult {
     @Id
     private String id;
     @NonNull
+    @Indexed
     private String repoAnalysisId;
     @NonNull
     private String projectKey;
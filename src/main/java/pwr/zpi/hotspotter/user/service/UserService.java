@@ -3,6 +3,7 @@ package pwr.zpi.hotspotter.user.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import pwr.zpi.hotspotter.user.model.User;
+import pwr.zpi.hotspotter.user.model.analysispreferences.UserAnalysisPreferences;
 import pwr.zpi.hotspotter.user.repository.UserRepository;
 import pwr.zpi.hotspotter.common.exceptions.ObjectNotFoundException;
 
@@ -21,6 +22,12 @@ public class UserService {
                 .orElseThrow(() -> new ObjectNotFoundException("User not found with id: " + id));
     }
 
+    public UserAnalysisPreferences getAnalysisPreferences(String email) {
+        return userRepository.findByEmail(email)
+                .map(User::getAnalysisPreferences)
+                .orElseGet(UserAnalysisPreferences::new);
+    }
+
     public User updateUser(User user) {
         return userRepository.save(user);
     }
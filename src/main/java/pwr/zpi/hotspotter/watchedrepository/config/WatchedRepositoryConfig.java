@@ -0,0 +1,42 @@
+package pwr.zpi.hotspotter.watchedrepository.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "watched-repositories")
+public class WatchedRepositoryConfig {
+
+    @NotNull
+    private Boolean enabled = true;
+
+    /**
+     * Schedule of the background fetch and pre-analysis, should fall in off-peak hours.
+     */
+    @NotBlank(message = "Prefetch schedule must be configured")
+    private String prefetchCron = "0 0 2 * * *";
+
+    /**
+     * Ranges pre-analyzed with default preferences, in months back from today. {@code 0} is the whole history.
+     */
+    @NotNull
+    private List<@Min(value = 0, message = "Pre-analysis range cannot be negative") Integer> preAnalysisRangesMonths =
+            new ArrayList<>(List.of(0));
+
+    /**
+     * Token expected in the webhook header, the webhook is disabled while it is empty.
+     */
+    @NotNull
+    private String webhookSecret = "";
+
+}
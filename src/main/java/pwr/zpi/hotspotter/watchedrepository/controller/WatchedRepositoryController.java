@@ -0,0 +1,41 @@
+package pwr.zpi.hotspotter.watchedrepository.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pwr.zpi.hotspotter.watchedrepository.model.WatchedRepository;
+import pwr.zpi.hotspotter.watchedrepository.service.WatchedRepositoryService;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/admin/watched-repositories")
+public class WatchedRepositoryController {
+
+    private final WatchedRepositoryService watchedRepositoryService;
+
+    @GetMapping
+    public ResponseEntity<List<WatchedRepository>> getWatchedRepositories() {
+        return ResponseEntity.ok(watchedRepositoryService.getWatchedRepositories());
+    }
+
+    @PostMapping
+    public ResponseEntity<WatchedRepository> watchRepository(@Valid @RequestBody WatchRequest request) {
+        return ResponseEntity.ok(watchedRepositoryService.watch(request.repositoryUrl()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> unwatchRepository(@PathVariable String id) {
+        watchedRepositoryService.unwatch(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    public record WatchRequest(
+            @NotBlank(message = "Repository URL is required")
+            String repositoryUrl
+    ) { }
+
+}
@@ -0,0 +1,55 @@
+package pwr.zpi.hotspotter.watchedrepository.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.web.bind.annotation.*;
+import pwr.zpi.hotspotter.watchedrepository.config.WatchedRepositoryConfig;
+import pwr.zpi.hotspotter.watchedrepository.model.WatchedRepository;
+import pwr.zpi.hotspotter.watchedrepository.service.WatchedRepositoryPrefetcher;
+import pwr.zpi.hotspotter.watchedrepository.service.WatchedRepositoryService;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Push notification endpoint, triggers a prefetch of a watched repository. Callers authenticate with the shared
+ * {@code watched-repositories.webhook-secret}.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/webhooks/repositories")
+public class WatchedRepositoryWebhookController {
+
+    public static final String WEBHOOK_TOKEN_HEADER = "X-Webhook-Token";
+
+    private final WatchedRepositoryConfig watchedRepositoryConfig;
+    private final WatchedRepositoryService watchedRepositoryService;
+    private final WatchedRepositoryPrefetcher watchedRepositoryPrefetcher;
+
+    @PostMapping("/push")
+    public ResponseEntity<Void> onPush(@RequestHeader(value = WEBHOOK_TOKEN_HEADER, required = false) String token,
+                                       @Valid @RequestBody PushRequest request) {
+        verifyToken(token);
+
+        WatchedRepository watchedRepository = watchedRepositoryService.getByRepositoryUrl(request.repositoryUrl());
+        watchedRepositoryPrefetcher.trigger(watchedRepository);
+        return ResponseEntity.accepted().build();
+    }
+
+    private void verifyToken(String token) {
+        String secret = watchedRepositoryConfig.getWebhookSecret();
+        if (secret.isBlank() || token == null
+                || !MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            throw new BadCredentialsException("Invalid webhook token");
+        }
+    }
+
+    public record PushRequest(
+            @NotBlank(message = "Repository URL is required")
+            String repositoryUrl
+    ) { }
+
+}
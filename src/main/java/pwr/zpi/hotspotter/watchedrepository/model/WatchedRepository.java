@@ -0,0 +1,39 @@
+package pwr.zpi.hotspotter.watchedrepository.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "watched_repositories")
+public class WatchedRepository {
+
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    private String repositoryUrl;
+
+    private LocalDateTime addedAt;
+
+    private LocalDateTime lastPrefetchedAt;
+
+    private PrefetchStatus lastPrefetchStatus;
+
+    private String lastPrefetchError;
+
+    public enum PrefetchStatus {
+        SUCCEEDED,
+        FAILED
+    }
+
+}
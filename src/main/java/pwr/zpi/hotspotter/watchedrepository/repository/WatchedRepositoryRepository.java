@@ -0,0 +1,14 @@
+package pwr.zpi.hotspotter.watchedrepository.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import pwr.zpi.hotspotter.watchedrepository.model.WatchedRepository;
+
+import java.util.Optional;
+
+@Repository
+public interface WatchedRepositoryRepository extends MongoRepository<WatchedRepository, String> {
+
+    Optional<WatchedRepository> findByRepositoryUrl(String repositoryUrl);
+
+}
@@ -0,0 +1,102 @@
+package pwr.zpi.hotspotter.watchedrepository.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pwr.zpi.hotspotter.repositoryanalysis.service.RepositoryAnalysisService;
+import pwr.zpi.hotspotter.repositorymanagement.service.RepositoryManagementService;
+import pwr.zpi.hotspotter.user.model.analysispreferences.UserAnalysisPreferences;
+import pwr.zpi.hotspotter.watchedrepository.config.WatchedRepositoryConfig;
+import pwr.zpi.hotspotter.watchedrepository.model.WatchedRepository;
+import pwr.zpi.hotspotter.watchedrepository.repository.WatchedRepositoryRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps watched repositories warm. Each prefetch syncs the repository and runs the analyses configured in
+ * {@code watched-repositories.pre-analysis-ranges-months} with default preferences, so matching user requests are
+ * served by analysis deduplication instead of running the pipeline. Prefetches run on {@code repoAnalysisExecutor},
+ * the scheduled job only dispatches them.
+ */
+@Slf4j
+@Service
+public class WatchedRepositoryPrefetcher {
+
+    private final WatchedRepositoryConfig watchedRepositoryConfig;
+    private final WatchedRepositoryRepository watchedRepositoryRepository;
+    private final RepositoryManagementService repositoryManagementService;
+    private final RepositoryAnalysisService repositoryAnalysisService;
+    private final Executor repoAnalysisExecutor;
+    private final Set<String> runningPrefetches = ConcurrentHashMap.newKeySet();
+
+    public WatchedRepositoryPrefetcher(WatchedRepositoryConfig watchedRepositoryConfig,
+                                       WatchedRepositoryRepository watchedRepositoryRepository,
+                                       RepositoryManagementService repositoryManagementService,
+                                       RepositoryAnalysisService repositoryAnalysisService,
+                                       @Qualifier("repoAnalysisExecutor") Executor repoAnalysisExecutor) {
+        this.watchedRepositoryConfig = watchedRepositoryConfig;
+        this.watchedRepositoryRepository = watchedRepositoryRepository;
+        this.repositoryManagementService = repositoryManagementService;
+        this.repositoryAnalysisService = repositoryAnalysisService;
+        this.repoAnalysisExecutor = repoAnalysisExecutor;
+    }
+
+    @Scheduled(cron = "${watched-repositories.prefetch-cron:0 0 2 * * *}")
+    public void prefetchAll() {
+        if (!watchedRepositoryConfig.getEnabled()) return;
+
+        for (WatchedRepository watchedRepository : watchedRepositoryRepository.findAll()) {
+            repoAnalysisExecutor.execute(() -> prefetch(watchedRepository));
+        }
+    }
+
+    @Async("repoAnalysisExecutor")
+    public void trigger(WatchedRepository watchedRepository) {
+        prefetch(watchedRepository);
+    }
+
+    private void prefetch(WatchedRepository watchedRepository) {
+        String repositoryUrl = watchedRepository.getRepositoryUrl();
+        if (!runningPrefetches.add(repositoryUrl)) {
+            log.debug("Prefetch of {} is already running", repositoryUrl);
+            return;
+        }
+
+        try {
+            log.info("Prefetching watched repository {}", repositoryUrl);
+            repositoryManagementService.cloneOrUpdateRepository(repositoryUrl);
+
+            LocalDate today = LocalDate.now();
+            for (Integer rangeMonths : watchedRepositoryConfig.getPreAnalysisRangesMonths()) {
+                LocalDate startDate = rangeMonths > 0 ? today.minusMonths(rangeMonths) : null;
+                // Nobody listens to pre-analysis progress, the emitter only buffers its few events
+                repositoryAnalysisService.runRepositoryAnalysis(
+                        repositoryUrl, startDate, null, new UserAnalysisPreferences(), new SseEmitter(0L));
+            }
+
+            recordPrefetch(watchedRepository, WatchedRepository.PrefetchStatus.SUCCEEDED, null);
+
+        } catch (Exception e) {
+            log.error("Prefetch of watched repository {} failed: {}", repositoryUrl, e.getMessage(), e);
+            recordPrefetch(watchedRepository, WatchedRepository.PrefetchStatus.FAILED, e.getMessage());
+
+        } finally {
+            runningPrefetches.remove(repositoryUrl);
+        }
+    }
+
+    private void recordPrefetch(WatchedRepository watchedRepository, WatchedRepository.PrefetchStatus status, String error) {
+        watchedRepository.setLastPrefetchedAt(LocalDateTime.now());
+        watchedRepository.setLastPrefetchStatus(status);
+        watchedRepository.setLastPrefetchError(error);
+        watchedRepositoryRepository.save(watchedRepository);
+    }
+
+}
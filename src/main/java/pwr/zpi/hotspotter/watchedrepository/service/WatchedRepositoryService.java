@@ -0,0 +1,60 @@
+package pwr.zpi.hotspotter.watchedrepository.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import pwr.zpi.hotspotter.common.exceptions.ObjectNotFoundException;
+import pwr.zpi.hotspotter.repositorymanagement.exception.InvalidRepositoryUrlException;
+import pwr.zpi.hotspotter.repositorymanagement.parser.RepositoryUrlParser;
+import pwr.zpi.hotspotter.watchedrepository.model.WatchedRepository;
+import pwr.zpi.hotspotter.watchedrepository.repository.WatchedRepositoryRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WatchedRepositoryService {
+
+    private final WatchedRepositoryRepository watchedRepositoryRepository;
+    private final RepositoryUrlParser repositoryUrlParser;
+
+    public List<WatchedRepository> getWatchedRepositories() {
+        return watchedRepositoryRepository.findAll();
+    }
+
+    public WatchedRepository watch(String repositoryUrl) {
+        String normalizedUrl = normalize(repositoryUrl);
+        return watchedRepositoryRepository.findByRepositoryUrl(normalizedUrl)
+                .orElseGet(() -> {
+                    log.info("Watching repository {}", normalizedUrl);
+                    return watchedRepositoryRepository.save(WatchedRepository.builder()
+                            .repositoryUrl(normalizedUrl)
+                            .addedAt(LocalDateTime.now())
+                            .build());
+                });
+    }
+
+    public void unwatch(String id) {
+        WatchedRepository watchedRepository = watchedRepositoryRepository.findById(id)
+                .orElseThrow(() -> new ObjectNotFoundException("Watched repository not found: " + id));
+        watchedRepositoryRepository.delete(watchedRepository);
+        log.info("Stopped watching repository {}", watchedRepository.getRepositoryUrl());
+    }
+
+    public WatchedRepository getByRepositoryUrl(String repositoryUrl) {
+        String normalizedUrl = normalize(repositoryUrl);
+        return watchedRepositoryRepository.findByRepositoryUrl(normalizedUrl)
+                .orElseThrow(() -> new ObjectNotFoundException("Repository is not watched: " + normalizedUrl));
+    }
+
+    private String normalize(String repositoryUrl) {
+        try {
+            return repositoryUrlParser.parse(repositoryUrl).repositoryUrl();
+        } catch (InvalidRepositoryUrlException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package pwr.zpi.hotspotter.common.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.test.context.ActiveProfiles;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryLease;
+import pwr.zpi.hotspotter.sonar.model.repoanalysis.SonarRepoAnalysisResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(MongoIndexInitializer.class)
+class MongoIndexInitializerTest {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoIndexInitializer mongoIndexInitializer;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(FileInfo.class);
+        mongoTemplate.dropCollection(RepositoryLease.class);
+        mongoTemplate.dropCollection(SonarRepoAnalysisResult.class);
+    }
+
+    @Test
+    void createsDeclaredIndexes() {
+        mongoIndexInitializer.createIndexes();
+
+        List<String> fileInfoIndexes = indexNames(FileInfo.class);
+        assertTrue(fileInfoIndexes.contains("analysis_total_commits_idx"));
+        assertTrue(fileInfoIndexes.contains("analysis_code_age_idx"));
+        assertTrue(fileInfoIndexes.contains("analysis_file_idx"));
+        assertTrue(indexNames(RepositoryLease.class).contains("lease_expiry_idx"));
+        assertTrue(indexNames(SonarRepoAnalysisResult.class).contains("repoAnalysisId"));
+    }
+
+    @Test
+    void removesDuplicatedResultsBeforeBuildingUniqueIndex() {
+        FileInfo original = mongoTemplate.insert(fileInfo("analysis", "src/A.java"));
+        mongoTemplate.insert(fileInfo("analysis", "src/A.java"));
+        mongoTemplate.insert(fileInfo("analysis", "src/A.java"));
+        FileInfo otherAnalysis = mongoTemplate.insert(fileInfo("other", "src/A.java"));
+
+        mongoIndexInitializer.createIndexes();
+
+        assertTrue(indexNames(FileInfo.class).contains("analysis_file_idx"));
+        assertEquals(List.of(original.getId(), otherAnalysis.getId()),
+                mongoTemplate.findAll(FileInfo.class).stream().map(FileInfo::getId).sorted().toList());
+    }
+
+    private FileInfo fileInfo(String analysisId, String filePath) {
+        return FileInfo.builder().analysisId(analysisId).filePath(filePath).fileName(filePath).build();
+    }
+
+    private List<String> indexNames(Class<?> entityClass) {
+        return mongoTemplate.indexOps(entityClass).getIndexInfo().stream().map(IndexInfo::getName).toList();
+    }
+
+}
@@ -0,0 +1,119 @@
+package pwr.zpi.hotspotter.repositoryanalysis.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureNode;
+import pwr.zpi.hotspotter.repositoryanalysis.service.RepositoryStructureService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class ResultFormatEncoderTest {
+
+    private static final int FILE_COUNT = 20_000;
+    private static final int BENCHMARK_ITERATIONS = 20;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ResultFormatEncoder resultFormatEncoder = new ResultFormatEncoder(objectMapper);
+
+    @Test
+    void binaryFormatsAreSmallerThanJsonForStructure() throws IOException {
+        assertSmallerThanJson("structure", structure());
+    }
+
+    @Test
+    void binaryFormatsAreSmallerThanJsonForFileResults() throws IOException {
+        assertSmallerThanJson("file results", fileInfos());
+    }
+
+    /**
+     * Run with {@code mvn test -Dbenchmarks=true -Dtest=ResultFormatEncoderTest}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void serializationCpuTime() {
+        RepositoryStructureNode structure = structure();
+        Map<ResultFormat, Long> nanosPerEncode = new EnumMap<>(ResultFormat.class);
+
+        for (ResultFormat format : ResultFormat.values()) {
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                resultFormatEncoder.encode(structure, format);
+            }
+
+            long startTime = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                resultFormatEncoder.encode(structure, format);
+            }
+            nanosPerEncode.put(format, (System.nanoTime() - startTime) / BENCHMARK_ITERATIONS);
+        }
+
+        nanosPerEncode.forEach((format, nanos) ->
+                log.info("Encoding the structure of {} files as {} takes {} ms", FILE_COUNT, format, nanos / 1_000_000.0));
+    }
+
+    private void assertSmallerThanJson(String name, Object value) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(value);
+        JsonNode expected = objectMapper.readTree(json);
+
+        CachedResult gzipJson = resultFormatEncoder.encode(value, ResultFormat.JSON);
+        assertEquals(expected, objectMapper.readTree(decode(gzipJson)));
+        assertTrue(gzipJson.size() < json.length);
+        log.info("{}: JSON {} bytes, gzip JSON {} bytes", name, json.length, gzipJson.size());
+
+        for (ResultFormat format : List.of(ResultFormat.SMILE, ResultFormat.CBOR)) {
+            CachedResult encoded = resultFormatEncoder.encode(value, format);
+
+            assertEquals(expected, format.createMapper(objectMapper).readTree(encoded.data()));
+            assertTrue(encoded.size() < json.length,
+                    () -> format + " (" + encoded.size() + " bytes) is not smaller than JSON (" + json.length + " bytes)");
+            log.info("{}: {} {} bytes ({}% of JSON)", name, format, encoded.size(), 100 * encoded.size() / json.length);
+        }
+    }
+
+    private byte[] decode(CachedResult result) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        result.writeDecoded(output);
+        return output.toByteArray();
+    }
+
+    private RepositoryStructureNode structure() {
+        return new RepositoryStructureService().buildRepositoryStructure(fileInfos(), List.of());
+    }
+
+    private List<FileInfo> fileInfos() {
+        List<FileInfo> fileInfos = new ArrayList<>(FILE_COUNT);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            String fileName = "Component" + i + (i % 3 == 0 ? ".ts" : ".java");
+            fileInfos.add(FileInfo.builder()
+                    .analysisId("analysis")
+                    .filePath("src/main/module" + i % 40 + "/package" + i % 7 + "/" + fileName)
+                    .fileName(fileName)
+                    .fileType(i % 3 == 0 ? "ts" : "java")
+                    .totalLines(200 + i % 300)
+                    .codeLines(150 + i % 200)
+                    .commentLines(20)
+                    .blankLines(30)
+                    .totalCommits(i % 50)
+                    .commitsLastYear(i % 20)
+                    .firstCommitDate(LocalDate.of(2020, 1, 1).plusDays(i % 1000))
+                    .lastCommitDate(LocalDate.of(2025, 1, 1).minusDays(i % 365))
+                    .build());
+        }
+        return fileInfos;
+    }
+
+}
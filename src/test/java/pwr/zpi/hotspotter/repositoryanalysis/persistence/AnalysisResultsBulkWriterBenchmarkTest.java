@@ -0,0 +1,148 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.test.context.ActiveProfiles;
+import pwr.zpi.hotspotter.common.config.MongoConfig;
+import pwr.zpi.hotspotter.common.config.SharedAsyncConfiguration;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.repository.FileInfoRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.AuthorContribution;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.repository.FileKnowledgeRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.config.AnalysisPersistenceConfig;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares insert throughput of the previous {@code saveAll} batches of 500 with {@link AnalysisResultsBulkWriter}.
+ * Run with {@code mvn test -Dbenchmarks=true -Dtest=AnalysisResultsBulkWriterBenchmarkTest}.
+ */
+@Slf4j
+@DataMongoTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@Import({AnalysisResultsBulkWriter.class, AnalysisPersistenceConfig.class, SharedAsyncConfiguration.class, MongoConfig.class})
+class AnalysisResultsBulkWriterBenchmarkTest {
+
+    private static final int DOCUMENT_COUNT = 50_000;
+    private static final int LEGACY_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AnalysisResultsBulkWriter analysisResultsBulkWriter;
+
+    @Autowired
+    private FileInfoRepository fileInfoRepository;
+
+    @Autowired
+    private FileKnowledgeRepository fileKnowledgeRepository;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(FileInfo.class);
+        mongoTemplate.dropCollection(FileKnowledge.class);
+    }
+
+    @Test
+    void fileInfoThroughput() {
+        compare(FileInfo.class, fileInfoRepository, i -> fileInfo("before", i), i -> fileInfo("after", i));
+    }
+
+    @Test
+    void fileKnowledgeThroughput() {
+        compare(FileKnowledge.class, fileKnowledgeRepository, i -> fileKnowledge("before", i), i -> fileKnowledge("after", i));
+    }
+
+    private <T> void compare(Class<T> entityClass, MongoRepository<T, String> repository,
+                             IntFunction<T> beforeFactory, IntFunction<T> afterFactory) {
+        double before = measure(entityClass, generate(beforeFactory), entities -> {
+            for (int i = 0; i < entities.size(); i += LEGACY_BATCH_SIZE) {
+                repository.saveAll(entities.subList(i, Math.min(i + LEGACY_BATCH_SIZE, entities.size())));
+            }
+        });
+        double after = measure(entityClass, generate(afterFactory),
+                entities -> analysisResultsBulkWriter.saveAll(entityClass, entities));
+
+        assertEquals(2L * DOCUMENT_COUNT, repository.count());
+        log.info("{}: saveAll batches {} docs/s, bulk writer {} docs/s ({}x)", entityClass.getSimpleName(),
+                Math.round(before), Math.round(after), String.format("%.2f", after / before));
+    }
+
+    private <T> double measure(Class<T> entityClass, List<T> entities, Consumer<List<T>> write) {
+        long startTime = System.nanoTime();
+        write.accept(entities);
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+
+        log.debug("Wrote {} {} documents in {} s", entities.size(), entityClass.getSimpleName(), seconds);
+        return entities.size() / seconds;
+    }
+
+    private <T> List<T> generate(IntFunction<T> factory) {
+        List<T> entities = new ArrayList<>(DOCUMENT_COUNT);
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            entities.add(factory.apply(i));
+        }
+        return entities;
+    }
+
+    private FileInfo fileInfo(String analysisId, int index) {
+        FileInfo fileInfo = FileInfo.builder()
+                .analysisId(analysisId)
+                .filePath("src/module" + index % 100 + "/File" + index + ".java")
+                .fileName("File" + index + ".java")
+                .fileType("java")
+                .totalLines(200 + index % 300)
+                .codeLines(150 + index % 200)
+                .commentLines(20)
+                .blankLines(30)
+                .totalCommits(index % 50)
+                .firstCommitDate(LocalDate.of(2020, 1, 1))
+                .lastCommitDate(LocalDate.of(2025, 1, 1).minusDays(index % 365))
+                .build();
+        for (int day = 0; day < index % 20; day++) {
+            fileInfo.recordCommitDate(LocalDate.of(2024, 1, 1).plusDays(day * 7L));
+        }
+        return fileInfo;
+    }
+
+    private FileKnowledge fileKnowledge(String analysisId, int index) {
+        List<AuthorContribution> contributions = new ArrayList<>();
+        for (int author = 0; author < 1 + index % 5; author++) {
+            contributions.add(AuthorContribution.builder()
+                    .name("author" + author)
+                    .linesAdded(10 * (author + 1))
+                    .commits(author + 1)
+                    .contributionPercentage(100.0 / (1 + index % 5))
+                    .build());
+        }
+
+        return FileKnowledge.builder()
+                .analysisId(analysisId)
+                .filePath("src/module" + index % 100 + "/File" + index + ".java")
+                .linesAdded(100 + index % 1000)
+                .commits(1 + index % 50)
+                .authorContributions(contributions)
+                .leadAuthor("author0")
+                .leadAuthorKnowledgePercentage(100.0 / (1 + index % 5))
+                .contributors(contributions.size())
+                .activeContributors(contributions.size())
+                .build();
+    }
+
+}
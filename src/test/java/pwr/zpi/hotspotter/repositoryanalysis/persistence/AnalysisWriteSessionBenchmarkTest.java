@@ -0,0 +1,136 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import pwr.zpi.hotspotter.common.config.MongoConfig;
+import pwr.zpi.hotspotter.common.config.SharedAsyncConfiguration;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.AuthorContribution;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.config.AnalysisPersistenceConfig;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the latency of the result persistence phase when every collection is written after the analysis
+ * finished (previous behaviour) with the write-behind session that writes while later results are produced.
+ * Producing the results stands in for the analysis work. Run with
+ * {@code mvn test -Dbenchmarks=true -Dtest=AnalysisWriteSessionBenchmarkTest}.
+ */
+@Slf4j
+@DataMongoTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@Import({AnalysisResultsBulkWriter.class, AnalysisResultsWriteBehind.class, PackedFileResultsStore.class,
+        AnalysisPersistenceConfig.class, SharedAsyncConfiguration.class, MongoConfig.class})
+class AnalysisWriteSessionBenchmarkTest {
+
+    private static final int FILE_COUNT = 50_000;
+    private static final int AUTHOR_COUNT = 2_000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AnalysisResultsBulkWriter analysisResultsBulkWriter;
+
+    @Autowired
+    private AnalysisResultsWriteBehind analysisResultsWriteBehind;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(FileKnowledge.class);
+        mongoTemplate.dropCollection(AuthorStatistics.class);
+        mongoTemplate.dropCollection(FileInfo.class);
+    }
+
+    @Test
+    void persistenceLatency() {
+        long sequentialMillis = measure(() -> {
+            List<FileKnowledge> fileKnowledge = generate(FILE_COUNT, i -> fileKnowledge("sequential", i));
+            List<AuthorStatistics> authors = generate(AUTHOR_COUNT, i -> authorStatistics("sequential", i));
+            List<FileInfo> fileInfo = generate(FILE_COUNT, i -> fileInfo("sequential", i));
+
+            analysisResultsBulkWriter.saveAll(FileKnowledge.class, fileKnowledge);
+            analysisResultsBulkWriter.saveAll(AuthorStatistics.class, authors);
+            analysisResultsBulkWriter.saveAll(FileInfo.class, fileInfo);
+        });
+
+        long writeBehindMillis = measure(() -> {
+            AnalysisWriteSession session = analysisResultsWriteBehind.openSession("write-behind");
+            session.submit(FileKnowledge.class, generate(FILE_COUNT, i -> fileKnowledge("write-behind", i)));
+            session.submit(AuthorStatistics.class, generate(AUTHOR_COUNT, i -> authorStatistics("write-behind", i)));
+            session.submit(FileInfo.class, generate(FILE_COUNT, i -> fileInfo("write-behind", i)));
+            session.flush();
+        });
+
+        assertEquals(2L * FILE_COUNT, mongoTemplate.count(new Query(), FileInfo.class));
+        log.info("Result persistence latency: sequential {} ms, write-behind {} ms ({} ms saved)",
+                sequentialMillis, writeBehindMillis, sequentialMillis - writeBehindMillis);
+    }
+
+    private long measure(Runnable analysis) {
+        long startTime = System.nanoTime();
+        analysis.run();
+        return (System.nanoTime() - startTime) / 1_000_000;
+    }
+
+    private <T> List<T> generate(int count, IntFunction<T> factory) {
+        List<T> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entities.add(factory.apply(i));
+        }
+        return entities;
+    }
+
+    private FileKnowledge fileKnowledge(String analysisId, int index) {
+        return FileKnowledge.builder()
+                .analysisId(analysisId)
+                .filePath("src/module" + index % 100 + "/File" + index + ".java")
+                .linesAdded(100 + index % 1000)
+                .commits(1 + index % 50)
+                .authorContributions(List.of(new AuthorContribution("author" + index % AUTHOR_COUNT)))
+                .leadAuthor("author" + index % AUTHOR_COUNT)
+                .contributors(1)
+                .build();
+    }
+
+    private AuthorStatistics authorStatistics(String analysisId, int index) {
+        return AuthorStatistics.builder()
+                .analysisId(analysisId)
+                .name("author" + index)
+                .firstCommitDate(LocalDate.of(2020, 1, 1))
+                .lastCommitDate(LocalDate.of(2025, 1, 1).minusDays(index % 365))
+                .commits(1 + index % 100)
+                .build();
+    }
+
+    private FileInfo fileInfo(String analysisId, int index) {
+        FileInfo fileInfo = FileInfo.builder()
+                .analysisId(analysisId)
+                .filePath("src/module" + index % 100 + "/File" + index + ".java")
+                .fileName("File" + index + ".java")
+                .codeLines(150 + index % 200)
+                .totalCommits(index % 50)
+                .build();
+        for (int day = 0; day < index % 20; day++) {
+            fileInfo.recordCommitDate(LocalDate.of(2024, 1, 1).plusDays(day * 7L));
+        }
+        return fileInfo;
+    }
+
+}
@@ -0,0 +1,114 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.exception.AnalysisException;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.config.AnalysisPersistenceConfig.FileResultsStorageMode;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class AnalysisWriteSessionTest {
+
+    private final AnalysisResultsBulkWriter analysisResultsBulkWriter = mock(AnalysisResultsBulkWriter.class);
+    private final PackedFileResultsStore packedFileResultsStore = mock(PackedFileResultsStore.class);
+    private ExecutorService executor;
+    private AnalysisWriteSession session;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        session = new AnalysisWriteSession("analysis", analysisResultsBulkWriter, packedFileResultsStore,
+                FileResultsStorageMode.DOCUMENTS, executor, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void abortSkipsWritesThatHaveNotStarted() throws InterruptedException {
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            BooleanSupplier cancelled = invocation.getArgument(2);
+            firstWriteStarted.countDown();
+            while (!cancelled.getAsBoolean()) {
+                Thread.onSpinWait();
+            }
+            return null;
+        }).when(analysisResultsBulkWriter).saveAll(eq(FileInfo.class), anyCollection(), any());
+
+        session.submit(FileInfo.class, List.of(new FileInfo()));
+        session.submit(AuthorStatistics.class, List.of(new AuthorStatistics()));
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        session.abort();
+
+        verify(analysisResultsBulkWriter, never()).saveAll(eq(AuthorStatistics.class), anyCollection(), any());
+        assertThrows(AnalysisException.class, () -> session.submit(FileInfo.class, List.of(new FileInfo())));
+    }
+
+    @Test
+    void abortAfterFailedFlushDoesNotThrow() {
+        doThrow(new IllegalStateException("write failed"))
+                .when(analysisResultsBulkWriter).saveAll(eq(FileInfo.class), anyCollection(), any());
+
+        session.submit(FileInfo.class, List.of(new FileInfo()));
+
+        assertThrows(AnalysisException.class, session::flush);
+        session.abort();
+    }
+
+    @Test
+    void abortDeletesResultsAlreadyWritten() {
+        List<FileInfo> fileInfo = List.of(new FileInfo());
+        session.submit(FileInfo.class, fileInfo);
+        session.flush();
+
+        session.abort();
+
+        verify(analysisResultsBulkWriter).deleteAll(FileInfo.class, fileInfo);
+    }
+
+    @Test
+    void abortCancelsPackedWrites() throws InterruptedException {
+        AnalysisWriteSession packedSession = new AnalysisWriteSession("analysis", analysisResultsBulkWriter,
+                packedFileResultsStore, FileResultsStorageMode.PACKED, executor, 4);
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            BooleanSupplier cancelled = invocation.getArgument(3);
+            writeStarted.countDown();
+            while (!cancelled.getAsBoolean()) {
+                Thread.onSpinWait();
+            }
+            return null;
+        }).when(packedFileResultsStore).saveAll(eq("analysis"), eq(FileInfo.class), anyCollection(), any());
+
+        packedSession.submitFileResults(FileInfo.class, List.of(new FileInfo()));
+        assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+
+        packedSession.abort();
+
+        verify(packedFileResultsStore).deleteAll("analysis", FileInfo.class);
+    }
+
+}
@@ -0,0 +1,78 @@
+package pwr.zpi.hotspotter.repositoryanalysis.persistence;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.config.AnalysisPersistenceConfig;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.model.PackedFileResultsBlock;
+import pwr.zpi.hotspotter.repositoryanalysis.util.AnalysisUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataMongoTest(properties = "analysis-persistence.packed-block-size=100")
+@ActiveProfiles("test")
+@Import({PackedFileResultsStore.class, AnalysisPersistenceConfig.class})
+class PackedFileResultsStoreTest {
+
+    private static final String ANALYSIS_ID = "analysis";
+
+    // The last block holds a path outside the BMP, which sorts after U+FFFD by code point but before it in UTF-16
+    private static final List<String> FILE_PATHS = Stream.concat(
+            Stream.iterate(0, i -> i < 148, i -> i + 1).map("src/file%03d"::formatted),
+            Stream.of("src/\uFFFD.java", "src/\uD83D\uDE00.java")
+    ).sorted(AnalysisUtils::compareFilePaths).toList();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PackedFileResultsStore packedFileResultsStore;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(PackedFileResultsBlock.class);
+        packedFileResultsStore.saveAll(ANALYSIS_ID, FileInfo.class, FILE_PATHS.reversed().stream()
+                .map(filePath -> FileInfo.builder().filePath(filePath).fileName(filePath.substring(4)).build())
+                .toList());
+    }
+
+    @Test
+    void findsEveryFileByPath() {
+        for (String filePath : FILE_PATHS) {
+            assertTrue(packedFileResultsStore.findByFilePath(ANALYSIS_ID, FileInfo.class, filePath).isPresent(), filePath);
+        }
+    }
+
+    @Test
+    void streamsDocumentsInPathOrderFromTheGivenPath() {
+        assertEquals(FILE_PATHS, streamPaths(true, null));
+        assertEquals(FILE_PATHS.reversed(), streamPaths(false, null));
+
+        String afterPath = FILE_PATHS.get(120);
+        assertEquals(FILE_PATHS.subList(121, FILE_PATHS.size()), streamPaths(true, afterPath));
+        assertEquals(FILE_PATHS.subList(0, 120).reversed(), streamPaths(false, afterPath));
+    }
+
+    private List<String> streamPaths(boolean ascending, String afterPath) {
+        List<String> filePaths = new ArrayList<>();
+        try (Stream<Document> documents = packedFileResultsStore.streamDocuments(ANALYSIS_ID, FileInfo.class, ascending, afterPath)) {
+            documents.forEach(document -> {
+                assertEquals(ANALYSIS_ID, document.getString("analysisId"));
+                filePaths.add(document.getString("filePath"));
+            });
+        }
+        return filePaths;
+    }
+
+}
@@ -0,0 +1,125 @@
+package pwr.zpi.hotspotter.repositoryanalysis.retention;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.AnalysisResultsCache;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.config.AnalysisResultsCacheConfig;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryDirectory;
+import pwr.zpi.hotspotter.repositoryanalysis.retention.config.AnalysisRetentionConfig;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataMongoTest
+@ActiveProfiles("test")
+class AnalysisRetentionPurgerTest {
+
+    private static final int FILES_PER_ANALYSIS = 3;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final AnalysisRetentionConfig analysisRetentionConfig = new AnalysisRetentionConfig();
+    private AnalysisRetentionPurger analysisRetentionPurger;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(AnalysisInfo.class);
+        mongoTemplate.dropCollection(FileInfo.class);
+        mongoTemplate.dropCollection(RepositoryDirectory.class);
+
+        analysisRetentionConfig.setEnabled(true);
+        analysisRetentionConfig.setMaxAgeDays(30);
+        analysisRetentionConfig.setMaxAnalysesPerRepository(2);
+        analysisRetentionConfig.setBatchSize(2);
+        analysisRetentionConfig.setBatchDelayMs(0L);
+        analysisRetentionPurger = new AnalysisRetentionPurger(mongoTemplate,
+                new AnalysisResultsCache(new AnalysisResultsCacheConfig(), new SimpleMeterRegistry()),
+                analysisRetentionConfig, new SimpleMeterRegistry());
+
+        LocalDateTime now = LocalDateTime.now();
+        givenAnalysis("newest", "repo-a", now.minusDays(1), AnalysisInfo.AnalysisStatus.COMPLETED);
+        givenAnalysis("newer", "repo-a", now.minusDays(2), AnalysisInfo.AnalysisStatus.FAILED);
+        givenAnalysis("surplus", "repo-a", now.minusDays(3), AnalysisInfo.AnalysisStatus.COMPLETED);
+        givenAnalysis("old", "repo-b", now.minusDays(40), AnalysisInfo.AnalysisStatus.COMPLETED);
+        givenAnalysis("running", "repo-b", now.minusDays(40), AnalysisInfo.AnalysisStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void purgesOldAndSurplusAnalysesInBatches() {
+        analysisRetentionPurger.purgeExpiredAnalyses();
+
+        assertEquals(Map.of("newest", FILES_PER_ANALYSIS, "newer", FILES_PER_ANALYSIS, "running", FILES_PER_ANALYSIS),
+                fileCountsByAnalysis());
+        assertEquals(List.of("newer", "newest", "running"), remainingAnalysisIds());
+        assertEquals(3, mongoTemplate.count(new Query(), RepositoryDirectory.class));
+    }
+
+    @Test
+    void interruptedPurgeKeepsAnalysesExpiredAndIsResumedByTheNextRun() throws InterruptedException {
+        analysisRetentionConfig.setBatchDelayMs(Duration.ofMinutes(1).toMillis());
+        Thread purge = Thread.ofPlatform().start(analysisRetentionPurger::purgeExpiredAnalyses);
+
+        // The first batch of file results is deleted before the purge pauses
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (purge.getState() != Thread.State.TIMED_WAITING || fileCount() > 5 * FILES_PER_ANALYSIS - 2) {
+            assertTrue(System.currentTimeMillis() < deadline, "Purge did not pause");
+            Thread.sleep(10);
+        }
+        purge.interrupt();
+        purge.join(10_000);
+
+        assertEquals(5 * FILES_PER_ANALYSIS - 2, fileCount());
+        assertEquals(List.of("newer", "newest", "old", "running", "surplus"), remainingAnalysisIds());
+        assertEquals(AnalysisInfo.AnalysisStatus.EXPIRED, mongoTemplate.findById("old", AnalysisInfo.class).getStatus());
+        assertEquals(AnalysisInfo.AnalysisStatus.EXPIRED, mongoTemplate.findById("surplus", AnalysisInfo.class).getStatus());
+
+        analysisRetentionConfig.setBatchDelayMs(0L);
+        analysisRetentionPurger.purgeExpiredAnalyses();
+
+        assertEquals(List.of("newer", "newest", "running"), remainingAnalysisIds());
+        assertEquals(3 * FILES_PER_ANALYSIS, fileCount());
+    }
+
+    private void givenAnalysis(String analysisId, String repositoryUrl, LocalDateTime analyzedAt,
+                               AnalysisInfo.AnalysisStatus status) {
+        mongoTemplate.insert(AnalysisInfo.builder()
+                .id(analysisId)
+                .repositoryUrl(repositoryUrl)
+                .analyzedAt(analyzedAt)
+                .status(status)
+                .build());
+        for (int i = 0; i < FILES_PER_ANALYSIS; i++) {
+            mongoTemplate.insert(FileInfo.builder().analysisId(analysisId).filePath("file" + i).fileName("file" + i).build());
+        }
+        mongoTemplate.insert(RepositoryDirectory.builder().analysisId(analysisId).path("").children(List.of()).build());
+    }
+
+    private Map<String, Integer> fileCountsByAnalysis() {
+        return mongoTemplate.findAll(FileInfo.class).stream()
+                .collect(Collectors.groupingBy(FileInfo::getAnalysisId, Collectors.summingInt(_ -> 1)));
+    }
+
+    private long fileCount() {
+        return mongoTemplate.count(new Query(), FileInfo.class);
+    }
+
+    private List<String> remainingAnalysisIds() {
+        return mongoTemplate.findAll(AnalysisInfo.class).stream().map(AnalysisInfo::getId).sorted().toList();
+    }
+
+}
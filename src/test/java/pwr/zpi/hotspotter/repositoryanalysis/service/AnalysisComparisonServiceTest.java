@@ -0,0 +1,126 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.AnalysisResultsCache;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.CachedResult;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.ResultFormat;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.ResultFormatEncoder;
+import pwr.zpi.hotspotter.repositoryanalysis.cache.config.AnalysisResultsCacheConfig;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisFileResultsReader;
+import pwr.zpi.hotspotter.repositoryanalysis.repository.AnalysisInfoRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnalysisComparisonServiceTest {
+
+    private static final String BASE_ID = "base";
+    private static final String TARGET_ID = "target";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final AnalysisInfoRepository analysisInfoRepository = mock(AnalysisInfoRepository.class);
+    private final AnalysisFileResultsReader analysisFileResultsReader = mock(AnalysisFileResultsReader.class);
+    private final AnalysisComparisonService analysisComparisonService = new AnalysisComparisonService(
+            analysisInfoRepository,
+            analysisFileResultsReader,
+            new AnalysisResultsCache(new AnalysisResultsCacheConfig(), new SimpleMeterRegistry()),
+            new ResultFormatEncoder(objectMapper));
+
+    @BeforeEach
+    void setUp() {
+        givenAnalysis(BASE_ID, "https://example.com/repo.git");
+        givenAnalysis(TARGET_ID, "https://example.com/repo.git");
+
+        givenFiles(BASE_ID,
+                List.of(fileInfo("README.md", 1, 10), fileInfo("src/Removed.java", 2, 20), fileInfo("src/Service.java", 3, 30)),
+                List.of(fileKnowledge("README.md", 1, 0.0, "alice"), fileKnowledge("src/Service.java", 3, 10.0, "alice")));
+        givenFiles(TARGET_ID,
+                List.of(fileInfo("README.md", 1, 10), fileInfo("src/Service.java", 5, 42)),
+                List.of(fileKnowledge("README.md", 1, 0.0, "alice"), fileKnowledge("src/Added.java", 1, 0.0, "bob"),
+                        fileKnowledge("src/Service.java", 5, 25.0, "bob")));
+    }
+
+    @Test
+    void mergeJoinsBothAnalysesByFilePath() throws IOException {
+        JsonNode comparison = read(analysisComparisonService.compare(BASE_ID, TARGET_ID, ResultFormat.JSON));
+
+        List<String> files = new ArrayList<>();
+        comparison.get("files").forEach(file -> files.add(file.get("filePath").asText() + "=" + file.get("status").asText()));
+        assertEquals(List.of("src/Added.java=ADDED", "src/Removed.java=REMOVED", "src/Service.java=MODIFIED"), files);
+
+        JsonNode added = comparison.get("files").get(0);
+        assertEquals(1, added.get("commitsAfter").asInt());
+        assertEquals("bob", added.get("leadAuthorAfter").asText());
+
+        JsonNode modified = comparison.get("files").get(2);
+        assertEquals(2, modified.get("commitsDelta").asInt());
+        assertEquals(12, modified.get("codeLinesDelta").asInt());
+        assertEquals(15.0, modified.get("knowledgeLossDelta").asDouble());
+        assertEquals(true, modified.get("leadAuthorChanged").asBoolean());
+
+        JsonNode summary = comparison.get("summary");
+        assertEquals(1, summary.get("added").asInt());
+        assertEquals(1, summary.get("removed").asInt());
+        assertEquals(1, summary.get("modified").asInt());
+        assertEquals(1, summary.get("unchanged").asInt());
+    }
+
+    @Test
+    void cachedComparisonIsNotServedOnceTargetIsRemoved() {
+        analysisComparisonService.compare(BASE_ID, TARGET_ID, ResultFormat.JSON);
+        when(analysisInfoRepository.findById(TARGET_ID)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> analysisComparisonService.compare(BASE_ID, TARGET_ID, ResultFormat.JSON));
+    }
+
+    @Test
+    void rejectsAnalysesOfDifferentRepositories() {
+        givenAnalysis(TARGET_ID, "https://example.com/other.git");
+
+        assertThrows(IllegalArgumentException.class, () -> analysisComparisonService.compare(BASE_ID, TARGET_ID, ResultFormat.JSON));
+    }
+
+    private JsonNode read(CachedResult result) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        result.writeDecoded(output);
+        return objectMapper.readTree(output.toByteArray());
+    }
+
+    private void givenAnalysis(String analysisId, String repositoryUrl) {
+        when(analysisInfoRepository.findById(analysisId)).thenReturn(Optional.of(AnalysisInfo.builder()
+                .id(analysisId)
+                .repositoryUrl(repositoryUrl)
+                .status(AnalysisInfo.AnalysisStatus.COMPLETED)
+                .build()));
+    }
+
+    private void givenFiles(String analysisId, List<FileInfo> fileInfo, List<FileKnowledge> fileKnowledge) {
+        when(analysisFileResultsReader.streamFileInfo(analysisId)).thenAnswer(_ -> fileInfo.stream());
+        when(analysisFileResultsReader.streamFileKnowledge(analysisId)).thenAnswer(_ -> fileKnowledge.stream());
+    }
+
+    private static FileInfo fileInfo(String filePath, int totalCommits, int codeLines) {
+        return FileInfo.builder().filePath(filePath).totalCommits(totalCommits).codeLines(codeLines).build();
+    }
+
+    private static FileKnowledge fileKnowledge(String filePath, int commits, double knowledgeLoss, String leadAuthor) {
+        return FileKnowledge.builder().filePath(filePath).commits(commits).knowledgeLoss(knowledgeLoss).leadAuthor(leadAuthor).build();
+    }
+
+}
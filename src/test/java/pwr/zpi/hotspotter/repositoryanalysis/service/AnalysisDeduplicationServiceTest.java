@@ -0,0 +1,88 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.repository.AnalysisInfoRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.service.AnalysisDeduplicationService.Resolution;
+import pwr.zpi.hotspotter.repositoryanalysis.service.RepositoryAnalysisService.AnalysisSseStatus;
+import pwr.zpi.hotspotter.repositoryanalysis.sse.RepositoryAnalysisSsePublisher;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnalysisDeduplicationServiceTest {
+
+    private static final String ANALYSIS_KEY = "key";
+
+    private final AnalysisInfoRepository analysisInfoRepository = mock(AnalysisInfoRepository.class);
+    private final RepositoryAnalysisSsePublisher ssePublisher = mock(RepositoryAnalysisSsePublisher.class);
+    private final AnalysisDeduplicationService analysisDeduplicationService =
+            new AnalysisDeduplicationService(analysisInfoRepository, ssePublisher);
+
+    private final SseEmitter leader = mock(SseEmitter.class);
+    private final SseEmitter follower = mock(SseEmitter.class);
+
+    @Test
+    void joinsInFlightAnalysisAndReceivesItsLastProgress() {
+        Resolution leading = analysisDeduplicationService.resolve(ANALYSIS_KEY, "first", leader);
+        analysisDeduplicationService.sendProgress(leading.inFlightAnalysis(), AnalysisSseStatus.ANALYZING);
+
+        Resolution joined = analysisDeduplicationService.resolve(ANALYSIS_KEY, "second", follower);
+
+        assertTrue(leading.leader());
+        assertFalse(joined.leader());
+        assertSame(leading.inFlightAnalysis(), joined.inFlightAnalysis());
+        assertEquals("first", joined.inFlightAnalysis().getAnalysisId());
+        verify(ssePublisher).sendProgress(follower, AnalysisSseStatus.ANALYZING);
+    }
+
+    @Test
+    void completionIsSentToAllClientsAndLaterRequestsReuseTheStoredAnalysis() {
+        Resolution leading = analysisDeduplicationService.resolve(ANALYSIS_KEY, "first", leader);
+        analysisDeduplicationService.resolve(ANALYSIS_KEY, "second", follower);
+        when(analysisInfoRepository.findFirstByAnalysisKeyAndStatusOrderByAnalyzedAtDesc(ANALYSIS_KEY, AnalysisInfo.AnalysisStatus.COMPLETED))
+                .thenReturn(Optional.of(AnalysisInfo.builder().id("first").build()));
+
+        analysisDeduplicationService.complete(leading.inFlightAnalysis());
+
+        verify(ssePublisher).sendComplete(leader, "first");
+        verify(ssePublisher).sendComplete(follower, "first");
+        verify(follower).complete();
+        verify(leader, never()).complete();
+
+        Resolution reused = analysisDeduplicationService.resolve(ANALYSIS_KEY, "third", mock(SseEmitter.class));
+        assertEquals("first", reused.completedAnalysisId());
+        assertNull(reused.inFlightAnalysis());
+    }
+
+    @Test
+    void failureIsSentToJoinedClientsAndTheNextRequestLeadsANewAnalysis() {
+        Resolution leading = analysisDeduplicationService.resolve(ANALYSIS_KEY, "first", leader);
+        analysisDeduplicationService.resolve(ANALYSIS_KEY, "second", follower);
+
+        analysisDeduplicationService.fail(leading.inFlightAnalysis(), "clone failed");
+
+        verify(ssePublisher).sendError(follower, "clone failed");
+        verify(follower).complete();
+        verify(ssePublisher, never()).sendError(eq(leader), anyString());
+        verify(ssePublisher, never()).sendComplete(any(), anyString());
+
+        Resolution retried = analysisDeduplicationService.resolve(ANALYSIS_KEY, "third", mock(SseEmitter.class));
+        assertTrue(retried.leader());
+        assertEquals("third", retried.inFlightAnalysis().getAnalysisId());
+    }
+
+}
@@ -0,0 +1,196 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.ActivityTrendsAnalyzer;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.ActivityTrendsContext;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.model.ActivityTrends;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.model.ActivityTrendsDailyStats;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.activitytrends.repository.ActivityTrendsRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.AuthorsAnalyzer;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.AuthorsAnalyzerContext;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.model.AuthorStatistics;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.authors.repository.AuthorStatisticsRepository;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.FileInfoAnalyzer;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.FileInfoAnalyzerContext;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.KnowledgeAnalyzer;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.KnowledgeAnalyzerContext;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.knowledge.model.FileKnowledge;
+import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.Commit;
+import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.model.FileChange;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RecomputedAnalysisResults;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisFileResultsReader;
+import pwr.zpi.hotspotter.repositoryanalysis.repository.AnalysisInfoRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnalysisRecomputationServiceTest {
+
+    private static final String ANALYSIS_ID = "analysis";
+    private static final LocalDate REFERENCE_DATE = LocalDate.of(2025, 6, 30);
+    private static final int HOT_SPOT_MONTHS = 6;
+    private static final int INACTIVITY_MONTHS = 3;
+
+    private static final List<Commit> COMMITS = List.of(
+            commit("2023-01-10", "alice", new FileChange("src/A.java", 100, 0), new FileChange("README.md", 10, 0)),
+            commit("2024-03-05", "bob", new FileChange("src/B.java", 50, 0), new FileChange("src/A.java", 20, 5)),
+            commit("2025-01-15", "alice", new FileChange("src/A.java", 5, 2)),
+            commit("2025-06-20", "carol", new FileChange("src/B.java", 30, 10))
+    );
+
+    @TempDir
+    private Path repositoryPath;
+
+    private final FileInfoAnalyzer fileInfoAnalyzer = new FileInfoAnalyzer();
+    private final AuthorsAnalyzer authorsAnalyzer = new AuthorsAnalyzer();
+    private final KnowledgeAnalyzer knowledgeAnalyzer = new KnowledgeAnalyzer();
+    private final ActivityTrendsAnalyzer activityTrendsAnalyzer = new ActivityTrendsAnalyzer();
+
+    private final AnalysisInfoRepository analysisInfoRepository = mock(AnalysisInfoRepository.class);
+    private final AnalysisFileResultsReader analysisFileResultsReader = mock(AnalysisFileResultsReader.class);
+    private final AuthorStatisticsRepository authorStatisticsRepository = mock(AuthorStatisticsRepository.class);
+    private final ActivityTrendsRepository activityTrendsRepository = mock(ActivityTrendsRepository.class);
+
+    private final AnalysisRecomputationService analysisRecomputationService = new AnalysisRecomputationService(
+            analysisInfoRepository, analysisFileResultsReader, authorStatisticsRepository, activityTrendsRepository,
+            fileInfoAnalyzer, authorsAnalyzer, knowledgeAnalyzer, activityTrendsAnalyzer);
+
+    @BeforeEach
+    void setUp() throws IOException, GitAPIException {
+        try (Git git = Git.init().setDirectory(repositoryPath.toFile()).call()) {
+            Files.createDirectories(repositoryPath.resolve("src"));
+            for (String filePath : List.of("src/A.java", "src/B.java", "README.md")) {
+                Files.writeString(repositoryPath.resolve(filePath), "content");
+            }
+            git.add().addFilepattern(".").call();
+        }
+
+        AnalysisInfo analysisInfo = AnalysisInfo.builder()
+                .id(ANALYSIS_ID)
+                .status(AnalysisInfo.AnalysisStatus.COMPLETED)
+                .endDate(REFERENCE_DATE)
+                .hotSpotAnalysisPeriodMonths(HOT_SPOT_MONTHS)
+                .authorInactivityThresholdMonths(INACTIVITY_MONTHS)
+                .build();
+        when(analysisInfoRepository.findById(ANALYSIS_ID)).thenReturn(Optional.of(analysisInfo));
+
+        StoredResults stored = analyze(HOT_SPOT_MONTHS, INACTIVITY_MONTHS);
+        when(analysisFileResultsReader.findAllFileInfo(ANALYSIS_ID)).thenReturn(stored.fileInfo());
+        when(analysisFileResultsReader.findAllFileKnowledge(ANALYSIS_ID)).thenReturn(stored.fileKnowledge());
+        when(authorStatisticsRepository.findAllByAnalysisId(ANALYSIS_ID)).thenReturn(stored.authorStatistics());
+        when(activityTrendsRepository.findById(ANALYSIS_ID)).thenReturn(Optional.of(stored.activityTrends()));
+    }
+
+    @Test
+    void recomputingWithOriginalThresholdsReproducesStoredResults() {
+        RecomputedAnalysisResults results = analysisRecomputationService.recompute(ANALYSIS_ID, null, null);
+
+        assertEquals(HOT_SPOT_MONTHS, results.hotSpotAnalysisPeriodMonths());
+        assertEquals(INACTIVITY_MONTHS, results.authorInactivityThresholdMonths());
+        assertMatchesAnalysis(results, analyze(HOT_SPOT_MONTHS, INACTIVITY_MONTHS));
+    }
+
+    @Test
+    void changedThresholdsMatchAnAnalysisRunWithThem() {
+        RecomputedAnalysisResults results = analysisRecomputationService.recompute(ANALYSIS_ID, 1, 12);
+
+        assertMatchesAnalysis(results, analyze(1, 12));
+
+        Map<String, RecomputedAnalysisResults.FileResult> files = results.files().stream()
+                .collect(Collectors.toMap(RecomputedAnalysisResults.FileResult::filePath, Function.identity()));
+        assertEquals(0, files.get("src/A.java").commitsInHotSpotAnalysisPeriod());
+        assertEquals(1, files.get("src/B.java").commitsInHotSpotAnalysisPeriod());
+        assertEquals(20 * 100.0 / 125, files.get("src/A.java").knowledgeLoss());
+        assertEquals(Map.of("alice", true, "bob", false, "carol", true), results.authors().stream()
+                .collect(Collectors.toMap(RecomputedAnalysisResults.AuthorResult::name, RecomputedAnalysisResults.AuthorResult::isActive)));
+    }
+
+    private void assertMatchesAnalysis(RecomputedAnalysisResults results, StoredResults expected) {
+        Map<String, FileKnowledge> expectedKnowledge = expected.fileKnowledge().stream()
+                .collect(Collectors.toMap(FileKnowledge::getFilePath, Function.identity()));
+        Map<String, FileInfo> expectedFileInfo = expected.fileInfo().stream()
+                .collect(Collectors.toMap(FileInfo::getFilePath, Function.identity()));
+
+        assertEquals(expectedFileInfo.size(), results.files().size());
+        for (RecomputedAnalysisResults.FileResult file : results.files()) {
+            FileKnowledge fileKnowledge = expectedKnowledge.get(file.filePath());
+            assertEquals(expectedFileInfo.get(file.filePath()).getCommitsInHotSpotAnalysisPeriod(),
+                    file.commitsInHotSpotAnalysisPeriod(), file.filePath());
+            assertEquals(fileKnowledge.getKnowledgeLoss(), file.knowledgeLoss(), file.filePath());
+            assertEquals(fileKnowledge.getActiveContributors(), file.activeContributors(), file.filePath());
+        }
+
+        assertEquals(expected.authorStatistics().stream()
+                        .collect(Collectors.toMap(AuthorStatistics::getName, AuthorStatistics::getIsActive)),
+                results.authors().stream()
+                        .collect(Collectors.toMap(RecomputedAnalysisResults.AuthorResult::name, RecomputedAnalysisResults.AuthorResult::isActive)));
+        assertEquals(activeAuthorsByDay(expected.activityTrends().getDailyStats()), activeAuthorsByDay(results.dailyStats()));
+    }
+
+    private List<String> activeAuthorsByDay(List<ActivityTrendsDailyStats> dailyStats) {
+        return dailyStats.stream()
+                .sorted(Comparator.comparing(ActivityTrendsDailyStats::getDate))
+                .map(stats -> stats.getDate() + "=" + stats.getActiveAuthors())
+                .toList();
+    }
+
+    /**
+     * Runs the analyzers over {@link #COMMITS} the way {@link RepositoryAnalysisService} does.
+     */
+    private StoredResults analyze(int hotSpotMonths, int inactivityMonths) {
+        KnowledgeAnalyzerContext knowledgeContext = knowledgeAnalyzer.startAnalysis(ANALYSIS_ID, repositoryPath);
+        AuthorsAnalyzerContext authorsContext = authorsAnalyzer.startAnalysis(ANALYSIS_ID, REFERENCE_DATE, inactivityMonths);
+        FileInfoAnalyzerContext fileInfoContext = fileInfoAnalyzer.startAnalysis(ANALYSIS_ID, repositoryPath, REFERENCE_DATE, hotSpotMonths);
+        ActivityTrendsContext activityTrendsContext = activityTrendsAnalyzer.startAnalysis(ANALYSIS_ID, REFERENCE_DATE, inactivityMonths);
+
+        for (Commit commit : COMMITS) {
+            knowledgeAnalyzer.processCommit(commit, knowledgeContext);
+            authorsAnalyzer.processCommit(commit, authorsContext);
+            fileInfoAnalyzer.processCommit(commit, fileInfoContext);
+            activityTrendsAnalyzer.processCommit(commit, activityTrendsContext);
+        }
+
+        List<FileKnowledge> fileKnowledge = knowledgeAnalyzer.finishAnalysis(knowledgeContext);
+        Collection<AuthorStatistics> authorStatistics = authorsAnalyzer.finishAnalysis(authorsContext);
+        knowledgeAnalyzer.enrichAnalysisData(fileKnowledge, authorStatistics);
+
+        return new StoredResults(
+                fileInfoAnalyzer.finishAnalysis(fileInfoContext),
+                fileKnowledge,
+                new ArrayList<>(authorStatistics),
+                activityTrendsAnalyzer.finishAnalysis(activityTrendsContext)
+        );
+    }
+
+    private static Commit commit(String date, String author, FileChange... changedFiles) {
+        return new Commit(date + author, date, author, author + "@example.com", List.of(changedFiles));
+    }
+
+    private record StoredResults(
+            List<FileInfo> fileInfo,
+            List<FileKnowledge> fileKnowledge,
+            List<AuthorStatistics> authorStatistics,
+            ActivityTrends activityTrends
+    ) { }
+
+}
@@ -0,0 +1,77 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.PackedFileResultsStore;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.config.AnalysisPersistenceConfig;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.model.PackedFileResultsBlock;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultResource;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultResourceSupport;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import({AnalysisResultsAggregationService.class, ResultResourceSupport.class, PackedFileResultsStore.class, AnalysisPersistenceConfig.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class AnalysisResultsAggregationServiceTest {
+
+    private static final String ANALYSIS_ID = "analysis";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AnalysisResultsAggregationService analysisResultsAggregationService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(FileInfo.class);
+        mongoTemplate.dropCollection(AnalysisInfo.class);
+        mongoTemplate.dropCollection(PackedFileResultsBlock.class);
+
+        mongoTemplate.insert(AnalysisInfo.builder().id(ANALYSIS_ID).status(AnalysisInfo.AnalysisStatus.COMPLETED).build());
+        Map.of("src/a.java", 3, "src/b.java", 7, "src/c.java", 7, "src/d.java", 1).forEach((filePath, totalCommits) ->
+                mongoTemplate.insert(FileInfo.builder()
+                        .analysisId(ANALYSIS_ID)
+                        .filePath(filePath)
+                        .fileName(filePath.substring(4))
+                        .fileType("java")
+                        .totalCommits(totalCommits)
+                        .build()));
+    }
+
+    @Test
+    void findsTopResultsWithRequestedFieldsOnly() {
+        List<Map<String, Object>> top = analysisResultsAggregationService.findTop(ANALYSIS_ID, ResultResource.FILES,
+                "totalCommits", false, 3, List.of("filePath", "totalCommits"));
+
+        assertEquals(List.of(
+                Map.of("filePath", "src/b.java", "totalCommits", 7),
+                Map.of("filePath", "src/c.java", "totalCommits", 7),
+                Map.of("filePath", "src/a.java", "totalCommits", 3)
+        ), top);
+    }
+
+    @Test
+    void rejectsHiddenFields() {
+        assertThrows(IllegalArgumentException.class, () -> analysisResultsAggregationService.findTop(ANALYSIS_ID,
+                ResultResource.FILES, "totalCommits", false, 3, List.of("analysisId")));
+        assertThrows(IllegalArgumentException.class, () -> analysisResultsAggregationService.findTop(ANALYSIS_ID,
+                ResultResource.FILES, "commitHistogram", false, 3, List.of()));
+    }
+
+}
@@ -0,0 +1,116 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.AnalysisInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.PackedFileResultsStore;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.config.AnalysisPersistenceConfig;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.model.PackedFileResultsBlock;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultFilter;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultPage;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultQuery;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultResource;
+import pwr.zpi.hotspotter.repositoryanalysis.query.ResultResourceSupport;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import({AnalysisResultsQueryService.class, ResultResourceSupport.class, PackedFileResultsStore.class, AnalysisPersistenceConfig.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class AnalysisResultsQueryServiceTest {
+
+    private static final String ANALYSIS_ID = "analysis";
+
+    // Ties on totalCommits, including missing values, are broken by file path
+    private static final Map<String, Integer> TOTAL_COMMITS = new LinkedHashMap<>();
+
+    static {
+        TOTAL_COMMITS.put("src/a.java", 3);
+        TOTAL_COMMITS.put("src/b.java", 1);
+        TOTAL_COMMITS.put("src/c.java", 3);
+        TOTAL_COMMITS.put("src/d.java", null);
+        TOTAL_COMMITS.put("src/e.java", 3);
+        TOTAL_COMMITS.put("src/f.java", 2);
+        TOTAL_COMMITS.put("src/g.java", null);
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AnalysisResultsQueryService analysisResultsQueryService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(FileInfo.class);
+        mongoTemplate.dropCollection(AnalysisInfo.class);
+        mongoTemplate.dropCollection(PackedFileResultsBlock.class);
+
+        mongoTemplate.insert(AnalysisInfo.builder().id(ANALYSIS_ID).status(AnalysisInfo.AnalysisStatus.COMPLETED).build());
+        TOTAL_COMMITS.forEach((filePath, totalCommits) -> mongoTemplate.insert(FileInfo.builder()
+                .analysisId(ANALYSIS_ID)
+                .filePath(filePath)
+                .fileName(filePath.substring(4))
+                .totalCommits(totalCommits)
+                .build()));
+        mongoTemplate.insert(FileInfo.builder().analysisId("other").filePath("src/a.java").fileName("a.java").build());
+    }
+
+    @Test
+    void pagesByKeyInBothDirections() {
+        List<String> ascending = List.of("src/a.java", "src/b.java", "src/c.java", "src/d.java", "src/e.java", "src/f.java", "src/g.java");
+
+        for (int limit = 1; limit <= ascending.size() + 1; limit++) {
+            assertEquals(ascending, readAllPages(null, true, List.of(), limit), "limit " + limit);
+            assertEquals(ascending.reversed(), readAllPages(null, false, List.of(), limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    void pagesAcrossTiedAndMissingSortValues() {
+        List<String> descending = List.of("src/a.java", "src/c.java", "src/e.java", "src/f.java", "src/b.java", "src/d.java", "src/g.java");
+        List<String> ascending = List.of("src/d.java", "src/g.java", "src/b.java", "src/f.java", "src/a.java", "src/c.java", "src/e.java");
+
+        for (int limit = 1; limit <= descending.size() + 1; limit++) {
+            assertEquals(descending, readAllPages("totalCommits", false, List.of(), limit), "limit " + limit);
+            assertEquals(ascending, readAllPages("totalCommits", true, List.of(), limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    void appliesFiltersOnEveryPage() {
+        List<ResultFilter> filters = List.of(new ResultFilter("totalCommits", ResultFilter.Operator.GTE, "2"));
+
+        assertEquals(List.of("src/a.java", "src/c.java", "src/e.java", "src/f.java"),
+                readAllPages("totalCommits", false, filters, 2));
+    }
+
+    private List<String> readAllPages(String sortField, boolean ascending, List<ResultFilter> filters, int limit) {
+        List<String> filePaths = new ArrayList<>();
+        String cursor = null;
+        do {
+            ResultPage page = analysisResultsQueryService.findPage(new ResultQuery(ANALYSIS_ID, ResultResource.FILES,
+                    sortField, ascending, filters, List.of(), cursor, limit));
+            page.items().forEach(item -> filePaths.add((String) item.get("filePath")));
+            cursor = page.nextCursor();
+            if (page.items().size() < limit) assertNull(cursor);
+        } while (cursor != null);
+        return filePaths;
+    }
+
+}
@@ -0,0 +1,105 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryDirectory;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureNode;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisFileResultsReader;
+import pwr.zpi.hotspotter.repositoryanalysis.persistence.AnalysisResultsBulkWriter;
+import pwr.zpi.hotspotter.repositoryanalysis.repository.RepositoryDirectoryRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RepositoryDirectoryIndexServiceTest {
+
+    private static final String ANALYSIS_ID = "analysis";
+
+    private final RepositoryDirectoryRepository repositoryDirectoryRepository = mock(RepositoryDirectoryRepository.class);
+    private final AnalysisFileResultsReader analysisFileResultsReader = mock(AnalysisFileResultsReader.class);
+    private final AnalysisResultsBulkWriter analysisResultsBulkWriter = mock(AnalysisResultsBulkWriter.class);
+    private final RepositoryDirectoryIndexService repositoryDirectoryIndexService = new RepositoryDirectoryIndexService(
+            repositoryDirectoryRepository, new RepositoryStructureService(), analysisFileResultsReader, analysisResultsBulkWriter);
+
+    private final AtomicBoolean indexBuilt = new AtomicBoolean();
+
+    @Test
+    void indexBuiltConcurrentlyByAnotherInstanceIsReused() {
+        givenLegacyAnalysis();
+        doAnswer(_ -> {
+            indexBuilt.set(true);
+            throw new DuplicateKeyException("E11000 duplicate key error, index: analysis_path_idx");
+        }).when(analysisResultsBulkWriter).saveAll(eq(RepositoryDirectory.class), anyCollection());
+
+        RepositoryStructureNode root = repositoryDirectoryIndexService.getSubtree(ANALYSIS_ID, "/", 1);
+
+        assertEquals(1, root.getChildren().size());
+    }
+
+    @Test
+    void concurrentRequestsShareOneIndexBuild() throws Exception {
+        givenLegacyAnalysis();
+        CountDownLatch buildStarted = new CountDownLatch(1);
+        CountDownLatch finishBuild = new CountDownLatch(1);
+        doAnswer(_ -> {
+            buildStarted.countDown();
+            assertTrue(finishBuild.await(5, TimeUnit.SECONDS));
+            indexBuilt.set(true);
+            return null;
+        }).when(analysisResultsBulkWriter).saveAll(eq(RepositoryDirectory.class), anyCollection());
+
+        CompletableFuture<RepositoryStructureNode> first =
+                CompletableFuture.supplyAsync(() -> repositoryDirectoryIndexService.getSubtree(ANALYSIS_ID, "", 1));
+        assertTrue(buildStarted.await(5, TimeUnit.SECONDS));
+        // The first build has inserted part of the index already
+        when(repositoryDirectoryRepository.existsByAnalysisId(ANALYSIS_ID)).thenReturn(true);
+        CompletableFuture<RepositoryStructureNode> second =
+                CompletableFuture.supplyAsync(() -> repositoryDirectoryIndexService.getSubtree(ANALYSIS_ID, "", 1));
+
+        Thread.sleep(100);
+        finishBuild.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).getChildren().size());
+        assertEquals(1, second.get(5, TimeUnit.SECONDS).getChildren().size());
+        verify(analysisResultsBulkWriter, times(1)).saveAll(eq(RepositoryDirectory.class), anyCollection());
+    }
+
+    /**
+     * Analysis persisted without its directory index, the root directory is readable once the index is built.
+     */
+    private void givenLegacyAnalysis() {
+        List<FileInfo> fileInfo = List.of(FileInfo.builder()
+                .analysisId(ANALYSIS_ID)
+                .filePath("README.md")
+                .fileName("README.md")
+                .codeLines(10)
+                .totalLines(10)
+                .totalCommits(1)
+                .build());
+        RepositoryStructureNode root = new RepositoryStructureService().buildRepositoryStructure(fileInfo, List.of());
+        RepositoryDirectory rootDirectory = repositoryDirectoryIndexService.buildDirectories(ANALYSIS_ID, root).getLast();
+
+        when(analysisFileResultsReader.findAllFileInfo(ANALYSIS_ID)).thenReturn(fileInfo);
+        when(analysisFileResultsReader.findAllFileKnowledge(ANALYSIS_ID)).thenReturn(List.of());
+        when(repositoryDirectoryRepository.existsByAnalysisId(ANALYSIS_ID)).thenAnswer(_ -> indexBuilt.get());
+        when(repositoryDirectoryRepository.findByAnalysisIdAndPath(eq(ANALYSIS_ID), anyString()))
+                .thenAnswer(_ -> indexBuilt.get() ? Optional.of(rootDirectory) : Optional.empty());
+    }
+
+}
@@ -0,0 +1,60 @@
+package pwr.zpi.hotspotter.repositoryanalysis.service;
+
+import org.junit.jupiter.api.Test;
+import pwr.zpi.hotspotter.repositoryanalysis.analyzer.fileinfo.model.FileInfo;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureMetrics;
+import pwr.zpi.hotspotter.repositoryanalysis.model.RepositoryStructureNode;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RepositoryStructureServiceTest {
+
+    private final RepositoryStructureService repositoryStructureService = new RepositoryStructureService();
+
+    @Test
+    void rollsUpMetricsIntoDirectoriesOnly() {
+        RepositoryStructureNode root = repositoryStructureService.buildRepositoryStructure(List.of(
+                fileInfo("src/main/A.java", 100, 10),
+                fileInfo("src/main/B.java", 50, 4),
+                fileInfo("README.md", 20, 1)
+        ), List.of());
+
+        RepositoryStructureMetrics rootMetrics = root.getMetrics();
+        assertEquals(3, rootMetrics.getFileCount());
+        assertEquals(170L, rootMetrics.getCodeLines());
+        assertEquals(15L, rootMetrics.getTotalCommits());
+        assertEquals(10, rootMetrics.getMaxCommits());
+
+        RepositoryStructureNode main = child(child(root, "src"), "main");
+        assertEquals(2, main.getMetrics().getFileCount());
+        assertEquals(150L, main.getMetrics().getCodeLines());
+
+        RepositoryStructureNode file = child(main, "A.java");
+        assertNull(file.getMetrics());
+        assertNotNull(file.getHeight());
+        assertEquals(1.0, file.getWidth());
+    }
+
+    private RepositoryStructureNode child(RepositoryStructureNode node, String name) {
+        return node.getChildren().stream()
+                .filter(child -> child.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private FileInfo fileInfo(String filePath, int codeLines, int commits) {
+        return FileInfo.builder()
+                .analysisId("analysis")
+                .filePath(filePath)
+                .fileName(filePath.substring(filePath.lastIndexOf('/') + 1))
+                .codeLines(codeLines)
+                .totalLines(codeLines)
+                .totalCommits(commits)
+                .build();
+    }
+
+}
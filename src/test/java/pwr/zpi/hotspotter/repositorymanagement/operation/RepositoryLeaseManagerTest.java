@@ -0,0 +1,177 @@
+package pwr.zpi.hotspotter.repositorymanagement.operation;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryLeaseException;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryLease;
+import pwr.zpi.hotspotter.repositorymanagement.repository.RepositoryInfoRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs two instances, this test context and a second application context, against the same Mongo server.
+ */
+@DataMongoTest(properties = "repositories.lease-ttl-seconds=" + RepositoryLeaseManagerTest.LEASE_TTL_SECONDS)
+@ActiveProfiles("test")
+@Import({RepositoryManagementConfig.class, RepositoryLeaseManager.class, RepositoryOperationQueue.class,
+        FencedRepositoryInfoWriter.class})
+class RepositoryLeaseManagerTest {
+
+    static final int LEASE_TTL_SECONDS = 5;
+    private static final String REPOSITORY_URL = "https://github.com/owner/repository";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private RepositoryInfoRepository repositoryInfoRepository;
+
+    @Autowired
+    private RepositoryLeaseManager repositoryLeaseManager;
+
+    @Autowired
+    private RepositoryOperationQueue repositoryOperationQueue;
+
+    @Autowired
+    private FencedRepositoryInfoWriter fencedRepositoryInfoWriter;
+
+    private ConfigurableApplicationContext otherInstance;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(RepositoryLease.class);
+        mongoTemplate.dropCollection(RepositoryInfo.class);
+
+        ServerAddress address = mongoClient.getClusterDescription().getClusterSettings().getHosts().getFirst();
+        otherInstance = new SpringApplicationBuilder(OtherInstance.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "spring.data.mongodb.uri=mongodb://" + address.getHost() + ":" + address.getPort() + "/"
+                                + mongoTemplate.getDb().getName(),
+                        "repositories.lease-ttl-seconds=" + LEASE_TTL_SECONDS)
+                .run();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherInstance.close();
+    }
+
+    @Test
+    void leaseExcludesOtherInstance() {
+        RepositoryOperationQueue otherQueue = otherInstance.getBean(RepositoryOperationQueue.class);
+
+        boolean executed = repositoryOperationQueue.tryExecuteOperation(REPOSITORY_URL, () -> {
+            assertFalse(otherQueue.tryExecuteOperation(REPOSITORY_URL, () -> true));
+            return true;
+        });
+
+        assertTrue(executed);
+        assertTrue(otherQueue.tryExecuteOperation(REPOSITORY_URL, () -> true));
+    }
+
+    @Test
+    void rejectsWritesOfSupersededLeaseHolder() {
+        RepositoryInfo repositoryInfo = repositoryInfoRepository.save(repositoryInfo());
+        RepositoryLeaseManager.Lease lease = repositoryLeaseManager.acquire(REPOSITORY_URL);
+        fencedRepositoryInfoWriter.save(repositoryInfo);
+
+        RepositoryLeaseManager.Lease otherLease = takeOver();
+        RepositoryInfo otherCopy = repositoryInfoRepository.findById(repositoryInfo.getId()).orElseThrow();
+        otherCopy.setSizeInBytes(2048L);
+        otherInstance.getBean(FencedRepositoryInfoWriter.class).save(otherCopy);
+
+        repositoryInfo.setSizeInBytes(1024L);
+        assertThrows(RepositoryLeaseException.class, () -> fencedRepositoryInfoWriter.save(repositoryInfo));
+
+        RepositoryInfo stored = repositoryInfoRepository.findById(repositoryInfo.getId()).orElseThrow();
+        assertEquals(2048L, stored.getSizeInBytes());
+        assertEquals(otherLease.getFencingToken(), stored.getFencingToken());
+        repositoryLeaseManager.release(lease);
+        otherInstance.getBean(RepositoryLeaseManager.class).release(otherLease);
+    }
+
+    @Test
+    void operationFailsOnceLeaseIsLost() throws InterruptedException {
+        RepositoryLeaseManager.Lease lease = repositoryLeaseManager.acquire(REPOSITORY_URL);
+        assertNotNull(repositoryLeaseManager.checkLease(REPOSITORY_URL));
+
+        RepositoryLeaseManager.Lease otherLease = takeOver();
+        long deadline = System.currentTimeMillis() + 2000L * LEASE_TTL_SECONDS;
+        while (!lease.isLost() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+
+        assertTrue(lease.isLost());
+        assertThrows(RepositoryLeaseException.class, () -> repositoryLeaseManager.checkLease(REPOSITORY_URL));
+        repositoryLeaseManager.release(lease);
+        otherInstance.getBean(RepositoryLeaseManager.class).release(otherLease);
+    }
+
+    /**
+     * Expires the lease in Mongo, as if this instance stalled past the TTL, and lets the other instance take it.
+     */
+    private RepositoryLeaseManager.Lease takeOver() {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(REPOSITORY_URL)),
+                Update.update("expiresAt", Instant.EPOCH), RepositoryLease.class);
+        RepositoryLeaseManager.Lease otherLease = otherInstance.getBean(RepositoryLeaseManager.class).tryAcquire(REPOSITORY_URL);
+        assertNotNull(otherLease);
+        return otherLease;
+    }
+
+    private RepositoryInfo repositoryInfo() {
+        RepositoryInfo repositoryInfo = new RepositoryInfo();
+        repositoryInfo.setRemoteUrl(REPOSITORY_URL);
+        repositoryInfo.setName("repository");
+        repositoryInfo.setOwner("owner");
+        repositoryInfo.setPlatform("github.com");
+        repositoryInfo.setLocalPath("/tmp/repositories/github.com/owner/repository");
+        repositoryInfo.setClonedAt(LocalDateTime.now());
+        repositoryInfo.setLastAccessedAt(LocalDateTime.now());
+        repositoryInfo.setAccessCount(0);
+        return repositoryInfo;
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({MongoAutoConfiguration.class, MongoDataAutoConfiguration.class,
+            MongoRepositoriesAutoConfiguration.class, ConfigurationPropertiesAutoConfiguration.class})
+    @EnableMongoRepositories(basePackageClasses = RepositoryInfoRepository.class)
+    @Import({RepositoryManagementConfig.class, RepositoryLeaseManager.class, RepositoryOperationQueue.class,
+            FencedRepositoryInfoWriter.class})
+    static class OtherInstance { }
+
+}
@@ -0,0 +1,69 @@
+package pwr.zpi.hotspotter.repositorymanagement.operation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryPin;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataMongoTest
+@ActiveProfiles("test")
+class RepositoryPinManagerTest {
+
+    private static final String REPOSITORY_URL = "https://github.com/owner/repository";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private RepositoryPinManager pinningInstance;
+    private RepositoryPinManager evictingInstance;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(RepositoryPin.class);
+        RepositoryManagementConfig repositoryManagementConfig = new RepositoryManagementConfig();
+        pinningInstance = new RepositoryPinManager(mongoTemplate, repositoryManagementConfig);
+        evictingInstance = new RepositoryPinManager(mongoTemplate, repositoryManagementConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pinningInstance.shutdown();
+        evictingInstance.shutdown();
+    }
+
+    @Test
+    void pinIsVisibleToOtherInstancesUntilReleased() {
+        pinningInstance.pin(REPOSITORY_URL, "first");
+        pinningInstance.pin(REPOSITORY_URL, "second");
+        assertTrue(evictingInstance.isPinned(REPOSITORY_URL));
+
+        pinningInstance.unpin("first");
+        assertTrue(evictingInstance.isPinned(REPOSITORY_URL));
+
+        pinningInstance.unpin("second");
+        assertFalse(evictingInstance.isPinned(REPOSITORY_URL));
+    }
+
+    @Test
+    void expiredPinDoesNotProtectRepository() {
+        mongoTemplate.save(RepositoryPin.builder()
+                .id("abandoned")
+                .repositoryUrl(REPOSITORY_URL)
+                .ownerId("stopped-instance")
+                .expiresAt(Instant.now().minusSeconds(1))
+                .build());
+
+        assertFalse(evictingInstance.isPinned(REPOSITORY_URL));
+    }
+
+}
@@ -0,0 +1,86 @@
+package pwr.zpi.hotspotter.repositorymanagement.operation;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryWorktree;
+import pwr.zpi.hotspotter.repositorymanagement.transport.GitCommandRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RepositoryWorktreeManagerTest {
+
+    @TempDir
+    private Path tempDirectory;
+
+    private final RepositoryPinManager repositoryPinManager = mock(RepositoryPinManager.class);
+    private RepositoryManagementConfig repositoryManagementConfig;
+    private RepositoryInfo repositoryInfo;
+    private String commitId;
+
+    @BeforeEach
+    void setUp() throws GitAPIException, IOException {
+        repositoryManagementConfig = new RepositoryManagementConfig();
+        repositoryManagementConfig.setBaseDirectory(tempDirectory.toString());
+
+        Path repositoryPath = tempDirectory.resolve("repository");
+        try (Git git = Git.init().setInitialBranch("main").setDirectory(repositoryPath.toFile()).call()) {
+            Files.writeString(repositoryPath.resolve("README.md"), "content");
+            git.add().addFilepattern("README.md").call();
+            commitId = git.commit().setMessage("initial").setAuthor("Test", "test@example.com")
+                    .setCommitter("Test", "test@example.com").setSign(false).call().name();
+        }
+
+        repositoryInfo = new RepositoryInfo();
+        repositoryInfo.setLocalPath(repositoryPath.toString());
+    }
+
+    @Test
+    void keepsSharedCheckoutPinnedWhenWorktreesAreDisabled() {
+        repositoryManagementConfig.setAnalysisWorktreesEnabled(false);
+        RepositoryWorktreeManager repositoryWorktreeManager = createManager();
+
+        RepositoryWorktree worktree = repositoryWorktreeManager.checkout(repositoryInfo, commitId, "analysis", "pin");
+        assertFalse(worktree.linked());
+        verify(repositoryPinManager, never()).unpin("pin");
+
+        repositoryWorktreeManager.release(worktree);
+        verify(repositoryPinManager).unpin("pin");
+    }
+
+    @Test
+    void shutdownRemovesOnlyOwnWorktrees() throws IOException {
+        RepositoryWorktreeManager otherInstance = createManager();
+        RepositoryWorktree otherWorktree = otherInstance.checkout(repositoryInfo, commitId, "other-analysis", "other-pin");
+
+        RepositoryWorktreeManager repositoryWorktreeManager = createManager();
+        RepositoryWorktree worktree = repositoryWorktreeManager.checkout(repositoryInfo, commitId, "analysis", "pin");
+        assertEquals("content", Files.readString(worktree.path().resolve("README.md")));
+
+        repositoryWorktreeManager.shutdown();
+
+        assertFalse(Files.exists(worktree.path()));
+        assertTrue(Files.exists(otherWorktree.path().resolve("README.md")));
+        verify(repositoryPinManager).unpin("pin");
+        verify(repositoryPinManager, never()).unpin("other-pin");
+    }
+
+    private RepositoryWorktreeManager createManager() {
+        return new RepositoryWorktreeManager(repositoryManagementConfig, new GitCommandRunner(repositoryManagementConfig),
+                repositoryPinManager);
+    }
+
+}
@@ -0,0 +1,123 @@
+package pwr.zpi.hotspotter.repositorymanagement.service;
+
+import org.junit.jupiter.api.Test;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.exception.RepositoryCloneException;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.operation.FencedRepositoryInfoWriter;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryCloner;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryLeaseManager;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryOperationQueue;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryPinManager;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryUpdater;
+import pwr.zpi.hotspotter.repositorymanagement.parser.RepositoryUrlParser;
+import pwr.zpi.hotspotter.repositorymanagement.repository.RepositoryInfoRepository;
+import pwr.zpi.hotspotter.repositorymanagement.storage.DiskSpaceManager;
+import pwr.zpi.hotspotter.repositorymanagement.storage.RepositoryMaintenanceService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RepositoryManagementServiceTest {
+
+    private static final List<String> REPOSITORY_URLS = List.of(
+            "https://github.com/owner/repository",
+            "github.com/owner/repository",
+            "https://github.com/owner/repository.git"
+    );
+
+    private final RepositoryInfoRepository repositoryInfoRepository = mock(RepositoryInfoRepository.class);
+    private final RepositoryCloner repositoryCloner = mock(RepositoryCloner.class);
+    private final RepositoryMaintenanceService repositoryMaintenanceService = mock(RepositoryMaintenanceService.class);
+    private final RepositoryManagementService repositoryManagementService = new RepositoryManagementService(
+            new RepositoryUrlParser(),
+            repositoryInfoRepository,
+            repositoryCloner,
+            mock(RepositoryUpdater.class),
+            new RepositoryOperationQueue(mock(RepositoryLeaseManager.class)),
+            mock(RepositoryPinManager.class),
+            mock(FencedRepositoryInfoWriter.class),
+            mock(DiskSpaceManager.class),
+            repositoryMaintenanceService,
+            new RepositoryManagementConfig());
+
+    private final CountDownLatch finishClone = new CountDownLatch(1);
+
+    @Test
+    void concurrentRequestsForOneRepositoryShareASingleSync() throws Exception {
+        RepositoryInfo cloned = new RepositoryInfo();
+        when(repositoryInfoRepository.findByNameAndOwnerAndPlatform(anyString(), anyString(), anyString())).thenReturn(Optional.empty());
+        when(repositoryCloner.clone(any())).thenAnswer(_ -> {
+            assertTrue(finishClone.await(10, TimeUnit.SECONDS));
+            return cloned;
+        });
+
+        List<FutureTask<RepositoryInfo>> requests = startRequestsAndWaitForAllToBlock();
+        finishClone.countDown();
+
+        for (FutureTask<RepositoryInfo> request : requests) {
+            assertSame(cloned, request.get(10, TimeUnit.SECONDS));
+        }
+        verify(repositoryCloner, times(1)).clone(any());
+        verify(repositoryMaintenanceService, times(1)).scheduleMaintenance(cloned);
+    }
+
+    @Test
+    void failedSyncIsReportedToEveryWaitingCallerAndRetriedByTheNextRequest() throws Exception {
+        when(repositoryInfoRepository.findByNameAndOwnerAndPlatform(anyString(), anyString(), anyString())).thenReturn(Optional.empty());
+        when(repositoryCloner.clone(any())).thenAnswer(_ -> {
+            assertTrue(finishClone.await(10, TimeUnit.SECONDS));
+            throw new RepositoryCloneException("clone failed");
+        });
+
+        List<FutureTask<RepositoryInfo>> requests = startRequestsAndWaitForAllToBlock();
+        finishClone.countDown();
+
+        for (FutureTask<RepositoryInfo> request : requests) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> request.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(RepositoryCloneException.class, e.getCause());
+        }
+        verify(repositoryCloner, times(1)).clone(any());
+
+        assertThrows(RepositoryCloneException.class, () -> repositoryManagementService.cloneOrUpdateRepository(REPOSITORY_URLS.getFirst()));
+        verify(repositoryCloner, times(2)).clone(any());
+    }
+
+    /**
+     * Starts one request per URL spelling, each waiting either in the clone or on the shared in-flight sync.
+     */
+    private List<FutureTask<RepositoryInfo>> startRequestsAndWaitForAllToBlock() throws InterruptedException {
+        List<FutureTask<RepositoryInfo>> requests = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (String repositoryUrl : REPOSITORY_URLS) {
+            FutureTask<RepositoryInfo> request = new FutureTask<>(() -> repositoryManagementService.cloneOrUpdateRepository(repositoryUrl));
+            requests.add(request);
+            threads.add(Thread.ofPlatform().start(request));
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING
+                || thread.getState() == Thread.State.TIMED_WAITING)) {
+            assertTrue(System.currentTimeMillis() < deadline, "Requests did not block");
+            Thread.sleep(10);
+        }
+        return requests;
+    }
+
+}
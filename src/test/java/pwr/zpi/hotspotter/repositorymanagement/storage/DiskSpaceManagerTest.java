@@ -0,0 +1,135 @@
+package pwr.zpi.hotspotter.repositorymanagement.storage;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.operation.FencedRepositoryInfoWriter;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryLeaseManager;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryOperationQueue;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryPinManager;
+import pwr.zpi.hotspotter.repositorymanagement.repository.RepositoryInfoRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiskSpaceManagerTest {
+
+    private static final long GIGABYTE = 1024L * 1024L * 1024L;
+
+    @TempDir
+    private Path tempDirectory;
+
+    private final RepositoryInfoRepository repositoryInfoRepository = mock(RepositoryInfoRepository.class);
+    private final RepositoryEvictionPolicy repositoryEvictionPolicy = mock(RepositoryEvictionPolicy.class);
+    private final RepositoryColdStorage repositoryColdStorage = mock(RepositoryColdStorage.class);
+    private final FencedRepositoryInfoWriter fencedRepositoryInfoWriter = mock(FencedRepositoryInfoWriter.class);
+    private final Map<String, RepositoryInfo> storedRepositories = new HashMap<>();
+    private RepositoryManagementConfig repositoryManagementConfig;
+    private DiskSpaceManager diskSpaceManager;
+
+    @BeforeEach
+    void setUp() {
+        repositoryManagementConfig = new RepositoryManagementConfig();
+        repositoryManagementConfig.setBaseDirectory(tempDirectory.resolve("hot").toString());
+        repositoryManagementConfig.setColdStorageDirectory(tempDirectory.resolve("cold").toString());
+
+        when(repositoryEvictionPolicy.orderForEviction(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(repositoryInfoRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(storedRepositories.get(invocation.<String>getArgument(0))));
+        diskSpaceManager = new DiskSpaceManager(repositoryInfoRepository, repositoryManagementConfig,
+                mock(RepositoryPinManager.class), new RepositoryOperationQueue(mock(RepositoryLeaseManager.class)),
+                repositoryEvictionPolicy, repositoryColdStorage, mock(RepositoryLeaseManager.class),
+                fencedRepositoryInfoWriter);
+    }
+
+    @Test
+    void deletesColdRepositoriesBeyondTheCap() {
+        repositoryManagementConfig.setColdStorageMaxSizeGb(2L);
+        RepositoryInfo large = repositoryInfo("large", RepositoryInfo.StorageTier.COLD, 2 * GIGABYTE);
+        RepositoryInfo small = repositoryInfo("small", RepositoryInfo.StorageTier.COLD, GIGABYTE);
+        RepositoryInfo hot = repositoryInfo("hot", RepositoryInfo.StorageTier.HOT, 5 * GIGABYTE);
+        when(repositoryInfoRepository.findAll()).thenReturn(List.of(large, small, hot));
+
+        diskSpaceManager.enforceColdStorageCap();
+
+        verify(fencedRepositoryInfoWriter).delete(large);
+        verify(fencedRepositoryInfoWriter, never()).delete(small);
+        verify(fencedRepositoryInfoWriter, never()).delete(hot);
+    }
+
+    @Test
+    void skipsRepositoriesWrittenOrDeletedSinceTheCleanupStarted() {
+        repositoryManagementConfig.setColdStorageMaxSizeGb(1L);
+        RepositoryInfo accessed = repositoryInfo("accessed", RepositoryInfo.StorageTier.COLD, GIGABYTE);
+        RepositoryInfo deleted = repositoryInfo("deleted", RepositoryInfo.StorageTier.COLD, GIGABYTE);
+        RepositoryInfo idle = repositoryInfo("idle", RepositoryInfo.StorageTier.COLD, GIGABYTE);
+        when(repositoryInfoRepository.findAll()).thenReturn(List.of(accessed, deleted, idle));
+
+        RepositoryInfo accessedSinceRead = repositoryInfo("accessed", RepositoryInfo.StorageTier.COLD, GIGABYTE);
+        accessedSinceRead.setLastAccessedAt(LocalDateTime.now());
+        storedRepositories.remove(deleted.getId());
+
+        diskSpaceManager.enforceColdStorageCap();
+
+        verify(fencedRepositoryInfoWriter, never()).delete(accessed);
+        verify(fencedRepositoryInfoWriter, never()).delete(deleted);
+        verify(fencedRepositoryInfoWriter).delete(idle);
+        verify(repositoryEvictionPolicy).recordEviction(idle);
+        verify(repositoryEvictionPolicy, never()).recordEviction(accessed);
+        verify(repositoryEvictionPolicy, never()).recordEviction(deleted);
+    }
+
+    @Test
+    void keepsRepositoryColdInPlaceWhenCompactionFails() throws GitAPIException, IOException {
+        Path localPath = tempDirectory.resolve("hot").resolve("github.com/owner/repository");
+        Files.createDirectories(localPath);
+        Git.init().setDirectory(localPath.toFile()).call().close();
+        RepositoryInfo repositoryInfo = repositoryInfo("repository", RepositoryInfo.StorageTier.HOT, GIGABYTE);
+        repositoryInfo.setLocalPath(localPath.toString());
+        when(repositoryColdStorage.compact(any(), any())).thenThrow(new IOException("repack failed"));
+
+        assertFalse(diskSpaceManager.compactRepository(repositoryInfo));
+
+        assertEquals(RepositoryInfo.StorageTier.COLD, repositoryInfo.getStorageTier());
+        assertEquals(localPath.toString(), repositoryInfo.getLocalPath());
+        verify(fencedRepositoryInfoWriter).save(repositoryInfo);
+    }
+
+    private RepositoryInfo repositoryInfo(String name, RepositoryInfo.StorageTier storageTier, long sizeInBytes) {
+        RepositoryInfo repositoryInfo = new RepositoryInfo();
+        repositoryInfo.setId(name);
+        repositoryInfo.setRemoteUrl("https://github.com/owner/" + name);
+        repositoryInfo.setPlatform("github.com");
+        repositoryInfo.setOwner("owner");
+        repositoryInfo.setName(name);
+        Path directory = storageTier == RepositoryInfo.StorageTier.COLD
+                ? repositoryManagementConfig.getColdStoragePath()
+                : Path.of(repositoryManagementConfig.getBaseDirectory());
+        repositoryInfo.setLocalPath(directory.resolve(name).toString());
+        repositoryInfo.setStorageTier(storageTier);
+        repositoryInfo.setSizeInBytes(sizeInBytes);
+        storedRepositories.put(name, repositoryInfo);
+        return repositoryInfo;
+    }
+
+}
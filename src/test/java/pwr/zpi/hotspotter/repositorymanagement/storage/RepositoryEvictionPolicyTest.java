@@ -0,0 +1,76 @@
+package pwr.zpi.hotspotter.repositorymanagement.storage;
+
+import org.junit.jupiter.api.Test;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RepositoryEvictionPolicyTest {
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    private final RepositoryEvictionPolicy repositoryEvictionPolicy =
+            new RepositoryEvictionPolicy(new RepositoryManagementConfig());
+
+    @Test
+    void evictsCheapToCloneLargeAndRarelyUsedRepositoriesFirst() {
+        RepositoryInfo large = repositoryInfo("large", 100 * MEGABYTE, 1_000L, 1);
+        RepositoryInfo small = repositoryInfo("small", 10 * MEGABYTE, 1_000L, 1);
+        RepositoryInfo frequent = repositoryInfo("frequent", 100 * MEGABYTE, 1_000L, 20);
+        // Clone cost estimated from the size, about 105 seconds for a gigabyte
+        RepositoryInfo legacy = repositoryInfo("legacy", 1024 * MEGABYTE, null, 1);
+
+        assertEquals(List.of("large", "small", "legacy", "frequent"),
+                names(repositoryEvictionPolicy.orderForEviction(List.of(frequent, legacy, small, large))));
+    }
+
+    @Test
+    void repositoriesNotAccessedSinceAnEvictionAgeOut() {
+        RepositoryInfo evicted = repositoryInfo("evicted", 10 * MEGABYTE, 1_500L, 1);
+        RepositoryInfo idle = repositoryInfo("idle", 10 * MEGABYTE, 1_000L, 1);
+        RepositoryInfo accessed = repositoryInfo("accessed", 100 * MEGABYTE, 1_000L, 1);
+        List.of(evicted, idle, accessed).forEach(repositoryEvictionPolicy::recordAccess);
+        assertEquals(List.of("accessed", "idle", "evicted"),
+                names(repositoryEvictionPolicy.orderForEviction(List.of(evicted, idle, accessed))));
+
+        repositoryEvictionPolicy.recordEviction(evicted);
+        repositoryEvictionPolicy.recordAccess(accessed);
+
+        assertEquals(150.0 + 10.0, accessed.getEvictionPriority());
+        assertEquals(List.of("idle", "accessed"),
+                names(repositoryEvictionPolicy.orderForEviction(List.of(idle, accessed))));
+    }
+
+    @Test
+    void restoresInflationFromTheLowestStoredPriority() {
+        RepositoryInfo stored = repositoryInfo("stored", 10 * MEGABYTE, 1_000L, 1);
+        stored.setEvictionPriority(500.0);
+        RepositoryInfo other = repositoryInfo("other", 10 * MEGABYTE, 1_000L, 1);
+        other.setEvictionPriority(800.0);
+        repositoryEvictionPolicy.initialize(List.of(stored, other));
+
+        RepositoryInfo accessed = repositoryInfo("accessed", 10 * MEGABYTE, 1_000L, 1);
+        repositoryEvictionPolicy.recordAccess(accessed);
+
+        assertEquals(500.0 + 100.0, accessed.getEvictionPriority());
+        assertEquals(List.of("stored", "accessed", "other"),
+                names(repositoryEvictionPolicy.orderForEviction(List.of(other, accessed, stored))));
+    }
+
+    private List<String> names(List<RepositoryInfo> repositories) {
+        return repositories.stream().map(RepositoryInfo::getName).toList();
+    }
+
+    private RepositoryInfo repositoryInfo(String name, long sizeInBytes, Long cloneDurationMillis, int accessCount) {
+        RepositoryInfo repositoryInfo = new RepositoryInfo();
+        repositoryInfo.setName(name);
+        repositoryInfo.setSizeInBytes(sizeInBytes);
+        repositoryInfo.setCloneDurationMillis(cloneDurationMillis);
+        repositoryInfo.setAccessCount(accessCount);
+        return repositoryInfo;
+    }
+
+}
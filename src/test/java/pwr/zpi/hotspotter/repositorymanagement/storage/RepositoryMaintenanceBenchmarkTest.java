@@ -0,0 +1,167 @@
+package pwr.zpi.hotspotter.repositorymanagement.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.LogExtractor;
+import pwr.zpi.hotspotter.repositoryanalysis.logprocessing.config.LogExtractorConfig;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.operation.FencedRepositoryInfoWriter;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryLeaseManager;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryOperationQueue;
+import pwr.zpi.hotspotter.repositorymanagement.transport.GitCommandRunner;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures log extraction of a generated repository before and after {@link RepositoryMaintenanceService} wrote its
+ * commit-graph, both for the full {@code --numstat} log of {@link LogExtractor} and for a path-limited log, which can
+ * use the changed-path Bloom filters. Run with {@code mvn test -Dbenchmarks=true -Dtest=RepositoryMaintenanceBenchmarkTest}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class RepositoryMaintenanceBenchmarkTest {
+
+    private static final int COMMIT_COUNT = 50_000;
+    private static final int FILE_COUNT = 10_000;
+    private static final int FILES_PER_COMMIT = 4;
+    private static final int RUNS = 3;
+    private static final String LIMITED_PATH = "src/module7";
+
+    @TempDir
+    private static Path tempDirectory;
+
+    private static Path repositoryPath;
+    private static RepositoryManagementConfig repositoryManagementConfig;
+    private static GitCommandRunner gitCommandRunner;
+
+    @BeforeAll
+    static void generateRepository() throws IOException, InterruptedException {
+        repositoryManagementConfig = new RepositoryManagementConfig();
+        repositoryManagementConfig.setBaseDirectory(tempDirectory.toString());
+        gitCommandRunner = new GitCommandRunner(repositoryManagementConfig);
+
+        repositoryPath = tempDirectory.resolve("generated");
+        Files.createDirectories(repositoryPath);
+        gitCommandRunner.run(repositoryPath, List.of("git", "init", "-q", "-b", "main"));
+
+        long startTime = System.currentTimeMillis();
+        Process fastImport = new ProcessBuilder("git", "fast-import", "--quiet")
+                .directory(repositoryPath.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try (Writer writer = new OutputStreamWriter(fastImport.getOutputStream(), StandardCharsets.UTF_8)) {
+            writeHistory(writer);
+        }
+        assertEquals(0, fastImport.waitFor());
+        gitCommandRunner.run(repositoryPath, List.of("git", "reset", "-q", "--hard", "main"));
+        log.info("Generated {} commits touching {} files in {} ms", COMMIT_COUNT, FILE_COUNT,
+                System.currentTimeMillis() - startTime);
+    }
+
+    private static void writeHistory(Writer writer) throws IOException {
+        Random random = new Random(42);
+        long timestamp = 1_500_000_000L;
+
+        for (int commit = 1; commit <= COMMIT_COUNT; commit++) {
+            int author = random.nextInt(50);
+            String message = "Commit " + commit;
+            writer.write("commit refs/heads/main\n");
+            writer.write("author Author" + author + " <author" + author + "@example.com> " + timestamp + " +0000\n");
+            writer.write("committer Author" + author + " <author" + author + "@example.com> " + timestamp + " +0000\n");
+            writeData(writer, message);
+
+            for (int change = 0; change < FILES_PER_COMMIT; change++) {
+                int file = random.nextInt(FILE_COUNT);
+                writer.write("M 100644 inline src/module" + file % 100 + "/File" + file + ".java\n");
+                writeData(writer, "class File" + file + " {\n    // " + message + "\n}\n");
+            }
+            timestamp += 1_800;
+        }
+    }
+
+    private static void writeData(Writer writer, String data) throws IOException {
+        writer.write("data " + data.getBytes(StandardCharsets.UTF_8).length + "\n");
+        writer.write(data);
+        writer.write("\n");
+    }
+
+    @Test
+    void logExtractionWithCommitGraph() throws IOException, InterruptedException {
+        LogExtractor logExtractor = new LogExtractor(repositoryManagementConfig, new LogExtractorConfig());
+        long withoutCommitGraph = measure(logExtractor);
+        long pathLimitedWithoutCommitGraph = measurePathLimitedLog();
+
+        RepositoryLeaseManager repositoryLeaseManager = mock(RepositoryLeaseManager.class);
+        RepositoryMaintenanceService repositoryMaintenanceService = new RepositoryMaintenanceService(
+                repositoryManagementConfig, gitCommandRunner, mock(DiskSpaceManager.class),
+                new RepositoryOperationQueue(repositoryLeaseManager), repositoryLeaseManager,
+                mock(FencedRepositoryInfoWriter.class));
+        RepositoryInfo repositoryInfo = new RepositoryInfo();
+        repositoryInfo.setRemoteUrl(repositoryPath.toUri().toString());
+        repositoryInfo.setLocalPath(repositoryPath.toString());
+
+        long startTime = System.currentTimeMillis();
+        repositoryMaintenanceService.scheduleMaintenance(repositoryInfo);
+        long maintenanceMillis = System.currentTimeMillis() - startTime;
+        assertEquals(RepositoryInfo.MaintenanceStatus.SUCCEEDED, repositoryInfo.getMaintenanceStatus());
+        assertTrue(Files.exists(repositoryPath.resolve(".git/objects/info/commit-graph")));
+
+        long withCommitGraph = measure(logExtractor);
+        long pathLimitedWithCommitGraph = measurePathLimitedLog();
+        log.info("Log extraction of {} commits: without commit-graph {} ms, with commit-graph {} ms ({}x), "
+                        + "writing the commit-graph took {} ms", COMMIT_COUNT, withoutCommitGraph, withCommitGraph,
+                String.format("%.2f", (double) withoutCommitGraph / withCommitGraph), maintenanceMillis);
+        log.info("Log of {}: without commit-graph {} ms, with commit-graph {} ms ({}x)", LIMITED_PATH,
+                pathLimitedWithoutCommitGraph, pathLimitedWithCommitGraph,
+                String.format("%.2f", (double) pathLimitedWithoutCommitGraph / pathLimitedWithCommitGraph));
+    }
+
+    /**
+     * @return the fastest of the runs, in milliseconds
+     */
+    private long measure(LogExtractor logExtractor) throws IOException {
+        long fastest = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long startTime = System.currentTimeMillis();
+            Path logFile = logExtractor.extractLogs(repositoryPath, UUID.randomUUID().toString(), null, null);
+            fastest = Math.min(fastest, System.currentTimeMillis() - startTime);
+
+            assertTrue(Files.size(logFile) > 0);
+            logExtractor.deleteLogFile(logFile);
+        }
+        return fastest;
+    }
+
+    private long measurePathLimitedLog() throws IOException, InterruptedException {
+        long fastest = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long startTime = System.currentTimeMillis();
+            Process process = new ProcessBuilder("git", "log", "--numstat", "--", LIMITED_PATH)
+                    .directory(repositoryPath.toFile())
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            assertEquals(0, process.waitFor());
+            fastest = Math.min(fastest, System.currentTimeMillis() - startTime);
+        }
+        return fastest;
+    }
+
+}
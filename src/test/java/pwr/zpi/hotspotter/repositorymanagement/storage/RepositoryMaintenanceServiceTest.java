@@ -0,0 +1,61 @@
+package pwr.zpi.hotspotter.repositorymanagement.storage;
+
+import org.junit.jupiter.api.Test;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.model.RepositoryInfo;
+import pwr.zpi.hotspotter.repositorymanagement.operation.FencedRepositoryInfoWriter;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryLeaseManager;
+import pwr.zpi.hotspotter.repositorymanagement.operation.RepositoryOperationQueue;
+import pwr.zpi.hotspotter.repositorymanagement.transport.GitCommandRunner;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RepositoryMaintenanceServiceTest {
+
+    private static final String REMOTE_URL = "https://github.com/owner/repository";
+
+    private final GitCommandRunner gitCommandRunner = mock(GitCommandRunner.class);
+    private final RepositoryOperationQueue repositoryOperationQueue = mock(RepositoryOperationQueue.class);
+    private final RepositoryMaintenanceService repositoryMaintenanceService = new RepositoryMaintenanceService(
+            new RepositoryManagementConfig(), gitCommandRunner, mock(DiskSpaceManager.class), repositoryOperationQueue,
+            mock(RepositoryLeaseManager.class), mock(FencedRepositoryInfoWriter.class));
+
+    @Test
+    void skipsMaintenanceWhileRepositoryIsBusy() throws IOException {
+        when(repositoryOperationQueue.tryExecuteOperation(eq(REMOTE_URL), any())).thenReturn(false);
+
+        repositoryMaintenanceService.scheduleMaintenance(repositoryInfo());
+
+        verify(repositoryOperationQueue).tryExecuteOperation(eq(REMOTE_URL), any());
+        verify(gitCommandRunner, never()).run(any(), any());
+    }
+
+    @Test
+    void skipsRepositoryMaintainedSinceLastSync() {
+        RepositoryInfo repositoryInfo = repositoryInfo();
+        repositoryInfo.setMaintenanceStatus(RepositoryInfo.MaintenanceStatus.SUCCEEDED);
+        repositoryInfo.setLastMaintainedAt(repositoryInfo.getLastSyncedAt().plusMinutes(1));
+
+        repositoryMaintenanceService.scheduleMaintenance(repositoryInfo);
+
+        verifyNoInteractions(repositoryOperationQueue, gitCommandRunner);
+    }
+
+    private RepositoryInfo repositoryInfo() {
+        RepositoryInfo repositoryInfo = new RepositoryInfo();
+        repositoryInfo.setRemoteUrl(REMOTE_URL);
+        repositoryInfo.setLocalPath("/tmp/repositories/owner/repository");
+        repositoryInfo.setLastSyncedAt(LocalDateTime.now().minusHours(1));
+        return repositoryInfo;
+    }
+
+}
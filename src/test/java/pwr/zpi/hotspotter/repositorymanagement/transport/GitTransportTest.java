@@ -0,0 +1,151 @@
+package pwr.zpi.hotspotter.repositorymanagement.transport;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig;
+import pwr.zpi.hotspotter.repositorymanagement.config.RepositoryManagementConfig.GitTransportBackend;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs both transport backends against a bare repository in a temporary directory, published through {@code file://}.
+ * The native backend needs the git executable on the path.
+ */
+class GitTransportTest {
+
+    private static final String MAIN_BRANCH = "main";
+    private static final String MAIN_REF = Constants.R_HEADS + MAIN_BRANCH;
+    private static final String TRACKING_REF = Constants.R_REMOTES + GitTransport.REMOTE + "/" + MAIN_BRANCH;
+
+    @TempDir
+    private Path tempDirectory;
+
+    private RepositoryManagementConfig repositoryManagementConfig;
+    private String remoteUrl;
+    private Git publisher;
+
+    @BeforeEach
+    void setUp() throws GitAPIException, IOException {
+        repositoryManagementConfig = new RepositoryManagementConfig();
+        repositoryManagementConfig.setBaseDirectory(tempDirectory.toString());
+
+        Path remotePath = tempDirectory.resolve("remote.git");
+        Git.init().setBare(true).setInitialBranch(MAIN_BRANCH).setDirectory(remotePath.toFile()).call().close();
+        remoteUrl = remotePath.toUri().toString();
+
+        publisher = Git.cloneRepository().setURI(remoteUrl).setDirectory(tempDirectory.resolve("publisher").toFile()).call();
+        publisher.checkout().setOrphan(true).setName(MAIN_BRANCH).call();
+        commit("README.md", "first");
+        publisher.push().add(MAIN_BRANCH).call();
+
+        publisher.checkout().setCreateBranch(true).setName("feature").call();
+        commit("feature.txt", "feature");
+        publisher.push().add("feature").call();
+        publisher.checkout().setName(MAIN_BRANCH).call();
+    }
+
+    @ParameterizedTest
+    @EnumSource(GitTransportBackend.class)
+    void clonesOnlyTheDefaultBranch(GitTransportBackend backend) throws GitAPIException, IOException {
+        Path localPath = tempDirectory.resolve("clone");
+        createTransport(backend).cloneRepository(remoteUrl, localPath);
+
+        try (Git clone = Git.open(localPath.toFile())) {
+            Repository repository = clone.getRepository();
+            assertEquals(MAIN_BRANCH, repository.getBranch());
+            assertNotNull(repository.exactRef(TRACKING_REF));
+            assertNull(repository.exactRef(Constants.R_REMOTES + GitTransport.REMOTE + "/feature"));
+        }
+        assertEquals("first", Files.readString(localPath.resolve("README.md")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(GitTransportBackend.class)
+    void clonesAllBranchesWhenSingleBranchIsDisabled(GitTransportBackend backend) throws GitAPIException, IOException {
+        repositoryManagementConfig.setCloneSingleBranch(false);
+        Path localPath = tempDirectory.resolve("clone");
+        createTransport(backend).cloneRepository(remoteUrl, localPath);
+
+        try (Git clone = Git.open(localPath.toFile())) {
+            assertNotNull(clone.getRepository().exactRef(Constants.R_REMOTES + GitTransport.REMOTE + "/feature"));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(GitTransportBackend.class)
+    void fetchesAndResetsToNewCommits(GitTransportBackend backend) throws GitAPIException, IOException {
+        GitTransport transport = createTransport(backend);
+        Path localPath = tempDirectory.resolve("clone");
+        transport.cloneRepository(remoteUrl, localPath);
+
+        RevCommit second = commit("README.md", "second");
+        publisher.push().add(MAIN_BRANCH).call();
+
+        transport.fetchBranch(localPath, MAIN_REF, TRACKING_REF);
+        assertEquals(second.getId(), resolve(localPath, TRACKING_REF));
+        assertEquals("first", Files.readString(localPath.resolve("README.md")));
+
+        transport.resetWorkingTree(localPath, second.name());
+        assertEquals(second.getId(), resolve(localPath, Constants.HEAD));
+        assertEquals("second", Files.readString(localPath.resolve("README.md")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(GitTransportBackend.class)
+    void followsForcePushedBranch(GitTransportBackend backend) throws GitAPIException, IOException {
+        GitTransport transport = createTransport(backend);
+        Path localPath = tempDirectory.resolve("clone");
+        commit("README.md", "to be rewritten");
+        publisher.push().add(MAIN_BRANCH).call();
+        transport.cloneRepository(remoteUrl, localPath);
+
+        publisher.reset().setMode(ResetCommand.ResetType.HARD).setRef("HEAD~1").call();
+        RevCommit rewritten = commit("README.md", "rewritten");
+        publisher.push().add(MAIN_BRANCH).setForce(true).call();
+
+        transport.fetchBranch(localPath, MAIN_REF, TRACKING_REF);
+        transport.resetWorkingTree(localPath, rewritten.name());
+
+        assertEquals(rewritten.getId(), resolve(localPath, TRACKING_REF));
+        assertEquals(rewritten.getId(), resolve(localPath, Constants.HEAD));
+        assertEquals("rewritten", Files.readString(localPath.resolve("README.md")));
+        assertFalse(Files.exists(localPath.resolve("feature.txt")));
+    }
+
+    private GitTransport createTransport(GitTransportBackend backend) {
+        return switch (backend) {
+            case JGIT -> new JGitTransport(repositoryManagementConfig);
+            case NATIVE -> new NativeGitTransport(repositoryManagementConfig, new GitCommandRunner(repositoryManagementConfig));
+        };
+    }
+
+    private RevCommit commit(String fileName, String content) throws GitAPIException, IOException {
+        Files.writeString(publisher.getRepository().getWorkTree().toPath().resolve(fileName), content);
+        publisher.add().addFilepattern(fileName).call();
+        return publisher.commit().setMessage(content).setAuthor("Test", "test@example.com")
+                .setCommitter("Test", "test@example.com").setSign(false).call();
+    }
+
+    private ObjectId resolve(Path localPath, String revision) throws IOException {
+        try (Git git = Git.open(localPath.toFile())) {
+            return git.getRepository().resolve(revision);
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package pwr.zpi.hotspotter.watchedrepository.service;
+
+import org.junit.jupiter.api.Test;
+import pwr.zpi.hotspotter.repositoryanalysis.service.RepositoryAnalysisService;
+import pwr.zpi.hotspotter.repositorymanagement.service.RepositoryManagementService;
+import pwr.zpi.hotspotter.watchedrepository.config.WatchedRepositoryConfig;
+import pwr.zpi.hotspotter.watchedrepository.model.WatchedRepository;
+import pwr.zpi.hotspotter.watchedrepository.repository.WatchedRepositoryRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WatchedRepositoryPrefetcherTest {
+
+    private final WatchedRepositoryRepository watchedRepositoryRepository = mock(WatchedRepositoryRepository.class);
+    private final RepositoryManagementService repositoryManagementService = mock(RepositoryManagementService.class);
+    private final List<Runnable> dispatchedTasks = new ArrayList<>();
+    private final WatchedRepositoryPrefetcher watchedRepositoryPrefetcher = new WatchedRepositoryPrefetcher(
+            new WatchedRepositoryConfig(), watchedRepositoryRepository, repositoryManagementService,
+            mock(RepositoryAnalysisService.class), dispatchedTasks::add);
+
+    @Test
+    void scheduledRunOnlyDispatchesPrefetches() {
+        when(watchedRepositoryRepository.findAll()).thenReturn(List.of(
+                WatchedRepository.builder().repositoryUrl("https://github.com/owner/first").build(),
+                WatchedRepository.builder().repositoryUrl("https://github.com/owner/second").build()));
+
+        watchedRepositoryPrefetcher.prefetchAll();
+
+        assertEquals(2, dispatchedTasks.size());
+        verify(repositoryManagementService, never()).cloneOrUpdateRepository(anyString());
+
+        dispatchedTasks.forEach(Runnable::run);
+        verify(repositoryManagementService, times(2)).cloneOrUpdateRepository(anyString());
+    }
+
+}